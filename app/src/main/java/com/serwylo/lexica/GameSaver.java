@@ -25,6 +25,8 @@ public abstract class GameSaver {
 	protected static final String BOARD_SIZE = "boardSize";
 	protected static final String STATUS = "status";
 	protected static final String START = "startTime";
+	protected static final String SOLUTIONS = "solutions";
+	protected static final String SOLUTIONS_VERSION = "solutionsVersion";
 
 	public abstract boolean hasSavedGame();
 	public abstract String readScoreType();
@@ -37,9 +39,21 @@ public abstract class GameSaver {
 	public abstract Game.GameStatus readStatus();
 	public abstract Date readStart();
 
+	/**
+	 * Every word on the board, as written by {@link Game#save(GameSaver)}, or null if they weren't
+	 * saved.
+	 */
+	@Nullable
+	public abstract byte[] readSolutions();
+
+	/**
+	 * The version of the dictionary which {@link #readSolutions()} were found with.
+	 */
+	public abstract long readSolutionsVersion();
+
 	protected static String[] safeSplit(@Nullable String string) {
 		return TextUtils.isEmpty(string) ? new String[] {} : string.split(",");
 	}
 
-	public abstract void save(Board board, int timeRemaining, int maxTimeRemaining, String wordListToString, String scoreType, int wordCount, Date start, Game.GameStatus status);
+	public abstract void save(Board board, int timeRemaining, int maxTimeRemaining, String wordListToString, String scoreType, int wordCount, Date start, Game.GameStatus status, @Nullable byte[] solutions, long solutionsVersion);
 }
@@ -0,0 +1,508 @@
+package com.serwylo.lexica;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
+import android.util.Log;
+
+import com.serwylo.lexica.game.Board;
+import com.serwylo.lexica.game.Game;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Saves the game in progress to a small binary file, so that it can be restored after the app
+ * has been closed.
+ *
+ * {@link #save} only encodes the game, which is quick enough to do from {@link PlayLexica#onPause()}.
+ * Writing it out happens on a background thread: first to a temporary file, which is synced to
+ * disk and then renamed over the last save. So the file is always either the old game or the new
+ * one, even if the app is killed part way through. Until the write has finished, the game is read
+ * back from memory instead.
+ *
+ * The file is a version number followed by the board, timer, words and status (see
+ * {@link #encode}), with a checksum at the end. Anything which doesn't match is treated as no
+ * saved game at all. Each different letter on the board is only stored once, and the board and
+ * words are stored as indexes into those letters. Words which can't be spelt from them (there
+ * shouldn't be any, as every word is traced out on the board) are stored as strings instead.
+ */
+public class GameSaverFile extends GameSaver {
+
+	private static final String TAG = "GameSaverFile";
+
+	private static final String SAVE_FILE = "game.bin";
+
+	private static final int MAGIC = 0x4c584753; // "LXGS"
+	private static final int VERSION = 2;
+
+	/**
+	 * Flags in the byte before each word: whether it had been found already (and so is saved with
+	 * a "+" in front of it), and whether it is spelt out as letters from the board.
+	 */
+	private static final int WORD_REPEATED = 1;
+	private static final int WORD_SPELT = 2;
+
+	/**
+	 * Stands in for a save which has been cleared, but not yet deleted.
+	 */
+	private static final byte[] CLEARED = new byte[0];
+
+	private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, TAG);
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	/**
+	 * The most recent save of each file which hasn't been written yet, by path.
+	 */
+	private static final Map<String, byte[]> PENDING = new HashMap<>();
+
+	@NonNull
+	private final File file;
+
+	private Snapshot snapshot;
+
+	public GameSaverFile(@NonNull Context context) {
+		this(new File(context.getFilesDir(), SAVE_FILE));
+	}
+
+	GameSaverFile(@NonNull File file) {
+		this.file = file;
+	}
+
+	@Override
+	public boolean hasSavedGame() {
+		return snapshot() != null;
+	}
+
+	@Override
+	public String readScoreType() {
+		return hasSavedGame() ? snapshot.scoreType : Game.SCORE_WORDS;
+	}
+
+	@Override
+	public int readWordCount() {
+		return hasSavedGame() ? snapshot.wordCount : DEFAULT_WORD_COUNT;
+	}
+
+	@Override
+	public String[] readWords() {
+		return hasSavedGame() ? snapshot.words : new String[] {};
+	}
+
+	@Override
+	public int readMaxTimeRemaining() {
+		return hasSavedGame() ? snapshot.maxTimeRemaining : DEFAULT_MAX_TIME_REMAINING;
+	}
+
+	@Override
+	public int readTimeRemaining() {
+		return hasSavedGame() ? snapshot.timeRemaining : DEFAULT_TIME_REMAINING;
+	}
+
+	@Override
+	public String[] readGameBoard() {
+		return hasSavedGame() ? snapshot.board : new String[] {};
+	}
+
+	@Override
+	public int readBoardSize() {
+		return hasSavedGame() ? snapshot.board.length : DEFAULT_BOARD_SIZE;
+	}
+
+	@Override
+	public Game.GameStatus readStatus() {
+		return hasSavedGame() ? snapshot.status : Game.GameStatus.GAME_STARTING;
+	}
+
+	@Override
+	public Date readStart() {
+		return hasSavedGame() && snapshot.start != 0 ? new Date(snapshot.start) : null;
+	}
+
+	@Override
+	public byte[] readSolutions() {
+		return hasSavedGame() ? snapshot.solutions : null;
+	}
+
+	@Override
+	public long readSolutionsVersion() {
+		return hasSavedGame() ? snapshot.solutionsVersion : 0;
+	}
+
+	@Override
+	public void save(Board board, int timeRemaining, int maxTimeRemaining, String wordListToString, String scoreType, int wordCount, Date start, Game.GameStatus status, @Nullable byte[] solutions, long solutionsVersion) {
+		String[] letters = new String[board.getSize()];
+		for (int i = 0; i < letters.length; i ++) {
+			letters[i] = board.valueAt(i);
+		}
+		String[] words = wordListToString == null || wordListToString.isEmpty() ? new String[] {} : wordListToString.split(",");
+
+		byte[] bytes;
+		try {
+			bytes = encode(letters, timeRemaining, maxTimeRemaining, words, scoreType, wordCount, start, status, solutions, solutionsVersion);
+		} catch (IOException e) {
+			Log.e(TAG, "Unable to save the game", e);
+			return;
+		}
+
+		snapshot = null;
+		enqueue(bytes);
+	}
+
+	public void clearSavedGame() {
+		snapshot = null;
+		enqueue(CLEARED);
+	}
+
+	/**
+	 * Blocks until every save queued so far has been written. Only needed by tests.
+	 */
+	static void awaitWrites() throws InterruptedException {
+		final Object done = new Object();
+		synchronized (done) {
+			WRITER.execute(new Runnable() {
+				@Override
+				public void run() {
+					synchronized (done) {
+						done.notifyAll();
+					}
+				}
+			});
+			done.wait(TimeUnit.SECONDS.toMillis(10));
+		}
+	}
+
+	private void enqueue(final byte[] bytes) {
+		final String path = file.getAbsolutePath();
+		synchronized (PENDING) {
+			PENDING.put(path, bytes);
+		}
+
+		WRITER.execute(new Runnable() {
+			@Override
+			public void run() {
+				synchronized (PENDING) {
+					// A newer save is already queued behind this one, and will replace it anyway.
+					if (PENDING.get(path) != bytes) {
+						return;
+					}
+				}
+
+				try {
+					if (bytes == CLEARED) {
+						if (file.exists() && !file.delete()) {
+							throw new IOException("Unable to delete " + file);
+						}
+					} else {
+						write(bytes);
+					}
+				} catch (IOException e) {
+					Log.e(TAG, "Unable to write the saved game", e);
+				}
+
+				synchronized (PENDING) {
+					if (PENDING.get(path) == bytes) {
+						PENDING.remove(path);
+					}
+				}
+			}
+		});
+	}
+
+	private void write(byte[] bytes) throws IOException {
+		File temp = new File(file.getPath() + ".tmp");
+		FileOutputStream stream = new FileOutputStream(temp);
+		try {
+			stream.write(bytes);
+			stream.getFD().sync();
+		} finally {
+			stream.close();
+		}
+
+		if (!temp.renameTo(file)) {
+			temp.delete();
+			throw new IOException("Unable to rename " + temp + " to " + file);
+		}
+
+		syncDirectory(file.getAbsoluteFile().getParentFile());
+	}
+
+	/**
+	 * Syncs the directory as well as the file, so that the rename itself can't be lost. Only
+	 * possible from Lollipop, which added {@link Os}. Before that, the rename is written out
+	 * whenever the file system gets to it, and until then the previous save is still intact.
+	 */
+	@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+	private static void syncDirectory(File directory) {
+		if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+			return;
+		}
+
+		try {
+			FileDescriptor fd = Os.open(directory.getPath(), OsConstants.O_RDONLY, 0);
+			try {
+				Os.fsync(fd);
+			} finally {
+				Os.close(fd);
+			}
+		} catch (ErrnoException e) {
+			Log.w(TAG, "Unable to sync " + directory, e);
+		}
+	}
+
+	/**
+	 * The saved game, read from the queued save if it hasn't been written yet, or otherwise from
+	 * the file in a single read. Null if there isn't one, or it can't be read.
+	 */
+	@Nullable
+	private Snapshot snapshot() {
+		if (snapshot != null) {
+			return snapshot;
+		}
+
+		byte[] bytes;
+		synchronized (PENDING) {
+			bytes = PENDING.get(file.getAbsolutePath());
+		}
+
+		try {
+			if (bytes == null) {
+				bytes = read();
+			}
+			snapshot = bytes == null || bytes == CLEARED ? null : decode(bytes);
+		} catch (IOException | RuntimeException e) {
+			Log.w(TAG, "Unable to read the saved game", e);
+			snapshot = null;
+		}
+		return snapshot;
+	}
+
+	@Nullable
+	private byte[] read() throws IOException {
+		if (!file.exists()) {
+			return null;
+		}
+
+		FileInputStream stream = new FileInputStream(file);
+		try {
+			byte[] bytes = new byte[(int) file.length()];
+			int read = 0;
+			while (read < bytes.length) {
+				int count = stream.read(bytes, read, bytes.length - read);
+				if (count < 0) {
+					throw new IOException("Saved game ended early");
+				}
+				read += count;
+			}
+			return bytes;
+		} finally {
+			stream.close();
+		}
+	}
+
+	static byte[] encode(String[] board, int timeRemaining, int maxTimeRemaining, String[] words, String scoreType, int wordCount, Date start, Game.GameStatus status, @Nullable byte[] solutions, long solutionsVersion) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + (solutions == null ? 0 : solutions.length));
+		DataOutputStream out = new DataOutputStream(bytes);
+
+		out.writeInt(MAGIC);
+		out.writeByte(VERSION);
+
+		List<String> letters = new ArrayList<>();
+		for (String letter : board) {
+			if (!letters.contains(letter)) {
+				letters.add(letter);
+			}
+		}
+
+		out.writeByte(letters.size());
+		for (String letter : letters) {
+			out.writeUTF(letter);
+		}
+
+		out.writeShort(board.length);
+		for (String letter : board) {
+			out.writeByte(letters.indexOf(letter));
+		}
+
+		out.writeInt(timeRemaining);
+		out.writeInt(maxTimeRemaining);
+		out.writeLong(start == null ? 0 : start.getTime());
+		out.writeUTF(status.name());
+
+		out.writeUTF(scoreType == null ? Game.SCORE_WORDS : scoreType);
+		out.writeInt(wordCount);
+		out.writeShort(words.length);
+		for (String word : words) {
+			boolean repeated = word.startsWith("+");
+			String spelt = repeated ? word.substring(1) : word;
+			int[] indexes = spell(spelt, letters);
+
+			out.writeByte((repeated ? WORD_REPEATED : 0) | (indexes != null ? WORD_SPELT : 0));
+			if (indexes != null) {
+				out.writeByte(indexes.length);
+				for (int index : indexes) {
+					out.writeByte(index);
+				}
+			} else {
+				out.writeUTF(spelt);
+			}
+		}
+
+		out.writeLong(solutionsVersion);
+		out.writeInt(solutions == null ? -1 : solutions.length);
+		if (solutions != null) {
+			out.write(solutions);
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(bytes.toByteArray());
+		out.writeInt((int) crc.getValue());
+		out.flush();
+
+		return bytes.toByteArray();
+	}
+
+	static Snapshot decode(byte[] bytes) throws IOException {
+		if (bytes.length < 4) {
+			throw new IOException("Saved game is too short");
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(bytes, 0, bytes.length - 4);
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+		in.skipBytes(bytes.length - 4);
+		if (in.readInt() != (int) crc.getValue()) {
+			throw new IOException("Saved game is corrupt");
+		}
+
+		in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 4));
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a saved game");
+		}
+		int version = in.readUnsignedByte();
+		if (version != VERSION) {
+			throw new IOException("Unknown saved game version " + version);
+		}
+
+		Snapshot snapshot = new Snapshot();
+
+		String[] letters = new String[in.readUnsignedByte()];
+		for (int i = 0; i < letters.length; i ++) {
+			letters[i] = in.readUTF();
+		}
+
+		snapshot.board = new String[in.readUnsignedShort()];
+		for (int i = 0; i < snapshot.board.length; i ++) {
+			snapshot.board[i] = letters[in.readUnsignedByte()];
+		}
+
+		snapshot.timeRemaining = in.readInt();
+		snapshot.maxTimeRemaining = in.readInt();
+		snapshot.start = in.readLong();
+		snapshot.status = Game.GameStatus.valueOf(in.readUTF());
+
+		snapshot.scoreType = in.readUTF();
+		snapshot.wordCount = in.readInt();
+		snapshot.words = new String[in.readUnsignedShort()];
+		StringBuilder word = new StringBuilder();
+		for (int i = 0; i < snapshot.words.length; i ++) {
+			int flags = in.readUnsignedByte();
+			word.setLength(0);
+			if ((flags & WORD_REPEATED) != 0) {
+				word.append('+');
+			}
+
+			if ((flags & WORD_SPELT) != 0) {
+				int length = in.readUnsignedByte();
+				for (int j = 0; j < length; j ++) {
+					word.append(letters[in.readUnsignedByte()]);
+				}
+			} else {
+				word.append(in.readUTF());
+			}
+			snapshot.words[i] = word.toString();
+		}
+
+		snapshot.solutionsVersion = in.readLong();
+		int solutionsLength = in.readInt();
+		if (solutionsLength >= 0) {
+			snapshot.solutions = new byte[solutionsLength];
+			in.readFully(snapshot.solutions);
+		}
+
+		return snapshot;
+	}
+
+	/**
+	 * Indexes into {@param letters} which spell out {@param word}, trying the longest letter first
+	 * at each point, or null if it can't be spelt from them.
+	 */
+	@Nullable
+	private static int[] spell(String word, List<String> letters) {
+		int[] indexes = new int[word.length()];
+		int count = 0;
+		int position = 0;
+		while (position < word.length()) {
+			int best = -1;
+			for (int i = 0; i < letters.size(); i ++) {
+				String letter = letters.get(i);
+				if (letter.length() > 0 && word.startsWith(letter, position) && (best < 0 || letter.length() > letters.get(best).length())) {
+					best = i;
+				}
+			}
+
+			// The number of letters is saved in a byte.
+			if (best < 0 || count == 255) {
+				return null;
+			}
+
+			indexes[count ++] = best;
+			position += letters.get(best).length();
+		}
+		int[] spelt = new int[count];
+		System.arraycopy(indexes, 0, spelt, 0, count);
+		return spelt;
+	}
+
+	static class Snapshot {
+		String[] board;
+		int timeRemaining;
+		int maxTimeRemaining;
+		long start;
+		Game.GameStatus status;
+		String scoreType;
+		int wordCount;
+		String[] words;
+		long solutionsVersion;
+		byte[] solutions;
+	}
+
+}
@@ -3,12 +3,18 @@ package com.serwylo.lexica;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Base64;
 
 import com.serwylo.lexica.game.Board;
 import com.serwylo.lexica.game.Game;
 
 import java.util.Date;
 
+/**
+ * Saves the game in the preferences. Games are now saved by {@link GameSaverFile}, so this is only
+ * used to restore games saved by older versions.
+ */
 public class GameSaverPersistent extends GameSaver {
 
 	private static final String SAVE_PREF_FILE = "prefs_game_file";
@@ -75,7 +81,26 @@ public class GameSaverPersistent extends GameSaver {
 	}
 
 	@Override
-	public void save(Board board, int timeRemaining, int maxTimeRemaining, String wordListToString, String scoreType, int wordCount, Date start, Game.GameStatus status) {
+	public byte[] readSolutions() {
+		String solutions = getPrefs().getString(SOLUTIONS, null);
+		if (solutions == null) {
+			return null;
+		}
+
+		try {
+			return Base64.decode(solutions, Base64.NO_WRAP);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public long readSolutionsVersion() {
+		return getPrefs().getLong(SOLUTIONS_VERSION, 0);
+	}
+
+	@Override
+	public void save(Board board, int timeRemaining, int maxTimeRemaining, String wordListToString, String scoreType, int wordCount, Date start, Game.GameStatus status, @Nullable byte[] solutions, long solutionsVersion) {
 
 		SharedPreferences.Editor prefs = getPrefs().edit();
 		prefs.putInt(BOARD_SIZE,board.getSize());
@@ -87,6 +112,14 @@ public class GameSaverPersistent extends GameSaver {
 		prefs.putString(SCORE_TYPE, scoreType);
 		prefs.putInt(WORD_COUNT, wordCount);
 
+		if (solutions != null) {
+			prefs.putString(SOLUTIONS, Base64.encodeToString(solutions, Base64.NO_WRAP));
+			prefs.putLong(SOLUTIONS_VERSION, solutionsVersion);
+		} else {
+			prefs.remove(SOLUTIONS);
+			prefs.remove(SOLUTIONS_VERSION);
+		}
+
 		prefs.putBoolean(ACTIVE_GAME, true);
 		prefs.commit();
 	}
@@ -68,7 +68,17 @@ public class GameSaverTransient extends GameSaver {
 	}
 
 	@Override
-	public void save(Board board, int timeRemaining, int maxTimeRemaining, String wordListToString, String scoreType, int wordCount, Date start, Game.GameStatus status) {
+	public byte[] readSolutions() {
+		return bundle.getByteArray(SOLUTIONS);
+	}
+
+	@Override
+	public long readSolutionsVersion() {
+		return bundle.getLong(SOLUTIONS_VERSION, 0);
+	}
+
+	@Override
+	public void save(Board board, int timeRemaining, int maxTimeRemaining, String wordListToString, String scoreType, int wordCount, Date start, Game.GameStatus status, byte[] solutions, long solutionsVersion) {
 		bundle.putInt(GameSaver.BOARD_SIZE, board.getSize());
 
 		bundle.putString(GameSaver.GAME_BOARD, board.toString());
@@ -79,6 +89,8 @@ public class GameSaverTransient extends GameSaver {
 		bundle.putInt(GameSaver.WORD_COUNT, wordCount);
 		bundle.putLong(GameSaver.START, start == null ? 0 : start.getTime());
 		bundle.putString(GameSaver.STATUS, status.toString());
+		bundle.putByteArray(GameSaver.SOLUTIONS, solutions);
+		bundle.putLong(GameSaver.SOLUTIONS_VERSION, solutionsVersion);
 
 		bundle.putBoolean(GameSaver.ACTIVE_GAME, true);
 	}
@@ -28,6 +28,8 @@ import android.view.View;
 import android.widget.Button;
 import android.widget.TextView;
 
+import com.serwylo.lexica.game.GameLoader;
+
 public class Lexica extends Activity {
 
 	@SuppressWarnings("unused")
@@ -40,6 +42,7 @@ public class Lexica extends Activity {
     public void onCreate(Bundle savedInstanceState) {
 		try {
        		super.onCreate(savedInstanceState);
+			GameLoader.prewarm(this);
 			splashScreen();
 		} catch (Exception e) {
 			// Log.e(TAG,"top level",e);
@@ -107,7 +110,7 @@ public class Lexica extends Activity {
 	}
 
 	public boolean savedGame() {
-		return new GameSaverPersistent(this).hasSavedGame();
+		return new GameSaverFile(this).hasSavedGame() || new GameSaverPersistent(this).hasSavedGame();
 	}
 
 	@Override
@@ -18,30 +18,62 @@
 package com.serwylo.lexica;
 
 import android.content.Intent;
+import android.os.Build;
 import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
 import android.util.Log;
+import android.view.Gravity;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.ProgressBar;
+import android.widget.Toast;
 
 import com.serwylo.lexica.game.Game;
+import com.serwylo.lexica.game.GameLoader;
 import com.serwylo.lexica.view.LexicaView;
 
-public class PlayLexica extends AppCompatActivity implements Synchronizer.Finalizer {
+public class PlayLexica extends AppCompatActivity implements Synchronizer.Finalizer, GameLoader.Listener {
 
 	protected static final String TAG = "PlayLexica";
 
 	private Synchronizer synch;
 	private Game game;
 
+	/**
+	 * Whether a game is being created in the background, in which case it is shown by
+	 * {@link #onGameLoaded(Game)} once it's ready.
+	 */
+	private boolean loading;
+
+	/**
+	 * Whether the game being loaded is the saved one. It is only cleared once it has loaded, so
+	 * that if this activity is recreated first, the new one can still restore it.
+	 */
+	private boolean restoringSavedGame;
+
+	/**
+	 * Whether the game being loaded is a new one, rather than one being restored.
+	 */
+	private boolean loadingNewGame;
+
+	private boolean resumed;
+	private boolean destroyed;
+
 	@Override
 	public void onCreate(Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
+		showLoading();
+
 		if(savedInstanceState != null) {
 			try {
+				if(!new GameSaverTransient(savedInstanceState).hasSavedGame()) {
+					throw new IllegalStateException("No game in savedInstanceState");
+				}
 				restoreGame(savedInstanceState);
+				return;
 			} catch (Exception e) {
 				// On API < 11, the above should work fine because onSaveInstanceState should be
 				// called before onPause. However, on API >= 11, onPause is always called _before_
@@ -50,9 +82,11 @@ public class PlayLexica extends AppCompatActivity implements Synchronizer.Finali
 				Log.e(TAG,"error restoring state from savedInstanceState, trying to look for saved game in preferences",e);
 				if (hasSavedGame()) {
 					restoreGame();
+					return;
 				}
 			}
-			return;
+
+			// Recreated before the game had even loaded, so start it again.
 		}
 		try {
 			String action = getIntent().getAction();
@@ -69,6 +103,12 @@ public class PlayLexica extends AppCompatActivity implements Synchronizer.Finali
 		}
     }
 
+	@Override
+	protected void onDestroy() {
+		super.onDestroy();
+		destroyed = true;
+	}
+
 	@Override
 	public boolean onCreateOptionsMenu(Menu menu) {
 		MenuInflater inflater = getMenuInflater();
@@ -78,6 +118,10 @@ public class PlayLexica extends AppCompatActivity implements Synchronizer.Finali
 
 	@Override
 	public boolean onOptionsItemSelected(MenuItem item) {
+		if(game == null) {
+			return true;
+		}
+
 		switch(item.getItemId()) {
 			case R.id.rotate:
 				game.rotateBoard();	
@@ -95,42 +139,53 @@ public class PlayLexica extends AppCompatActivity implements Synchronizer.Finali
 
 	@Override
 	public boolean onPrepareOptionsMenu(Menu menu) {
-		return game.getStatus() != Game.GameStatus.GAME_FINISHED;
+		return game != null && game.getStatus() != Game.GameStatus.GAME_FINISHED;
 	}
 
-	private void newGame() {
-		game = new Game(this);
-
-		LexicaView lv = new LexicaView(this,game);
-
-		if(synch != null) {
-			synch.abort();
-		}
-		synch = new Synchronizer();
-		synch.setCounter(game);
-		synch.addEvent(lv);
-		synch.setFinalizer(this);
+	private void showLoading() {
+		FrameLayout layout = new FrameLayout(this);
+		layout.addView(new ProgressBar(this), new FrameLayout.LayoutParams(
+			ViewGroup.LayoutParams.WRAP_CONTENT,
+			ViewGroup.LayoutParams.WRAP_CONTENT,
+			Gravity.CENTER));
+		setContentView(layout);
+	}
 
-		ViewGroup.LayoutParams lp = new ViewGroup.LayoutParams(
-			ViewGroup.LayoutParams.FILL_PARENT,
-			ViewGroup.LayoutParams.FILL_PARENT);
-		setContentView(lv,lp);
-		lv.setKeepScreenOn(true);
-		lv.setFocusableInTouchMode(true);
+	private void newGame() {
+		loading = true;
+		loadingNewGame = true;
+		GameLoader.newGame(this, this);
 	}
 
 	private void restoreGame() {
-		clearSavedGame();
-		game = new Game(this, new GameSaverPersistent(this));
-		restoreGame(game);
+		loading = true;
+		loadingNewGame = false;
+		restoringSavedGame = true;
+		GameLoader.restoreGame(this, savedGame(), this);
 	}
 
 	private void restoreGame(Bundle bun) {
-		game = new Game(this,new GameSaverTransient(bun));
-		restoreGame(game);
+		loading = true;
+		loadingNewGame = false;
+		GameLoader.restoreGame(this, new GameSaverTransient(bun), this);
 	}
 
-	private void restoreGame(Game game) {
+	public void onGameLoaded(Game game) {
+		if(destroyed) {
+			// A new game's board has already been drawn, so keep it for the next one.
+			GameLoader.returnUnplayed(game);
+			return;
+		}
+
+		loading = false;
+		this.game = game;
+
+		if(restoringSavedGame) {
+			// Now that it's in play, so that it can't be restored twice.
+			restoringSavedGame = false;
+			clearSavedGame();
+		}
+
 		LexicaView lv = new LexicaView(this,game);
 
 		if(synch != null) {
@@ -147,19 +202,49 @@ public class PlayLexica extends AppCompatActivity implements Synchronizer.Finali
 		setContentView(lv,lp);
 		lv.setKeepScreenOn(true);
 		lv.setFocusableInTouchMode(true);
+		supportInvalidateOptionsMenu();
+
+		// Logged by the system as "Fully drawn", to measure how long it takes to get to a playable board.
+		if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+			reportFullyDrawn();
+		}
+
+		if(resumed) {
+			play();
+		}
+	}
+
+	public void onGameLoadFailed() {
+		if(destroyed) {
+			return;
+		}
+
+		loading = false;
+		if(loadingNewGame) {
+			// Nothing else to fall back on, so go back rather than show the spinner forever.
+			Toast.makeText(this, R.string.error_loading_game, Toast.LENGTH_LONG).show();
+			finish();
+			return;
+		}
+
+		if(restoringSavedGame) {
+			// It would only fail again next time.
+			restoringSavedGame = false;
+			clearSavedGame();
+		}
+		newGame();
 	}
 
 	private void saveGame() {
-		if(game.getStatus() == Game.GameStatus.GAME_RUNNING) {
+		if(game != null && game.getStatus() == Game.GameStatus.GAME_RUNNING) {
 			game.pause();
 
-			game.save(new GameSaverPersistent(this));
-
+			game.save(new GameSaverFile(this));
 		}
 	}
 
 	private void saveGame(Bundle state) {
-		if(game.getStatus() == Game.GameStatus.GAME_RUNNING) {
+		if(game != null && game.getStatus() == Game.GameStatus.GAME_RUNNING) {
 			game.pause();
 			game.save(new GameSaverTransient(state));
 		}
@@ -167,14 +252,27 @@ public class PlayLexica extends AppCompatActivity implements Synchronizer.Finali
 
 	public void onPause() {
 		super.onPause();
-		synch.abort();
+		resumed = false;
+		if(synch != null) {
+			synch.abort();
+		}
 		saveGame();
 	}
 
 	public void onResume() {
 		super.onResume();
-		if(game == null) newGame();
+		resumed = true;
+		if(game == null) {
+			if(!loading) {
+				newGame();
+			}
+			return;
+		}
+
+		play();
+	}
 
+	private void play() {
 		switch(game.getStatus()) {
 			case GAME_STARTING:
 				game.start();
@@ -195,11 +293,24 @@ public class PlayLexica extends AppCompatActivity implements Synchronizer.Finali
 	}
 
 	private boolean hasSavedGame() {
-		return new GameSaverPersistent(this).hasSavedGame();
+		return savedGame().hasSavedGame();
+	}
+
+	/**
+	 * The saved game, or if there isn't one, one saved in the preferences by an older version.
+	 */
+	private GameSaver savedGame() {
+		GameSaverFile saver = new GameSaverFile(this);
+		return saver.hasSavedGame() ? saver : new GameSaverPersistent(this);
 	}
 
 	private void clearSavedGame() {
-		new GameSaverPersistent(this).clearSavedGame();
+		new GameSaverFile(this).clearSavedGame();
+
+		GameSaverPersistent legacy = new GameSaverPersistent(this);
+		if(legacy.hasSavedGame()) {
+			legacy.clearSavedGame();
+		}
 	}
 
 	private void score() {
@@ -31,12 +31,15 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
+import android.widget.FrameLayout;
 import android.widget.LinearLayout;
+import android.widget.ProgressBar;
 import android.widget.ScrollView;
 import android.widget.TabHost;
 import android.widget.TextView;
 
 import com.serwylo.lexica.game.Game;
+import com.serwylo.lexica.game.GameLoader;
 import com.serwylo.lexica.view.BoardView;
 
 import net.healeys.trie.Solution;
@@ -44,7 +47,7 @@ import net.healeys.trie.Solution;
 import java.util.Iterator;
 import java.util.Set;
 
-public class ScoreActivity extends TabActivity {
+public class ScoreActivity extends TabActivity implements GameLoader.Listener {
 
 	private static final String TAG = "ScoreActivity";
 
@@ -56,6 +59,15 @@ public class ScoreActivity extends TabActivity {
 	private View highlighted;
 	private String definitionProvider;
 
+	/**
+	 * The finished game, which is loaded in the background (as it may need solving again) and
+	 * then shown by {@link #onGameLoaded(Game)}. Kept so that it can be saved again if this
+	 * activity is recreated before then.
+	 */
+	private Bundle saved;
+	private View loadingView;
+	private boolean destroyed;
+
     @Override
     public void onCreate(Bundle savedInstanceState) {
      	super.onCreate(savedInstanceState);
@@ -63,18 +75,34 @@ public class ScoreActivity extends TabActivity {
 		SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(this);
 		definitionProvider = prefs.getString("definitionProvider", "google");
 
-		if(savedInstanceState != null) {
-			game = new Game(this, new GameSaverTransient(savedInstanceState));
+		saved = savedInstanceState != null ? savedInstanceState : getIntent().getExtras();
+
+		loadingView = new ProgressBar(this);
+		getTabHost().getTabContentView().addView(loadingView, new FrameLayout.LayoutParams(
+			ViewGroup.LayoutParams.WRAP_CONTENT,
+			ViewGroup.LayoutParams.WRAP_CONTENT,
+			Gravity.CENTER));
+
+		// Also gets the next board ready, in case another game is started from here.
+		GameLoader.restoreGame(this, new GameSaverTransient(saved), this);
+	}
+
+	@Override
+	protected void onDestroy() {
+		super.onDestroy();
+		destroyed = true;
+	}
 
-		} else {
-			Intent intent = getIntent();
-			Bundle bun = intent.getExtras();
-			game = new Game(this,new GameSaverTransient(bun));
+	public void onGameLoaded(Game game) {
+		if(destroyed) {
+			return;
 		}
-		game.initializeDictionary();
+
+		this.game = game;
 
 		// Set up the tabs
 		TabHost host = getTabHost();
+		host.getTabContentView().removeView(loadingView);
 		LayoutInflater.from(this).inflate(R.layout.score_view, host.getTabContentView(), true);
 		host.addTab(host.newTabSpec("found").setIndicator(getString(R.string.found_words)).setContent(R.id.found_words));
 		host.addTab(host.newTabSpec("missed").setIndicator(getString(R.string.missed_words)).setContent(R.id.missed_words));
@@ -144,10 +172,20 @@ public class ScoreActivity extends TabActivity {
 
 	}
 
+	public void onGameLoadFailed() {
+		if(!destroyed) {
+			finish();
+		}
+	}
+
 	@Override
 	protected void onSaveInstanceState(Bundle outState) {
 		super.onSaveInstanceState(outState);
-		game.save(new GameSaverTransient(outState));
+		if(game != null) {
+			game.save(new GameSaverTransient(outState));
+		} else if(saved != null) {
+			outState.putAll(saved);
+		}
 	}
 
 	private ViewGroup initializeScrollView(int resId) {
@@ -19,10 +19,12 @@ package com.serwylo.lexica.game;
 
 import android.text.TextUtils;
 
-import net.healeys.trie.TransitionMap;
+import net.healeys.trie.CompiledTransitionMap;
+import net.healeys.trie.Topology;
 
-public abstract class Board implements TransitionMap {
+public abstract class Board implements CompiledTransitionMap {
 	private String[] board;
+	private Topology topology;
 
 	public Board(String[] b) {
 		board = b;
@@ -58,16 +60,30 @@ public abstract class Board implements TransitionMap {
 
 	public abstract int getWidth();
 
+	@Override
+	public int getHeight() {
+		return getSize() / getWidth();
+	}
+
+	/**
+	 * Which positions neighbour which. Boards of other shapes can override this, and transitions
+	 * both while playing and while solving will follow it.
+	 */
+	@Override
+	public synchronized Topology getTopology() {
+		if (topology == null) {
+			topology = Topology.grid(getWidth(), getHeight());
+		}
+		return topology;
+	}
+
 	@Override
 	public boolean canTransition(int fromX, int fromY, int toX, int toY) {
-		if (fromX >= getWidth() || fromY >= getWidth() || toX >= getWidth() || toY >= getWidth()) {
+		if (fromX < 0 || fromY < 0 || toX < 0 || toY < 0 || fromX >= getWidth() || fromY >= getHeight() || toX >= getWidth() || toY >= getHeight()) {
 			return false;
 		}
 
-		int xDistance = Math.abs(fromX - toX);
-		int yDistance = Math.abs(fromY - toY);
-
-		return (xDistance == 1 && yDistance == 1 || xDistance == 0 && yDistance == 1 || xDistance == 1 && yDistance == 0);
+		return getTopology().isAdjacent(fromX + getWidth() * fromY, toX + getWidth() * toY);
 	}
 
 	@Override
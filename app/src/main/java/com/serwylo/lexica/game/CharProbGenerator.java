@@ -17,40 +17,34 @@
 
 package com.serwylo.lexica.game;
 
-import java.io.BufferedReader;
+import net.healeys.trie.BoardTarget;
+import net.healeys.trie.LetterGenerator;
+import net.healeys.trie.SplitMixRandom;
+import net.healeys.trie.Topology;
+import net.healeys.trie.WordCounter;
+
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.Locale;
 import java.util.Random;
 
 public class CharProbGenerator {
 	@SuppressWarnings("unused")
 	private static final String TAG = "CharProbGenerator";
-	private final ArrayList<ProbabilityQueue> charProbs;
-
-	public CharProbGenerator(InputStream letter_stream) {
 
-		BufferedReader br = new BufferedReader(new InputStreamReader(
-			letter_stream));
+	/**
+	 * Boards to try before settling for the one closest to the target.
+	 */
+	private static final int MAX_ATTEMPTS = 200;
 
-		charProbs = new ArrayList<>();
+	private final LetterGenerator generator;
+	private final Random random = new SplitMixRandom(new Random().nextLong());
 
+	public CharProbGenerator(InputStream letter_stream) {
 		try {
-			for(String line=br.readLine();line != null; line=br.readLine()) {
-				String chunks[] = line.toLowerCase(Locale.ENGLISH).split(" ");
-				ProbabilityQueue pq = new ProbabilityQueue(chunks[0]);
-				for(int i=1;i<chunks.length;i++) {
-					pq.addProb(chunks[i]);
-				}
-				charProbs.add(pq);
-			}
-		} catch (Exception e) {
-			// Log.e(TAG,"READING INPUT",e);
-			// Checked exceptions considered harmful.
+			generator = new LetterGenerator(letter_stream);
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to read letter probabilities", e);
 		}
-
 	}
 
 	public FiveByFiveBoard generateFiveByFiveBoard() {
@@ -66,70 +60,23 @@ public class CharProbGenerator {
 	}
 
 	public String[] generateBoard(int size) {
-		int total = 0;
-		Random rng = new Random();
-
-		String board[] = new String[size];
-
-		for(int i=0;i<charProbs.size();i++) {
-			total += charProbs.get(i).peekProb();
-		}
-
-		// get the letters
-		for(int i=0;i<size;i++) {
-			ProbabilityQueue pq = null;
-			int remaining = rng.nextInt(total);
-			// Log.d(TAG,"remaining:"+remaining+"/"+total);
-			for(int j=0;j<charProbs.size();j++) {
-				pq = charProbs.get(j);
-				remaining -= pq.peekProb();
-				if(pq.peekProb() > 0 && remaining <= 0) {
-					break;
-				}
-			}
-			board[i] = pq.getLetter();
-			total -= pq.getProb();
-			total += pq.peekProb();
-		}
-
-		// shuffle the letters
-		for(int to=15;to>0;to--) {
-			int from = rng.nextInt(to);
-			String tmp = board[to];
-			board[to] = board[from];
-			board[from] = tmp;
-		}
-
-		return board;
+		return generator.generateBoard(size);
 	}
 
-	private class ProbabilityQueue {
-		private final String letter;
-		private final LinkedList<Integer> probQueue;
-
-		public ProbabilityQueue(String l) {
-			letter = l;
-			probQueue = new LinkedList<>();
-		}
-
-		public String getLetter() {
-			return letter;
-		}
-
-		public void addProb(String s) {
-			probQueue.add(Integer.valueOf(s));
-		}
-
-		public int peekProb() {
-			if(probQueue.isEmpty()) return 0;
-			return probQueue.peek();
-		}
-
-		public int getProb() {
-			if(probQueue.isEmpty()) return 0;
-			return probQueue.remove();
-		}
+	/**
+	 * The same seed always gives the same board, so a board can be shared or replayed by its seed.
+	 */
+	public String[] generateBoard(int size, long seed) {
+		return generator.generateBoard(size, seed);
+	}
 
+	/**
+	 * Keeps drawing square boards until {@param counter} finds one within {@param target}. If
+	 * none are within it after {@link #MAX_ATTEMPTS}, then the closest is used instead.
+	 */
+	public String[] generateBoard(int size, WordCounter counter, BoardTarget target) {
+		int width = (int) Math.sqrt(size);
+		return target.generate(generator, counter, Topology.grid(width, width), random, MAX_ATTEMPTS);
 	}
 
 }
@@ -23,6 +23,7 @@ import android.content.SharedPreferences;
 import android.media.AudioManager;
 import android.media.SoundPool;
 import android.preference.PreferenceManager;
+import android.support.annotation.WorkerThread;
 import android.util.Log;
 import android.util.SparseIntArray;
 
@@ -30,18 +31,34 @@ import com.serwylo.lexica.GameSaver;
 import com.serwylo.lexica.R;
 import com.serwylo.lexica.Synchronizer;
 
+import net.healeys.trie.BoardPack;
+import net.healeys.trie.BoardTarget;
+import net.healeys.trie.Languages;
+import net.healeys.trie.OverlayTrie;
 import net.healeys.trie.Solution;
+import net.healeys.trie.SolutionCache;
 import net.healeys.trie.StringTrie;
 import net.healeys.trie.Trie;
+import net.healeys.trie.TrieListener;
+import net.healeys.trie.WordCounter;
 import net.healeys.trie.WordFilter;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
 
 public class Game implements Synchronizer.Counter {
 
@@ -51,6 +68,44 @@ public class Game implements Synchronizer.Counter {
 	public static final String SCORE_LETTERS = "L";
 
 	private static final String TAG = "Game";
+
+	/**
+	 * Words which the user has added to, or blocked from, the dictionary, recorded as a
+	 * {@link net.healeys.trie.WordJournal} in the app's private files directory.
+	 */
+	public static final String USER_WORDS_FILE = "user_words";
+
+	/**
+	 * Logs where the time goes when loading the dictionary and solving each board. Only used when
+	 * debug logging is enabled for this tag (adb shell setprop log.tag.Game DEBUG), so that the
+	 * statistics aren't collected otherwise.
+	 */
+	private static final TrieListener STATS_LOGGER = new TrieListener.Adapter() {
+		@Override
+		public void onLoaded(LoadStats stats) {
+			Log.d(TAG, "Loaded dictionary: " + stats);
+		}
+
+		@Override
+		public void onSolved(SolveStats stats) {
+			Log.d(TAG, "Solved board: " + stats);
+		}
+	};
+
+	/**
+	 * Recently solved boards, so that restoring a game or showing its score doesn't solve the
+	 * board again, even once it has been rotated. Cleared whenever the user's own words change.
+	 */
+	private static final SolutionCache SOLUTION_CACHE = new SolutionCache(8);
+	private static long solutionCacheUserWordsModified;
+
+	/**
+	 * The resident dictionary (see {@link GameLoader#residentTrie}) with the user's own words
+	 * applied, as of when they were last changed. Held as softly as the dictionary itself.
+	 */
+	private static SoftReference<Trie> userDictionary;
+	private static long userDictionaryModified;
+
 	private int timeRemaining;
 	private int maxTime;
 
@@ -95,13 +150,25 @@ public class Game implements Synchronizer.Counter {
 	private Date start;
 	private final Context context;
 
-	private boolean usDict;
-	private boolean ukDict;
+	private int dialect;
 	private int boardSize; // using an int so I can use much larger boards later
 	private int minWordLength;
 
 	private Map<String,Solution> solutions;
 
+	/**
+	 * The {@link #dictionaryVersion(Context)} which {@link #solutions} were found with. Worked out
+	 * when the game is created, so that saving it doesn't have to read the dictionary.
+	 */
+	private long solutionsVersion;
+
+	/**
+	 * The board a new game was started on, along with its solutions, so that it can be handed back
+	 * with {@link GameLoader#returnUnplayed(Game)} if the game is never shown. Null for restored
+	 * games.
+	 */
+	private SolvedBoard newBoard;
+
 	private AudioManager mgr;
 	private SoundPool mSoundPool;
 	private int[] soundIds;
@@ -115,18 +182,29 @@ public class Game implements Synchronizer.Counter {
 		loadPreferences(c);
 
 		try {
+			Board restored = null;
 			switch(saver.readBoardSize()) {
 				case 16:
-					setBoard(new FourByFourBoard(saver.readGameBoard()));
+					restored = new FourByFourBoard(saver.readGameBoard());
 					break;
 				case 25:
-					setBoard(new FiveByFiveBoard(saver.readGameBoard()));
+					restored = new FiveByFiveBoard(saver.readGameBoard());
 					break;
 				case 36:
-					setBoard(new SixBySixBoard(saver.readGameBoard()));
+					restored = new SixBySixBoard(saver.readGameBoard());
 					break;
 			}
 
+			solutionsVersion = dictionaryVersion(c);
+			if(restored != null) {
+				Map<String,Solution> saved = readSavedSolutions(saver, restored);
+				if(saved != null) {
+					setBoard(new SolvedBoard(restored, dialect, userWordsModified(c), saved));
+				} else {
+					setBoard(restored);
+				}
+			}
+
 			maxTimeRemaining = saver.readMaxTimeRemaining();
 			timeRemaining = saver.readTimeRemaining();
 			maxTime = timeRemaining;
@@ -156,25 +234,38 @@ public class Game implements Synchronizer.Counter {
 	}
 
 	public Game (Context c) {
+		this(c, (SolvedBoard) null);
+	}
+
+	/**
+	 * @param next A board which was solved ahead of time, to use if it still suits the user's
+	 *             preferences. Otherwise, the next board from the {@link PackedBoards} is used,
+	 *             or if there are none left, a new board is generated and solved.
+	 */
+	Game(Context c, SolvedBoard next) {
 		status = GameStatus.GAME_STARTING;
 		wordCount = 0;
 		wordList = new LinkedList<>();
 
 		context = c;
 		loadPreferences(c);
+		solutionsVersion = dictionaryVersion(c);
 
-		switch(boardSize) {
-			case 16:
-				setBoard(new CharProbGenerator(c.getResources().openRawResource(R.raw.letters)).generateFourByFourBoard());
-			break;
-			case 25:
-				setBoard(new CharProbGenerator(c.getResources().openRawResource(R.raw.letters)).generateFiveByFiveBoard());
-			break;
-			case 36:
-				setBoard(new CharProbGenerator(c.getResources().openRawResource(R.raw.letters)).generateSixBySixBoard());
-			break;
+		if(next == null || !next.isFor(boardSize, dialect, userWordsModified(c))) {
+			next = PackedBoards.next(c, boardSize, dialect, minWordLength);
 		}
 
+		if(next != null) {
+			setBoard(next);
+		} else {
+			long userWordsModified = userWordsModified(c);
+			setBoard(generateBoard(c, boardSize, dialect));
+			if(solutions != null) {
+				next = new SolvedBoard(board, dialect, userWordsModified, solutions);
+			}
+		}
+		newBoard = next;
+
 		timeRemaining = getMaxTimeRemaining();
 		maxTime = getMaxTimeRemaining();
 		score = 0;
@@ -200,53 +291,109 @@ public class Game implements Synchronizer.Counter {
 		}
 	}
 
+	/**
+	 * Generates and solves a board for the user's current preferences, ready to start a game on.
+	 */
+	static SolvedBoard solveNewBoard(Context c) throws IOException {
+		SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(c);
+		int dialect = readDialect(prefs);
+		int boardSize = readBoardSize(prefs);
+
+		SolvedBoard packed = PackedBoards.next(c, boardSize, dialect, minWordLength(boardSize));
+		if (packed != null) {
+			return packed;
+		}
+
+		long userWordsModified = userWordsModified(c);
+		Board board = generateBoard(c, boardSize, dialect);
+		return new SolvedBoard(board, dialect, userWordsModified, solve(c, board, dialect));
+	}
+
+	/**
+	 * Draws boards until one has about as many words as the {@link PackedBoards} do, so that
+	 * games are neither nearly empty nor too easy. Only the built in dictionary is counted, not
+	 * the user's own words.
+	 */
+	private static Board generateBoard(Context c, int boardSize, int dialect) {
+		CharProbGenerator generator = new CharProbGenerator(c.getResources().openRawResource(R.raw.letters));
+		try {
+			WordCounter counter = new WordCounter(GameLoader.dictionaryBytes(c), dialect, minWordLength(boardSize));
+			return boardFor(generator.generateBoard(boardSize, counter, boardTarget(c, boardSize, dialect)));
+		} catch(IOException e) {
+			Log.e(TAG, "Unable to count words, so the board is drawn without checking it", e);
+			return boardFor(generator.generateBoard(boardSize));
+		}
+	}
+
+	/**
+	 * The range of word counts of the {@link PackedBoards} for these settings. If there aren't
+	 * any, then roughly the ranges which BoardPackApp kept for both dialects when it was last run.
+	 */
+	private static BoardTarget boardTarget(Context c, int boardSize, int dialect) {
+		BoardTarget packed = PackedBoards.target(c, boardSize, dialect, minWordLength(boardSize));
+		if(packed != null) {
+			return packed;
+		}
+
+		switch(boardSize) {
+			case 25:
+				return new BoardTarget().words(90, 215);
+			case 36:
+				return new BoardTarget().words(55, 150);
+			default:
+				return new BoardTarget().words(75, 175);
+		}
+	}
+
+	static Board boardFor(String[] letters) {
+		switch(letters.length) {
+			case 25:
+				return new FiveByFiveBoard(letters);
+			case 36:
+				return new SixBySixBoard(letters);
+			default:
+				return new FourByFourBoard(letters);
+		}
+	}
+
 	public void setBoard(Board b) {
 		board = b;
 		boardSize = b.getSize();
+		minWordLength = minWordLength(boardSize);
+
+		initializeDictionary();
+	}
+
+	private void setBoard(SolvedBoard solved) {
+		board = solved.board;
+		boardSize = board.getSize();
+		minWordLength = minWordLength(boardSize);
 
+		solutions = solved.solutions;
+		cacheSolutions(board, dialect, solved.userWordsModified, solutions);
+		for (int i = 0; i < solved.maxWordCountsByLength.size(); i ++) {
+			maxWordCountsByLength.put(solved.maxWordCountsByLength.keyAt(i), solved.maxWordCountsByLength.valueAt(i));
+		}
+	}
+
+	private static int minWordLength(int boardSize) {
 		switch(boardSize) {
-			case 16:
-				minWordLength = 3;
-			break;
 			case 25:
-				minWordLength = 4;
-				break;
+				return 4;
 			case 36:
-				minWordLength = 5;
-				break;
+				return 5;
+			default:
+				return 3;
 		}
-
-		initializeDictionary();
 	}
 
 	private void loadPreferences(Context c) {
 		SharedPreferences prefs =
 			PreferenceManager.getDefaultSharedPreferences(c);
 
-		if(prefs.getString("dict","US").equals("UK")) {
-			// Log.d(TAG,"UK DICT");
-			usDict = false;
-			ukDict = true;
-		} else {
-			// Log.d(TAG,"US DICT");
-			ukDict = false;
-			usDict = true;
-		}
-
-		switch (prefs.getString("boardSize","16")) {
-			case "16":
-				boardSize = 16;
-				minWordLength = 3;
-				break;
-			case "25":
-				boardSize = 25;
-				minWordLength = 4;
-				break;
-			case "36":
-				boardSize = 36;
-				minWordLength = 5;
-				break;
-		}
+		dialect = readDialect(prefs);
+		boardSize = readBoardSize(prefs);
+		minWordLength = minWordLength(boardSize);
 
 		maxTimeRemaining = 100 * Integer.parseInt(
 			prefs.getString("maxTimeRemaining","180"));
@@ -258,24 +405,34 @@ public class Game implements Synchronizer.Counter {
 		showBreakdown = prefs.getBoolean(SHOW_BREAKDOWN, false);
 	}
 
-	public void initializeDictionary() {
-		initializeDictionary(usDict,ukDict);
+	private static int readDialect(SharedPreferences prefs) {
+		if(prefs.getString("dict","US").equals("UK")) {
+			return Languages.EN_GB.getMask();
+		} else {
+			return Languages.EN_US.getMask();
+		}
 	}
 
-	private void initializeDictionary(boolean usDict, boolean ukDict) {
-		try {
-			Trie dict = new StringTrie.Deserializer().deserialize(
-					context.getResources().openRawResource(R.raw.words),
-					board,
-					usDict,
-					ukDict);
+	private static int readBoardSize(SharedPreferences prefs) {
+		switch (prefs.getString("boardSize","16")) {
+			case "25":
+				return 25;
+			case "36":
+				return 36;
+			default:
+				return 16;
+		}
+	}
 
-			solutions = dict.solver(board,new WordFilter() {
-				public boolean isWord(String w) {
-					return w.length() >= minWordLength;
-				}
-			});
+	private static long userWordsModified(Context c) {
+		return c.getFileStreamPath(USER_WORDS_FILE).lastModified();
+	}
+
+	public void initializeDictionary() {
+		try {
+			solutions = solve(context, board, dialect);
 
+			maxWordCountsByLength.clear();
 			for (String w: solutions.keySet()) {
 				maxWordCountsByLength.put(w.length(), maxWordCountsByLength.get(w.length()) + 1);
 			}
@@ -284,6 +441,95 @@ public class Game implements Synchronizer.Counter {
 		}
 	}
 
+	private static Map<String,Solution> solve(Context c, Board board, int dialect) throws IOException {
+		final int minLength = minWordLength(board.getSize());
+		long userWordsModified = userWordsModified(c);
+		synchronized (SOLUTION_CACHE) {
+			if (solutionCacheUserWordsModified != userWordsModified) {
+				SOLUTION_CACHE.clear();
+				solutionCacheUserWordsModified = userWordsModified;
+			}
+		}
+
+		Map<String,Solution> cached = SOLUTION_CACHE.get(board, dialect, minLength);
+		if (cached != null) {
+			return cached;
+		}
+
+		Trie dict = dictionary(c, board, dialect, userWordsModified);
+		Map<String,Solution> solutions = dict.solver(board,new WordFilter() {
+			public boolean isWord(String w) {
+				return w.length() >= minLength;
+			}
+		}, dialect);
+
+		cacheSolutions(board, dialect, userWordsModified, solutions);
+		return solutions;
+	}
+
+	/**
+	 * @param userWordsModified When the user's own words were last changed, as of solving the
+	 *                          board. Solutions from before the latest change aren't kept.
+	 */
+	private static void cacheSolutions(Board board, int dialect, long userWordsModified, Map<String,Solution> solutions) {
+		synchronized (SOLUTION_CACHE) {
+			if (solutionCacheUserWordsModified == userWordsModified) {
+				SOLUTION_CACHE.put(board, dialect, minWordLength(board.getSize()), solutions);
+			}
+		}
+	}
+
+	/**
+	 * The dictionary to solve {@param board} with, with the user's own words applied. That is the
+	 * one kept by {@link GameLoader} if there is one, in which case the user's words are only read
+	 * again once they change, or otherwise a trie pruned to this board and dialect.
+	 */
+	private static Trie dictionary(Context c, Board board, int dialect, long userWordsModified) throws IOException {
+		TrieListener listener = Log.isLoggable(TAG, Log.DEBUG) ? STATS_LOGGER : null;
+		StringTrie resident = GameLoader.residentTrie(c, listener);
+		File userWords = c.getFileStreamPath(USER_WORDS_FILE);
+
+		if (resident == null) {
+			StringTrie pruned = new StringTrie.Deserializer(listener).deserialize(
+					new ByteArrayInputStream(GameLoader.dictionaryBytes(c)),
+					board,
+					dialect);
+			return userWords.exists() ? loadUserWords(pruned, userWords) : pruned;
+		}
+
+		if (!userWords.exists()) {
+			return resident;
+		}
+
+		synchronized (SOLUTION_CACHE) {
+			Trie cached = userDictionary == null ? null : userDictionary.get();
+			if (cached != null && userDictionaryModified == userWordsModified) {
+				return cached;
+			}
+		}
+
+		Trie dict = loadUserWords(resident, userWords);
+		synchronized (SOLUTION_CACHE) {
+			userDictionary = new SoftReference<>(dict);
+			userDictionaryModified = userWordsModified;
+		}
+		return dict;
+	}
+
+	private static Trie loadUserWords(StringTrie dict, File userWords) throws IOException {
+		OverlayTrie overlay = new OverlayTrie(dict);
+		FileInputStream stream = null;
+		try {
+			stream = new FileInputStream(userWords);
+			overlay.load(stream);
+		} finally {
+			if (stream != null) {
+				stream.close();
+			}
+		}
+		return overlay;
+	}
+
 	public void save(GameSaver saver) {
 		saver.save(
 				board,
@@ -293,10 +539,100 @@ public class Game implements Synchronizer.Counter {
 				scoreType,
 				wordCount,
 				start,
-				status
+				status,
+				encodeSolutions(),
+				solutionsVersion
 		);
 	}
 
+	/**
+	 * Every word on the board, in the same format as the {@link PackedBoards}, so that restoring
+	 * the game doesn't have to solve the board again.
+	 */
+	private byte[] encodeSolutions() {
+		if(solutions == null) {
+			return null;
+		}
+
+		try {
+			BoardPack.Writer writer = new BoardPack.Writer();
+			writer.add(dialect, minWordLength, lettersOf(board), solutions.values());
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			writer.write(bytes);
+			return bytes.toByteArray();
+		} catch(IOException | IllegalArgumentException e) {
+			Log.w(TAG, "Unable to save the solutions, so they will be solved again on restore", e);
+			return null;
+		}
+	}
+
+	/**
+	 * The solutions saved by {@link #encodeSolutions()}, or null if there aren't any for this
+	 * board and dialect, or if the dictionary may have changed since.
+	 */
+	private Map<String,Solution> readSavedSolutions(GameSaver saver, Board board) {
+		byte[] saved = saver.readSolutions();
+		if(saved == null || solutionsVersion == 0 || saver.readSolutionsVersion() != solutionsVersion) {
+			return null;
+		}
+
+		try {
+			BoardPack.Section section = BoardPack.read(ByteBuffer.wrap(saved)).getSection(board.getSize(), dialect, minWordLength(board.getSize()));
+			if(section == null || section.getBoardCount() != 1) {
+				return null;
+			}
+
+			BoardPack.Entry entry = section.get(0);
+			return Arrays.equals(entry.getLetters(), lettersOf(board)) ? entry.getSolutions() : null;
+		} catch(IOException | RuntimeException e) {
+			Log.w(TAG, "Unable to read the saved solutions, so the board will be solved again", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Changes whenever the words on a board might: a CRC32 of the dictionary in the top half, and
+	 * of the user's own words in the bottom half. 0 if either can't be read, which never matches.
+	 * Only worked out when a game is created, which {@link GameLoader} does on its worker.
+	 */
+	@WorkerThread
+	private static long dictionaryVersion(Context c) {
+		try {
+			return GameLoader.dictionaryChecksum(c) << 32 | userWordsChecksum(c);
+		} catch(IOException e) {
+			Log.w(TAG, "Unable to read the dictionary, so saved solutions won't be used", e);
+			return 0;
+		}
+	}
+
+	private static long userWordsChecksum(Context c) throws IOException {
+		File userWords = c.getFileStreamPath(USER_WORDS_FILE);
+		if(!userWords.exists()) {
+			return 0;
+		}
+
+		CRC32 crc = new CRC32();
+		FileInputStream stream = new FileInputStream(userWords);
+		try {
+			byte[] buffer = new byte[8192];
+			int read;
+			while((read = stream.read(buffer)) != -1) {
+				crc.update(buffer, 0, read);
+			}
+		} finally {
+			stream.close();
+		}
+		return crc.getValue();
+	}
+
+	private static String[] lettersOf(Board board) {
+		String[] letters = new String[board.getSize()];
+		for(int i = 0; i < letters.length; i ++) {
+			letters[i] = board.valueAt(i);
+		}
+		return letters;
+	}
+
 	public void start() {
 		if(status == GameStatus.GAME_STARTING) {
 			start = new Date();
@@ -447,11 +783,34 @@ public class Game implements Synchronizer.Counter {
 		return solutions;
 	}
 
+	SolvedBoard getNewBoard() {
+		return newBoard;
+	}
+
 	public void rotateBoard() {
 		board.rotate();
+		if(solutions != null) {
+			solutions = rotated(solutions, board.getWidth());
+		}
 		if(mRotateHandler != null) mRotateHandler.onRotate();
 	}
 
+	/**
+	 * Moves each path the same way as {@link Board#rotate()} moves the letters, so that they
+	 * still spell their words.
+	 */
+	private static Map<String,Solution> rotated(Map<String,Solution> solutions, int width) {
+		Map<String,Solution> rotated = new TreeMap<>();
+		for(Solution solution : solutions.values()) {
+			Integer[] positions = solution.getPositions().clone();
+			for(int i = 0; i < positions.length; i ++) {
+				positions[i] = width * (positions[i] % width) + (width - 1 - positions[i] / width);
+			}
+			rotated.put(solution.getWord(), new Solution.Default(solution.getWord(), positions));
+		}
+		return rotated;
+	}
+
 	public int getMaxTimeRemaining() {
 		return maxTimeRemaining;
 	}
@@ -0,0 +1,381 @@
+package com.serwylo.lexica.game;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.preference.PreferenceManager;
+import android.support.annotation.WorkerThread;
+import android.util.Log;
+
+import com.serwylo.lexica.GameSaver;
+import com.serwylo.lexica.R;
+
+import net.healeys.trie.Languages;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.TrieListener;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.ref.SoftReference;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+
+/**
+ * Creates games on a background thread, so that generating, loading the dictionary for and
+ * solving a board doesn't block the UI.
+ *
+ * The dictionary is read into memory once, and every board after that is loaded from the copy in
+ * memory. Devices with enough memory also keep a trie of the whole dictionary, so that boards
+ * don't need to load one at all (see {@link #residentTrie}). Reading the dictionary can be started
+ * early with {@link #prewarm(Context)}, such as while the splash screen is showing, so that it is
+ * usually ready by the time the first game needs it.
+ *
+ * Once a game has loaded, the board for the next new game is generated and solved in the
+ * background too (see {@link #prefetch(Context)}), so that starting it is instant.
+ */
+public class GameLoader {
+
+	private static final String TAG = "GameLoader";
+
+	public interface Listener {
+		/**
+		 * Called on the main thread once the game is ready to be shown.
+		 */
+		void onGameLoaded(Game game);
+
+		/**
+		 * Called on the main thread instead of {@link #onGameLoaded(Game)} if the game couldn't be
+		 * created. The error has already been logged.
+		 */
+		void onGameLoadFailed();
+	}
+
+	/**
+	 * Runs at the default priority, as the user is usually waiting for whatever it is doing. Only
+	 * prefetching the next board drops to a background priority (see {@link #prefetch(Context)}).
+	 */
+	private static final ExecutorService WORKER = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, TAG);
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	/**
+	 * The thread prefetching the next board at a background priority, or 0 if there isn't one.
+	 */
+	private static volatile int prefetchingThread;
+
+	private static FutureTask<byte[]> dictionary;
+
+	/**
+	 * The smallest heap (see {@link ActivityManager#getMemoryClass()}, in MB) which the whole
+	 * dictionary is kept loaded on. It takes around 16MB, too much for the smallest heaps.
+	 */
+	private static final int RESIDENT_TRIE_MEMORY_CLASS = 64;
+
+	private static final Object TRIE_LOCK = new Object();
+	private static SoftReference<StringTrie> trie;
+
+	/**
+	 * Worked out by the same task which reads the dictionary, so only ever on the worker.
+	 */
+	private static long checksum;
+
+	private static Context appContext;
+	private static FutureTask<SolvedBoard> nextBoard;
+
+	/**
+	 * The board of a new game which was loaded but never shown, to start the next new game on
+	 * before any prefetched board (see {@link #returnUnplayed(Game)}).
+	 */
+	private static SolvedBoard unplayedBoard;
+
+	/**
+	 * Throws away the next board when it no longer suits the preferences. Kept here because
+	 * {@link SharedPreferences} only holds on to its listeners weakly.
+	 */
+	private static final SharedPreferences.OnSharedPreferenceChangeListener PREFERENCES_LISTENER = new SharedPreferences.OnSharedPreferenceChangeListener() {
+		@Override
+		public void onSharedPreferenceChanged(SharedPreferences prefs, String key) {
+			if ("dict".equals(key) || "boardSize".equals(key)) {
+				discardNextBoard();
+				prefetch(appContext);
+			}
+		}
+	};
+
+	/**
+	 * Starts reading (and checksumming) the dictionary in the background, unless it has been read
+	 * already.
+	 */
+	public static synchronized void prewarm(Context context) {
+		if (dictionary != null) {
+			return;
+		}
+
+		final Context appContext = context.getApplicationContext();
+		dictionary = new FutureTask<>(new Callable<byte[]>() {
+			@Override
+			public byte[] call() throws IOException {
+				byte[] bytes = readFully(appContext.getResources().openRawResource(R.raw.words));
+				CRC32 crc = new CRC32();
+				crc.update(bytes);
+				synchronized (GameLoader.class) {
+					checksum = crc.getValue();
+				}
+				return bytes;
+			}
+		});
+		WORKER.execute(dictionary);
+	}
+
+	/**
+	 * The whole dictionary, in every dialect, for boards to be solved against in their own dialect
+	 * rather than each loading a trie pruned to that board. It takes around 16MB (against a few
+	 * hundred KB for a pruned trie), so is only kept on devices with enough memory, and then only
+	 * softly, so that it is let go of and loaded again later if memory runs low.
+	 *
+	 * @param listener Told about loading the trie and every board solved with it. Only used by
+	 *                 the call which loads it.
+	 * @return Null if this device doesn't have the memory to keep it, in which case each board
+	 * should load its own pruned trie from {@link #dictionaryBytes(Context)}.
+	 */
+	@WorkerThread
+	static StringTrie residentTrie(Context context, TrieListener listener) throws IOException {
+		ActivityManager activities = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+		if (activities.getMemoryClass() < RESIDENT_TRIE_MEMORY_CLASS) {
+			return null;
+		}
+
+		byte[] bytes = dictionaryBytes(context);
+
+		// Not locked on GameLoader.class, so that prefetch() from the main thread doesn't have to
+		// wait for the trie to load.
+		synchronized (TRIE_LOCK) {
+			StringTrie resident = trie == null ? null : trie.get();
+			if (resident == null) {
+				resident = new StringTrie.Deserializer(listener).deserialize(new ByteArrayInputStream(bytes), null, Languages.ALL);
+				trie = new SoftReference<>(resident);
+			}
+			return resident;
+		}
+	}
+
+	/**
+	 * A CRC32 of the dictionary file, which changes whenever the words in it do. It is worked out
+	 * once, along with reading the file, so this waits for that in the same way as
+	 * {@link #dictionaryBytes(Context)}, and mustn't be called from the main thread.
+	 */
+	@WorkerThread
+	static long dictionaryChecksum(Context context) throws IOException {
+		dictionaryBytes(context);
+		synchronized (GameLoader.class) {
+			return checksum;
+		}
+	}
+
+	/**
+	 * The dictionary file, from memory. If it hasn't been read yet, this waits for it to be, or
+	 * reads it straight away if nothing else has started to. It is shared, so mustn't be modified.
+	 */
+	static byte[] dictionaryBytes(Context context) throws IOException {
+		FutureTask<byte[]> task;
+		synchronized (GameLoader.class) {
+			prewarm(context);
+			task = dictionary;
+		}
+
+		// Does nothing if the worker has already started (or finished) reading it.
+		task.run();
+
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while reading the dictionary");
+		} catch (ExecutionException e) {
+			synchronized (GameLoader.class) {
+				// Try again next time, rather than failing every game from now on.
+				if (dictionary == task) {
+					dictionary = null;
+				}
+			}
+			throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * Starts generating and solving the board for the next new game in the background, unless
+	 * that has been done already.
+	 */
+	public static synchronized void prefetch(Context context) {
+		if (appContext == null) {
+			appContext = context.getApplicationContext();
+			PreferenceManager.getDefaultSharedPreferences(appContext).registerOnSharedPreferenceChangeListener(PREFERENCES_LISTENER);
+		}
+
+		if (nextBoard != null) {
+			return;
+		}
+
+		final FutureTask<SolvedBoard> task = new FutureTask<>(new Callable<SolvedBoard>() {
+			@Override
+			public SolvedBoard call() throws IOException {
+				return Game.solveNewBoard(appContext);
+			}
+		});
+		nextBoard = task;
+
+		// Lowered here rather than in the task, as takeNextBoard() may run the task itself while
+		// a game is waiting for it.
+		WORKER.execute(new Runnable() {
+			@Override
+			public void run() {
+				prefetchingThread = Process.myTid();
+				Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+				try {
+					task.run();
+				} finally {
+					prefetchingThread = 0;
+					Process.setThreadPriority(Process.THREAD_PRIORITY_DEFAULT);
+				}
+			}
+		});
+	}
+
+	private static synchronized void discardNextBoard() {
+		unplayedBoard = null;
+		if (nextBoard != null) {
+			nextBoard.cancel(false);
+			nextBoard = null;
+		}
+	}
+
+	/**
+	 * Keeps the board of a new game which was loaded but won't be played, such as when its
+	 * activity went away first, for the next new game to start on instead. It has already been
+	 * drawn from the {@link PackedBoards} (or generated and solved), so would otherwise be lost.
+	 */
+	public static synchronized void returnUnplayed(Game game) {
+		if (game.getNewBoard() != null) {
+			unplayedBoard = game.getNewBoard();
+		}
+	}
+
+	/**
+	 * The board for the next new game, if one has been returned unplayed or prefetched. If it is
+	 * still being solved, then this waits for it.
+	 */
+	private static SolvedBoard takeNextBoard() {
+		FutureTask<SolvedBoard> task;
+		synchronized (GameLoader.class) {
+			if (unplayedBoard != null) {
+				SolvedBoard unplayed = unplayedBoard;
+				unplayedBoard = null;
+				return unplayed;
+			}
+
+			task = nextBoard;
+			nextBoard = null;
+		}
+
+		if (task == null || task.isCancelled()) {
+			return null;
+		}
+
+		task.run();
+
+		try {
+			return task.get();
+		} catch (Exception e) {
+			Log.e(TAG, "Error solving the next board", e);
+			return null;
+		}
+	}
+
+	public static void newGame(final Context context, Listener listener) {
+		load(context, new Callable<Game>() {
+			@Override
+			public Game call() {
+				return new Game(context, takeNextBoard());
+			}
+		}, listener);
+	}
+
+	public static void restoreGame(final Context context, final GameSaver saver, Listener listener) {
+		load(context, new Callable<Game>() {
+			@Override
+			public Game call() {
+				return new Game(context, saver);
+			}
+		}, listener);
+	}
+
+	private static void load(final Context context, final Callable<Game> create, final Listener listener) {
+		prewarm(context);
+
+		// The game is queued behind the next board, so finish that at the game's priority.
+		int prefetching = prefetchingThread;
+		if (prefetching != 0) {
+			Process.setThreadPriority(prefetching, Process.THREAD_PRIORITY_DEFAULT);
+		}
+
+		final Handler mainThread = new Handler(Looper.getMainLooper());
+		WORKER.execute(new Runnable() {
+			@Override
+			public void run() {
+				final Game game;
+				try {
+					game = create.call();
+				} catch (Exception e) {
+					Log.e(TAG, "Error creating game", e);
+					mainThread.post(new Runnable() {
+						@Override
+						public void run() {
+							listener.onGameLoadFailed();
+						}
+					});
+					return;
+				}
+
+				prefetch(context);
+
+				mainThread.post(new Runnable() {
+					@Override
+					public void run() {
+						listener.onGameLoaded(game);
+					}
+				});
+			}
+		});
+	}
+
+	private static byte[] readFully(InputStream stream) throws IOException {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(stream.available() > 0 ? stream.available() : 8192);
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = stream.read(buffer)) != -1) {
+				bytes.write(buffer, 0, read);
+			}
+			return bytes.toByteArray();
+		} finally {
+			stream.close();
+		}
+	}
+
+}
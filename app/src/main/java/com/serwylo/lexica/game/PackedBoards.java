@@ -0,0 +1,107 @@
+package com.serwylo.lexica.game;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.res.AssetFileDescriptor;
+import android.util.Log;
+
+import net.healeys.trie.BoardPack;
+import net.healeys.trie.BoardTarget;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+
+/**
+ * Boards which were generated and solved when the app was built (by BoardPackApp in trie-builder),
+ * so that games can start on them without solving anything.
+ *
+ * Each board is only handed out once. Every install starts at a random board in each section and
+ * works through from there, and once a section runs out, games go back to generating and solving
+ * their own boards.
+ */
+class PackedBoards {
+
+	private static final String TAG = "PackedBoards";
+
+	private static final String ASSET = "boards.pack";
+	private static final String PREFS = "packedBoards";
+
+	private static BoardPack pack;
+	private static boolean opened;
+
+	/**
+	 * @return Null if there are no boards left for these settings, or if the user has their own
+	 * words (which the packed solutions don't know about).
+	 */
+	static synchronized SolvedBoard next(Context c, int boardSize, int dialect, int minWordLength) {
+		if (c.getFileStreamPath(Game.USER_WORDS_FILE).exists()) {
+			return null;
+		}
+
+		BoardPack pack = open(c);
+		BoardPack.Section section = pack == null ? null : pack.getSection(boardSize, dialect, minWordLength);
+		if (section == null) {
+			return null;
+		}
+
+		int count = section.getBoardCount();
+		String key = boardSize + "-" + dialect + "-" + minWordLength + "-" + count;
+		SharedPreferences prefs = c.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+		int start = prefs.getInt(key + "-start", -1);
+		int drawn = prefs.getInt(key + "-drawn", 0);
+		if (drawn >= count) {
+			return null;
+		}
+
+		if (start < 0) {
+			start = new Random().nextInt(count);
+		}
+
+		prefs.edit()
+			.putInt(key + "-start", start)
+			.putInt(key + "-drawn", drawn + 1)
+			.commit();
+
+		BoardPack.Entry entry = section.get((start + drawn) % count);
+		return new SolvedBoard(Game.boardFor(entry.getLetters()), dialect, 0, entry.getSolutions());
+	}
+
+	/**
+	 * A target with the same range of word counts as the packed boards for these settings, so that
+	 * boards drawn on the device are in line with them.
+	 *
+	 * @return Null if there are no packed boards for these settings.
+	 */
+	static synchronized BoardTarget target(Context c, int boardSize, int dialect, int minWordLength) {
+		BoardPack pack = open(c);
+		BoardPack.Section section = pack == null ? null : pack.getSection(boardSize, dialect, minWordLength);
+		if (section == null || section.getBoardCount() == 0) {
+			return null;
+		}
+
+		return new BoardTarget().wordsLike(section);
+	}
+
+	private static BoardPack open(Context c) {
+		if (opened) {
+			return pack;
+		}
+		opened = true;
+
+		try {
+			AssetFileDescriptor descriptor = c.getAssets().openFd(ASSET);
+			FileInputStream stream = descriptor.createInputStream();
+			try {
+				pack = BoardPack.read(stream.getChannel().map(FileChannel.MapMode.READ_ONLY, descriptor.getStartOffset(), descriptor.getLength()));
+			} finally {
+				stream.close();
+			}
+		} catch (IOException e) {
+			Log.e(TAG, "Unable to open the board pack, so every board will be solved on the device", e);
+		}
+		return pack;
+	}
+
+}
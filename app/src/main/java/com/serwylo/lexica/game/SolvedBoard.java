@@ -0,0 +1,40 @@
+package com.serwylo.lexica.game;
+
+import android.util.SparseIntArray;
+
+import net.healeys.trie.Solution;
+
+import java.util.Map;
+
+/**
+ * A board along with every word which can be found on it, so that a game can be started on it
+ * straight away rather than having to generate and solve it first.
+ */
+class SolvedBoard {
+
+	final Board board;
+	final int dialect;
+	final Map<String, Solution> solutions;
+	final SparseIntArray maxWordCountsByLength = new SparseIntArray();
+
+	/**
+	 * When the user's own words were last changed, as they were taken into account when solving.
+	 */
+	final long userWordsModified;
+
+	SolvedBoard(Board board, int dialect, long userWordsModified, Map<String, Solution> solutions) {
+		this.board = board;
+		this.dialect = dialect;
+		this.userWordsModified = userWordsModified;
+		this.solutions = solutions;
+
+		for (String w : solutions.keySet()) {
+			maxWordCountsByLength.put(w.length(), maxWordCountsByLength.get(w.length()) + 1);
+		}
+	}
+
+	boolean isFor(int boardSize, int dialect, long userWordsModified) {
+		return board.getSize() == boardSize && this.dialect == dialect && this.userWordsModified == userWordsModified;
+	}
+
+}
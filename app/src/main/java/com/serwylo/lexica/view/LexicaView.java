@@ -668,21 +668,11 @@ public class LexicaView extends View implements Synchronizer.Event, Game.RotateH
 			Set<String> getNextStates(LinkedList<State> possibleStates) {
 				Set<String> canTransitionToNext = new HashSet<>();
 
-				for (int i = 0; i < game.getBoard().getSize(); i++) {
+				for (int i : game.getBoard().getTopology().getNeighbours(pos)) {
 					if (selected.contains(i)) {
 						continue;
 					}
 
-					int fromX = pos % game.getBoard().getWidth();
-					int fromY = pos / game.getBoard().getWidth();
-
-					int toX = i % game.getBoard().getWidth();
-					int toY = i / game.getBoard().getWidth();
-
-					if (!game.getBoard().canTransition(fromX, fromY, toX, toY)) {
-						continue;
-					}
-
 					Set<Integer> newStatePositions = new HashSet<>(selected);
 					newStatePositions.add(i);
 
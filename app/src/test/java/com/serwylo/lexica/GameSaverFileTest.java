@@ -0,0 +1,120 @@
+package com.serwylo.lexica;
+
+import com.serwylo.lexica.game.FourByFourBoard;
+import com.serwylo.lexica.game.Game;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GameSaverFileTest {
+
+	private static final String[] LETTERS = {
+			"a", "b", "c", "d",
+			"e", "f", "g", "h",
+			"i", "j", "k", "l",
+			"m", "n", "o", "qu",
+	};
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void restoresWhatWasSaved() throws Exception {
+		File file = new File(folder.getRoot(), "game.bin");
+		byte[] solutions = { 1, 2, 3 };
+
+		new GameSaverFile(file).save(new FourByFourBoard(LETTERS), 1234, 18000, "bag,+fab,qu", "W", 3, new Date(5678), Game.GameStatus.GAME_PAUSED, solutions, 42);
+
+		// Read back from memory before it has been written, then from the file afterwards.
+		assertSaved(new GameSaverFile(file), solutions);
+		GameSaverFile.awaitWrites();
+		assertTrue(file.exists());
+		assertFalse(new File(folder.getRoot(), "game.bin.tmp").exists());
+		assertSaved(new GameSaverFile(file), solutions);
+	}
+
+	@Test
+	public void savesWithoutWordsOrSolutions() throws Exception {
+		File file = new File(folder.getRoot(), "game.bin");
+		new GameSaverFile(file).save(new FourByFourBoard(LETTERS), 1234, 18000, "", "L", 0, null, Game.GameStatus.GAME_PAUSED, null, 0);
+		GameSaverFile.awaitWrites();
+
+		GameSaverFile saver = new GameSaverFile(file);
+		assertTrue(saver.hasSavedGame());
+		assertEquals(0, saver.readWords().length);
+		assertNull(saver.readStart());
+		assertNull(saver.readSolutions());
+	}
+
+	@Test
+	public void clearsTheSavedGame() throws Exception {
+		File file = new File(folder.getRoot(), "game.bin");
+		new GameSaverFile(file).save(new FourByFourBoard(LETTERS), 1234, 18000, "bag", "W", 1, new Date(), Game.GameStatus.GAME_PAUSED, null, 0);
+		new GameSaverFile(file).clearSavedGame();
+
+		assertFalse(new GameSaverFile(file).hasSavedGame());
+		GameSaverFile.awaitWrites();
+		assertFalse(file.exists());
+		assertFalse(new GameSaverFile(file).hasSavedGame());
+	}
+
+	@Test
+	public void savesBoardAndWordsAsIndexesIntoTheLetters() throws IOException {
+		String[] board = {
+				"qu", "a", "a", "qu",
+				"a", "a", "a", "a",
+				"a", "a", "a", "a",
+				"qu", "a", "a", "qu",
+		};
+		String[] words = { "quaa", "+aqua", "zebra", "+" };
+
+		byte[] bytes = GameSaverFile.encode(board, 1234, 18000, words, "W", 2, null, Game.GameStatus.GAME_PAUSED, null, 0);
+		GameSaverFile.Snapshot snapshot = GameSaverFile.decode(bytes);
+		assertArrayEquals(board, snapshot.board);
+		assertArrayEquals(words, snapshot.words);
+
+		// The two different letters (7 bytes), a byte for each position (16) and the words (20).
+		// Writing out every letter on the board as a string would take 52 bytes on its own.
+		byte[] empty = GameSaverFile.encode(new String[] {}, 1234, 18000, new String[] {}, "W", 2, null, Game.GameStatus.GAME_PAUSED, null, 0);
+		assertEquals(7 + 16 + 20, bytes.length - empty.length);
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsCorruptSaves() throws IOException {
+		byte[] bytes = GameSaverFile.encode(LETTERS, 1234, 18000, new String[] { "bag" }, "W", 1, null, Game.GameStatus.GAME_PAUSED, null, 0);
+		bytes[bytes.length / 2] ^= 1;
+		GameSaverFile.decode(bytes);
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsOtherFiles() throws IOException {
+		GameSaverFile.decode("activeGame=true".getBytes("UTF-8"));
+	}
+
+	private static void assertSaved(GameSaverFile saver, byte[] solutions) {
+		assertTrue(saver.hasSavedGame());
+		assertEquals(16, saver.readBoardSize());
+		assertArrayEquals(LETTERS, saver.readGameBoard());
+		assertEquals(1234, saver.readTimeRemaining());
+		assertEquals(18000, saver.readMaxTimeRemaining());
+		assertArrayEquals(new String[] { "bag", "+fab", "qu" }, saver.readWords());
+		assertEquals("W", saver.readScoreType());
+		assertEquals(3, saver.readWordCount());
+		assertEquals(new Date(5678), saver.readStart());
+		assertEquals(Game.GameStatus.GAME_PAUSED, saver.readStatus());
+		assertArrayEquals(solutions, saver.readSolutions());
+		assertEquals(42, saver.readSolutionsVersion());
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.serwylo.lexica.trie.benchmarks;
+
+import net.healeys.trie.GridTransitionMap;
+import net.healeys.trie.Languages;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.WordFilter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solving one board at a time, from the sizes the app offers up to much larger ones, to check
+ * that solve time grows in line with the number of words on the board rather than any faster.
+ * Shapes are given as "width x height", and scores are per board.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BoardSizeBenchmark {
+
+	private static final int BOARDS = 16;
+
+	@Param({ "4x4", "6x6", "8x8", "10x10", "16x16", "20x5" })
+	public String shape;
+
+	private StringTrie trie;
+	private List<GridTransitionMap> boards;
+	private final WordFilter filter = new WordFilter.MinLength(3);
+
+	@Setup
+	public void setup() throws IOException {
+		byte[] serialized = Dictionaries.serialize(Dictionaries.buildTrie());
+		trie = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialized), null, Languages.ALL);
+
+		String[] dimensions = shape.split("x");
+		boards = Dictionaries.boards(Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]), BOARDS);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BOARDS)
+	public int solve() {
+		int words = 0;
+		for (GridTransitionMap board : boards) {
+			words += trie.solver(board, filter, Languages.EN_US.getMask()).size();
+		}
+		return words;
+	}
+
+}
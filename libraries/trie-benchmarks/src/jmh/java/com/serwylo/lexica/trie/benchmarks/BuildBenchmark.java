@@ -0,0 +1,47 @@
+package com.serwylo.lexica.trie.benchmarks;
+
+import com.serwylo.lexica.trie.util.TrieBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building words.bin from the word lists, as done by the trie-builder.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BuildBenchmark {
+
+	@Param({ "1", "4" })
+	public int threads;
+
+	private File usDictFile;
+	private File ukDictFile;
+	private File outputFile;
+
+	@Setup
+	public void setup() throws IOException {
+		usDictFile = Dictionaries.copyToTempFile("us.txt");
+		ukDictFile = Dictionaries.copyToTempFile("uk.txt");
+		outputFile = File.createTempFile("lexica-benchmark-", ".bin");
+		outputFile.deleteOnExit();
+	}
+
+	@Benchmark
+	public long build() throws IOException {
+		new TrieBuilder(usDictFile, ukDictFile, new File[] { outputFile }).run(threads);
+		return outputFile.length();
+	}
+
+}
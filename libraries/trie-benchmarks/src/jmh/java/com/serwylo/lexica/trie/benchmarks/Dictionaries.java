@@ -0,0 +1,114 @@
+package com.serwylo.lexica.trie.benchmarks;
+
+import net.healeys.trie.GridTransitionMap;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.Trie;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Inputs shared by the benchmarks. Everything is derived from the full US and UK dictionaries,
+ * and boards are generated from a fixed seed, so that each run measures exactly the same work.
+ */
+final class Dictionaries {
+
+	static final long SEED = 42;
+
+	/**
+	 * Roughly follows the frequency of letters in English, so that boards contain a realistic
+	 * number of words.
+	 */
+	private static final String LETTERS = "aaaaabbccdddeeeeeeeffggghhhiiiiijkllllmmnnnnooooppqurrrrsssssttttttuuuvwwxyyz";
+
+	private Dictionaries() {
+
+	}
+
+	static List<String> readWords(String resource) throws IOException {
+		List<String> words = new ArrayList<>(80000);
+		InputStream stream = Dictionaries.class.getClassLoader().getResourceAsStream(resource);
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(stream));
+			String line;
+			while ((line = reader.readLine()) != null) {
+				words.add(line.toLowerCase(Locale.ENGLISH));
+			}
+		} finally {
+			stream.close();
+		}
+		return words;
+	}
+
+	static StringTrie buildTrie() throws IOException {
+		StringTrie trie = new StringTrie();
+		for (String word : readWords("us.txt")) {
+			trie.addWord(word, true, false);
+		}
+
+		for (String word : readWords("uk.txt")) {
+			trie.addWord(word, false, true);
+		}
+		return trie;
+	}
+
+	static byte[] serialize(Trie trie) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		trie.write(output);
+		return output.toByteArray();
+	}
+
+	/**
+	 * Copies a resource to a temporary file, for code which only reads from files.
+	 */
+	static File copyToTempFile(String resource) throws IOException {
+		File file = File.createTempFile("lexica-benchmark-", "-" + resource);
+		file.deleteOnExit();
+
+		InputStream input = Dictionaries.class.getClassLoader().getResourceAsStream(resource);
+		OutputStream output = null;
+		try {
+			output = new FileOutputStream(file);
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = input.read(buffer)) != -1) {
+				output.write(buffer, 0, read);
+			}
+		} finally {
+			input.close();
+			if (output != null) {
+				output.close();
+			}
+		}
+		return file;
+	}
+
+	static List<GridTransitionMap> boards(int width, int count) {
+		return boards(width, width, count);
+	}
+
+	static List<GridTransitionMap> boards(int width, int height, int count) {
+		Random random = new Random(SEED);
+		List<GridTransitionMap> boards = new ArrayList<>(count);
+		for (int i = 0; i < count; i ++) {
+			String[] letters = new String[width * height];
+			for (int j = 0; j < letters.length; j ++) {
+				char letter = LETTERS.charAt(random.nextInt(LETTERS.length()));
+				letters[j] = letter == 'q' ? "qu" : Character.toString(letter);
+			}
+			boards.add(new GridTransitionMap(letters, width));
+		}
+		return boards;
+	}
+
+}
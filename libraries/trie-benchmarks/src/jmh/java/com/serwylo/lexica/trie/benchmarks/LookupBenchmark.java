@@ -0,0 +1,66 @@
+package com.serwylo.lexica.trie.benchmarks;
+
+import net.healeys.trie.Languages;
+import net.healeys.trie.StringTrie;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StringTrie#isWord(String, int)} for a fixed sample of words, half of which are real
+ * words and half of which are real words with one letter changed (and so are mostly not words).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LookupBenchmark {
+
+	private static final int SAMPLE_SIZE = 1024;
+
+	private StringTrie trie;
+	private final String[] words = new String[SAMPLE_SIZE];
+
+	@Setup
+	public void setup() throws IOException {
+		trie = Dictionaries.buildTrie();
+
+		List<String> dictionary = Dictionaries.readWords("us.txt");
+		Random random = new Random(Dictionaries.SEED);
+		Collections.shuffle(dictionary, random);
+
+		for (int i = 0; i < SAMPLE_SIZE; i ++) {
+			String word = dictionary.get(i);
+			if (i % 2 == 1) {
+				char[] letters = word.toCharArray();
+				letters[random.nextInt(letters.length)] = (char) ('a' + random.nextInt(26));
+				word = new String(letters);
+			}
+			words[i] = word;
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLE_SIZE)
+	public int isWord() {
+		int found = 0;
+		for (String word : words) {
+			if (trie.isWord(word, Languages.EN_US.getMask())) {
+				found ++;
+			}
+		}
+		return found;
+	}
+
+}
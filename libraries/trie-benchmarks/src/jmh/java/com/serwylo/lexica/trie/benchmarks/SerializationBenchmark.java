@@ -0,0 +1,71 @@
+package com.serwylo.lexica.trie.benchmarks;
+
+import net.healeys.trie.GridTransitionMap;
+import net.healeys.trie.Languages;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.Trie;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing a trie with {@link Trie#write(java.io.OutputStream)}, and reading it back with
+ * {@link StringTrie.Deserializer}, both in full and filtered to the letters on a board (which is
+ * how the app loads it at the start of each game).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SerializationBenchmark {
+
+	private StringTrie trie;
+	private byte[] serialized;
+
+	@State(Scope.Benchmark)
+	public static class Board {
+		@Param({ "4", "5", "6" })
+		public int width;
+
+		private GridTransitionMap board;
+
+		@Setup
+		public void setup() {
+			board = Dictionaries.boards(width, 1).get(0);
+		}
+	}
+
+	@Setup
+	public void setup() throws IOException {
+		trie = Dictionaries.buildTrie();
+		serialized = Dictionaries.serialize(trie);
+	}
+
+	@Benchmark
+	public int write() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream(serialized.length);
+		trie.write(output);
+		return output.size();
+	}
+
+	@Benchmark
+	public Trie deserializeAll() throws IOException {
+		return new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialized), null, Languages.ALL);
+	}
+
+	@Benchmark
+	public Trie deserializeForBoard(Board board) throws IOException {
+		return new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialized), board.board, Languages.EN_US.getMask());
+	}
+
+}
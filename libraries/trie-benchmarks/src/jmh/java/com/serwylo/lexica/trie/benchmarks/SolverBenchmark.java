@@ -0,0 +1,72 @@
+package com.serwylo.lexica.trie.benchmarks;
+
+import net.healeys.trie.GridTransitionMap;
+import net.healeys.trie.Languages;
+import net.healeys.trie.MultiBoardSolver;
+import net.healeys.trie.Solution;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.WordFilter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding every word on a set of boards, either one board at a time with
+ * {@link StringTrie#solver(net.healeys.trie.TransitionMap, WordFilter, int)} or all together with
+ * a {@link MultiBoardSolver}. Scores are per board in both cases.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SolverBenchmark {
+
+	private static final int BOARDS = MultiBoardSolver.MAX_BOARDS;
+
+	@Param({ "4", "5", "6" })
+	public int width;
+
+	private StringTrie trie;
+	private List<GridTransitionMap> boards;
+	private final WordFilter filter = new WordFilter.MinLength(3);
+
+	@Setup
+	public void setup() throws IOException {
+		byte[] serialized = Dictionaries.serialize(Dictionaries.buildTrie());
+		trie = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialized), null, Languages.ALL);
+		boards = Dictionaries.boards(width, BOARDS);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BOARDS)
+	public int solveEach() {
+		int words = 0;
+		for (GridTransitionMap board : boards) {
+			words += trie.solver(board, filter, Languages.EN_US.getMask()).size();
+		}
+		return words;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BOARDS)
+	public int solveTogether() {
+		int words = 0;
+		for (Map<String, Solution> solutions : new MultiBoardSolver(trie).solve(boards, filter, Languages.EN_US.getMask())) {
+			words += solutions.size();
+		}
+		return words;
+	}
+
+}
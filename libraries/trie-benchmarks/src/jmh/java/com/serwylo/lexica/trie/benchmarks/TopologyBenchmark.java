@@ -0,0 +1,125 @@
+package com.serwylo.lexica.trie.benchmarks;
+
+import net.healeys.trie.GridTransitionMap;
+import net.healeys.trie.Languages;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.Topology;
+import net.healeys.trie.TransitionMap;
+import net.healeys.trie.WordFilter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building and solving 6x6 boards of each {@link Topology}. "uncompiled" is a square grid which
+ * only answers {@link TransitionMap#canTransition(int, int, int, int)}, so its topology has to be
+ * worked out on every solve. Scores are per board.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TopologyBenchmark {
+
+	private static final int BOARDS = 16;
+	private static final int WIDTH = 6;
+
+	@Param({ "grid", "hex", "torus", "uncompiled" })
+	public String topology;
+
+	private StringTrie trie;
+	private List<String[]> letters;
+	private final WordFilter filter = new WordFilter.MinLength(3);
+
+	@Setup
+	public void setup() throws IOException {
+		byte[] serialized = Dictionaries.serialize(Dictionaries.buildTrie());
+		trie = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialized), null, Languages.ALL);
+
+		letters = new ArrayList<>();
+		for (GridTransitionMap board : Dictionaries.boards(WIDTH, BOARDS)) {
+			String[] values = new String[board.getSize()];
+			for (int i = 0; i < values.length; i ++) {
+				values[i] = board.valueAt(i);
+			}
+			letters.add(values);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BOARDS)
+	public int solve() {
+		int words = 0;
+		for (String[] values : letters) {
+			words += trie.solver(board(values), filter, Languages.EN_US.getMask()).size();
+		}
+		return words;
+	}
+
+	private TransitionMap board(String[] values) {
+		switch (topology) {
+			case "hex":
+				return new GridTransitionMap(values, Topology.hex(WIDTH, WIDTH));
+			case "torus":
+				return new GridTransitionMap(values, Topology.torus(WIDTH, WIDTH));
+			case "uncompiled":
+				return new UncompiledGrid(values);
+			default:
+				return new GridTransitionMap(values);
+		}
+	}
+
+	private static class UncompiledGrid implements TransitionMap {
+
+		private final String[] values;
+
+		UncompiledGrid(String[] values) {
+			this.values = values;
+		}
+
+		@Override
+		public boolean canTransition(int fromX, int fromY, int toX, int toY) {
+			int xDistance = Math.abs(fromX - toX);
+			int yDistance = Math.abs(fromY - toY);
+			return xDistance <= 1 && yDistance <= 1 && xDistance + yDistance > 0;
+		}
+
+		@Override
+		public String valueAt(int position) {
+			return values[position];
+		}
+
+		@Override
+		public int getSize() {
+			return values.length;
+		}
+
+		@Override
+		public int getWidth() {
+			return WIDTH;
+		}
+
+		@Override
+		public int getHeight() {
+			return WIDTH;
+		}
+
+		@Override
+		public boolean canRevisit() {
+			return false;
+		}
+	}
+
+}
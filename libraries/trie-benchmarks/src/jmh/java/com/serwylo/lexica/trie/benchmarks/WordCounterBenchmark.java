@@ -0,0 +1,86 @@
+package com.serwylo.lexica.trie.benchmarks;
+
+import net.healeys.trie.GridTransitionMap;
+import net.healeys.trie.Languages;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.Topology;
+import net.healeys.trie.WordCounter;
+import net.healeys.trie.WordFilter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counting the words on a board with a {@link WordCounter}, compared with deserializing the trie
+ * for the board and solving it, which is what the app does for each new board. Scores are per
+ * board.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WordCounterBenchmark {
+
+	private static final int BOARDS = 16;
+
+	@Param({ "4", "5", "6" })
+	public int width;
+
+	private byte[] serialized;
+	private List<String[]> letters;
+	private Topology topology;
+	private WordCounter counter;
+	private WordFilter filter;
+
+	@Setup
+	public void setup() throws IOException {
+		serialized = Dictionaries.serialize(Dictionaries.buildTrie());
+		topology = Topology.grid(width, width);
+		counter = new WordCounter(serialized, Languages.EN_US.getMask(), width - 1);
+		filter = new WordFilter.MinLength(width - 1);
+
+		letters = new ArrayList<>();
+		for (GridTransitionMap board : Dictionaries.boards(width, BOARDS)) {
+			String[] values = new String[board.getSize()];
+			for (int i = 0; i < values.length; i ++) {
+				values[i] = board.valueAt(i);
+			}
+			letters.add(values);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BOARDS)
+	public int count() {
+		int words = 0;
+		for (String[] values : letters) {
+			words += counter.count(values, topology);
+		}
+		return words;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BOARDS)
+	public int deserializeAndSolve() throws IOException {
+		int words = 0;
+		for (String[] values : letters) {
+			GridTransitionMap board = new GridTransitionMap(values, topology);
+			StringTrie trie = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialized), board, Languages.EN_US.getMask());
+			words += trie.solver(board, filter, Languages.EN_US.getMask()).size();
+		}
+		return words;
+	}
+
+}
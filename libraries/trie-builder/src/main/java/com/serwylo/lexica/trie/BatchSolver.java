@@ -0,0 +1,404 @@
+package com.serwylo.lexica.trie;
+
+import net.healeys.trie.Cancellation;
+import net.healeys.trie.GridTransitionMap;
+import net.healeys.trie.MultiBoardSolver;
+import net.healeys.trie.Solution;
+import net.healeys.trie.SolveResult;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.WordFilter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves a stream of boards against a single trie, spread across a pool of workers.
+ *
+ * The trie is only ever read while solving, so every worker shares it. Boards are read one per
+ * line, and results are written one per line in the same order. Only a small window of boards is
+ * in flight at any one time, so memory use doesn't grow with the number of boards.
+ *
+ * Boards are handed to workers in groups of {@link #groupSize}. Groups of more than one board are
+ * solved together with a {@link MultiBoardSolver}, which walks the trie once for the whole group,
+ * apart from any boards with more than {@link MultiBoardSolver#MAX_POSITIONS} positions, which are
+ * solved on their own. That saves less than half of the time spent solving, even for full groups.
+ *
+ * If there is a {@link #timeoutMillis}, each group which takes longer than that is cut short, and
+ * its boards are written with only the words found so far and {@code "complete": false}.
+ */
+class BatchSolver {
+
+	private final StringTrie trie;
+	private final WordFilter filter;
+	private final int dialects;
+	private final Scoring scoring;
+	private final int threads;
+	private final int groupSize;
+	private final long timeoutMillis;
+
+	/**
+	 * @param timeoutMillis Time allowed to solve each group of boards, or 0 for no limit.
+	 */
+	BatchSolver(StringTrie trie, WordFilter filter, int dialects, Scoring scoring, int threads, int groupSize, long timeoutMillis) {
+		if (groupSize < 1 || groupSize > MultiBoardSolver.MAX_BOARDS) {
+			throw new IllegalArgumentException("Group size must be between 1 and " + MultiBoardSolver.MAX_BOARDS);
+		}
+
+		this.trie = trie;
+		this.filter = filter;
+		this.dialects = dialects;
+		this.scoring = scoring;
+		this.threads = threads;
+		this.groupSize = groupSize;
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	/**
+	 * Each line is either a JSON object with a "board" (either an array of letters, or a string of
+	 * letters), an optional "id" and an optional "width" (for boards which aren't square), or just
+	 * the letters themselves, separated by commas or spaces.
+	 */
+	Stats run(BufferedReader input, Writer output) throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		Deque<Future<List<Result>>> inFlight = new ArrayDeque<>();
+		Stats stats = new Stats();
+
+		try {
+			Task task = new Task();
+			String line;
+			int lineNumber = 0;
+			while ((line = input.readLine()) != null) {
+				lineNumber ++;
+				if (line.trim().isEmpty()) {
+					continue;
+				}
+
+				task.add(line, lineNumber);
+				if (task.lines.size() < groupSize) {
+					continue;
+				}
+
+				inFlight.add(executor.submit(task));
+				task = new Task();
+				if (inFlight.size() >= threads * 4) {
+					writeResults(inFlight.remove(), output, stats);
+				}
+			}
+
+			if (!task.lines.isEmpty()) {
+				inFlight.add(executor.submit(task));
+			}
+
+			while (!inFlight.isEmpty()) {
+				writeResults(inFlight.remove(), output, stats);
+			}
+
+			output.flush();
+		} finally {
+			executor.shutdownNow();
+		}
+
+		stats.finish();
+		return stats;
+	}
+
+	private static void writeResults(Future<List<Result>> future, Writer output, Stats stats) throws IOException {
+		List<Result> results;
+		try {
+			results = future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while solving boards", e);
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+
+		for (Result result : results) {
+			output.write(result.json);
+			output.write('\n');
+			stats.add(result);
+		}
+	}
+
+	private class Task implements Callable<List<Result>> {
+		private final List<String> lines = new ArrayList<>(groupSize);
+		private final List<Integer> lineNumbers = new ArrayList<>(groupSize);
+
+		void add(String line, int lineNumber) {
+			lines.add(line);
+			lineNumbers.add(lineNumber);
+		}
+
+		/**
+		 * When a group of boards is solved together, each board is assigned an equal share of
+		 * the time taken to solve the group.
+		 */
+		@Override
+		public List<Result> call() {
+			List<Map<String, Object>> jsons = new ArrayList<>(lines.size());
+			List<GridTransitionMap> boards = new ArrayList<>(lines.size());
+			for (int i = 0; i < lines.size(); i ++) {
+				Map<String, Object> json = new LinkedHashMap<>();
+				json.put("line", lineNumbers.get(i));
+				jsons.add(json);
+
+				try {
+					boards.add(parseBoard(lines.get(i), json));
+				} catch (IllegalArgumentException e) {
+					json.put("error", e.getMessage());
+					boards.add(null);
+				}
+			}
+
+			List<GridTransitionMap> solvable = new ArrayList<>(boards.size());
+			for (GridTransitionMap board : boards) {
+				if (board != null) {
+					solvable.add(board);
+				}
+			}
+
+			long startTime = System.nanoTime();
+			Cancellation cancellation = timeoutMillis > 0 ? Cancellation.after(timeoutMillis, TimeUnit.MILLISECONDS) : null;
+			List<SolveResult> solved;
+			if (groupSize == 1) {
+				solved = new ArrayList<>(solvable.size());
+				for (GridTransitionMap board : solvable) {
+					solved.add(trie.solver(board, filter, dialects, cancellation));
+				}
+			} else {
+				List<GridTransitionMap> together = new ArrayList<>(solvable.size());
+				for (GridTransitionMap board : solvable) {
+					if (board.getSize() <= MultiBoardSolver.MAX_POSITIONS) {
+						together.add(board);
+					}
+				}
+
+				Iterator<SolveResult> solvedTogether = new MultiBoardSolver(trie).solve(together, filter, dialects, cancellation).iterator();
+				solved = new ArrayList<>(solvable.size());
+				for (GridTransitionMap board : solvable) {
+					solved.add(board.getSize() <= MultiBoardSolver.MAX_POSITIONS
+							? solvedTogether.next()
+							: trie.solver(board, filter, dialects, cancellation));
+				}
+			}
+			long solveTime = solvable.isEmpty() ? 0 : (System.nanoTime() - startTime) / solvable.size();
+
+			List<Result> results = new ArrayList<>(boards.size());
+			int next = 0;
+			for (int i = 0; i < boards.size(); i ++) {
+				if (boards.get(i) == null) {
+					results.add(new Result(jsons.get(i), 0, false, false));
+				} else {
+					results.add(toResult(jsons.get(i), solved.get(next ++), solveTime));
+				}
+			}
+			return results;
+		}
+
+		private Result toResult(Map<String, Object> json, SolveResult result, long solveTime) {
+			Map<String, Solution> solutions = result.getSolutions();
+			Map<Integer, Integer> lengths = new TreeMap<>();
+			List<Object> words = new ArrayList<>(solutions.size());
+			int maxScore = 0;
+			for (Solution solution : solutions.values()) {
+				String word = solution.getWord();
+				Integer count = lengths.get(word.length());
+				lengths.put(word.length(), count == null ? 1 : count + 1);
+				maxScore += scoring.score(word);
+
+				Map<String, Object> entry = new LinkedHashMap<>();
+				entry.put("word", word);
+				entry.put("path", Arrays.asList(solution.getPositions()));
+				words.add(entry);
+			}
+
+			json.put("wordCount", solutions.size());
+			json.put("maxScore", maxScore);
+			json.put("lengths", lengths);
+			json.put("words", words);
+
+			if (!result.isComplete()) {
+				json.put("complete", false);
+			}
+
+			return new Result(json, solveTime, true, result.isComplete());
+		}
+	}
+
+	/**
+	 * @param json Any "id" found is copied into here, so that it is echoed back out with the result.
+	 */
+	static GridTransitionMap parseBoard(String line, Map<String, Object> json) {
+		String trimmed = line.trim();
+		Object board = trimmed;
+		Object width = null;
+
+		if (trimmed.startsWith("{")) {
+			Object parsed = Json.parse(trimmed);
+			if (!(parsed instanceof Map)) {
+				throw new IllegalArgumentException("Expected a JSON object");
+			}
+
+			Map<?, ?> object = (Map<?, ?>) parsed;
+			if (object.containsKey("id")) {
+				json.put("id", object.get("id"));
+			}
+
+			board = object.get("board");
+			width = object.get("width");
+		}
+
+		String[] letters;
+		if (board instanceof List) {
+			List<?> list = (List<?>) board;
+			letters = new String[list.size()];
+			for (int i = 0; i < letters.length; i ++) {
+				letters[i] = String.valueOf(list.get(i)).toLowerCase();
+			}
+		} else if (board instanceof String) {
+			letters = splitLetters(((String) board).toLowerCase());
+		} else {
+			throw new IllegalArgumentException("Expected \"board\" to be an array or a string");
+		}
+
+		if (width == null) {
+			return new GridTransitionMap(letters);
+		} else if (width instanceof Number) {
+			return new GridTransitionMap(letters, ((Number) width).intValue());
+		} else {
+			throw new IllegalArgumentException("Expected \"width\" to be a number");
+		}
+	}
+
+	/**
+	 * Letters may be separated by commas or whitespace (the same as the app's {@code Board#toString()}),
+	 * or not separated at all, in which case a "q" followed by a "u" is a single "qu" letter.
+	 */
+	private static String[] splitLetters(String board) {
+		String[] letters = board.trim().split("[,\\s]+");
+		if (letters.length != 1) {
+			return letters;
+		}
+
+		List<String> tokens = new ArrayList<>();
+		for (int position = 0; position < board.length(); ) {
+			String token = StringTrie.tokenAt(board, position);
+			tokens.add(token);
+			position += token.length();
+		}
+		return tokens.toArray(new String[tokens.size()]);
+	}
+
+	private static class Result {
+		final String json;
+		final long solveTime;
+		final boolean solved;
+		final boolean complete;
+
+		Result(Map<String, Object> json, long solveTime, boolean solved, boolean complete) {
+			StringBuilder builder = new StringBuilder();
+			Json.write(builder, json);
+			this.json = builder.toString();
+			this.solveTime = solveTime;
+			this.solved = solved;
+			this.complete = complete;
+		}
+	}
+
+	/**
+	 * Throughput and per-board solve latency across the whole batch.
+	 */
+	static class Stats {
+		private final long startTime = System.nanoTime();
+		private long totalTime;
+		private long[] latencies = new long[1024];
+		private int solved;
+		private int failed;
+		private int incomplete;
+
+		private void add(Result result) {
+			if (!result.solved) {
+				failed ++;
+				return;
+			}
+
+			if (!result.complete) {
+				incomplete ++;
+			}
+
+			if (solved == latencies.length) {
+				latencies = Arrays.copyOf(latencies, latencies.length * 2);
+			}
+			latencies[solved ++] = result.solveTime;
+		}
+
+		private void finish() {
+			totalTime = System.nanoTime() - startTime;
+			Arrays.sort(latencies, 0, solved);
+		}
+
+		int getSolved() {
+			return solved;
+		}
+
+		int getFailed() {
+			return failed;
+		}
+
+		/**
+		 * Boards which ran out of time, and so only have some of their words.
+		 */
+		int getIncomplete() {
+			return incomplete;
+		}
+
+		double getBoardsPerSecond() {
+			return totalTime == 0 ? 0 : solved * 1e9 / totalTime;
+		}
+
+		/**
+		 * @param percentile Between 0 and 100.
+		 * @return Solve time in milliseconds.
+		 */
+		double getLatency(double percentile) {
+			if (solved == 0) {
+				return 0;
+			}
+
+			int index = (int) Math.ceil(percentile / 100 * solved) - 1;
+			return latencies[Math.max(0, Math.min(solved - 1, index))] / 1e6;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(
+					"Solved %d boards (%d failed, %d incomplete) in %.2fs: %.1f boards/sec, latency p50 %.3fms, p90 %.3fms, p99 %.3fms, max %.3fms",
+					solved,
+					failed,
+					incomplete,
+					totalTime / 1e9,
+					getBoardsPerSecond(),
+					getLatency(50),
+					getLatency(90),
+					getLatency(99),
+					getLatency(100));
+		}
+	}
+
+}
@@ -0,0 +1,197 @@
+package com.serwylo.lexica.trie;
+
+import net.healeys.trie.BoardPack;
+import net.healeys.trie.GridTransitionMap;
+import net.healeys.trie.Languages;
+import net.healeys.trie.LetterGenerator;
+import net.healeys.trie.Solution;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.WordFilter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates and solves boards ahead of time, and writes them to a {@link BoardPack} for the app
+ * to start games on without having to solve them itself.
+ *
+ * Boards are drawn the same way the app draws them, and then only those with a good number of
+ * words are kept: more candidates than needed are solved, and the ones with the fewest words
+ * (fewer than {@link #MIN_PERCENTILE} percent of the candidates) and the most words (more than
+ * {@link #MAX_PERCENTILE} percent) are thrown away.
+ */
+public class BoardPackApp {
+
+	/**
+	 * Each board size, and the shortest word which counts on it. These need to match the app.
+	 */
+	private static final int[] BOARD_SIZES = { 16, 25, 36 };
+	private static final int[] MIN_LENGTHS = { 3, 4, 5 };
+
+	private static final int[] DIALECTS = { Languages.EN_US.getMask(), Languages.EN_GB.getMask() };
+
+	private static final int MIN_PERCENTILE = 25;
+	private static final int MAX_PERCENTILE = 90;
+
+	public static void main(String[] args) throws IOException {
+		int count = 100;
+		long seed = 0;
+		List<File> files = new ArrayList<>();
+
+		try {
+			for (int i = 0; i < args.length; i ++) {
+				switch (args[i]) {
+					case "--count":
+						count = Integer.parseInt(args[++ i]);
+						break;
+					case "--seed":
+						seed = Long.parseLong(args[++ i]);
+						break;
+					default:
+						files.add(new File(args[i]));
+				}
+			}
+		} catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+			printUsage();
+			return;
+		}
+
+		if (files.size() < 3 || count < 1) {
+			printUsage();
+			return;
+		}
+
+		File trieFile = files.get(0);
+		File lettersFile = files.get(1);
+		for (File file : new File[] { trieFile, lettersFile }) {
+			if (!file.exists()) {
+				System.out.println("Input file " + file + " does not exist.");
+				printUsage();
+				return;
+			}
+		}
+
+		StringTrie trie = loadTrie(trieFile);
+		LetterGenerator generator;
+		InputStream letters = new FileInputStream(lettersFile);
+		try {
+			generator = new LetterGenerator(letters);
+		} finally {
+			letters.close();
+		}
+
+		BoardPack.Writer writer = new BoardPack.Writer();
+		Random random = new Random(seed);
+		for (int i = 0; i < BOARD_SIZES.length; i ++) {
+			for (int dialect : DIALECTS) {
+				addBoards(writer, trie, generator, random, BOARD_SIZES[i], dialect, MIN_LENGTHS[i], count);
+			}
+		}
+
+		for (File output : files.subList(2, files.size())) {
+			File parent = output.getAbsoluteFile().getParentFile();
+			if (!parent.exists() && !parent.mkdirs()) {
+				throw new IOException("Unable to create " + parent);
+			}
+
+			OutputStream stream = new BufferedOutputStream(new FileOutputStream(output));
+			try {
+				writer.write(stream);
+			} finally {
+				stream.close();
+			}
+		}
+	}
+
+	private static void addBoards(BoardPack.Writer writer, StringTrie trie, LetterGenerator generator, Random random, int boardSize, int dialect, int minLength, int count) {
+		int candidateCount = (int) Math.ceil(count * 100.0 / (MAX_PERCENTILE - MIN_PERCENTILE));
+		WordFilter filter = new WordFilter.MinLength(minLength);
+
+		List<Candidate> candidates = new ArrayList<>(candidateCount);
+		for (int i = 0; i < candidateCount; i ++) {
+			String[] letters = generator.generateBoard(boardSize, random);
+			candidates.add(new Candidate(i, letters, trie.solver(new GridTransitionMap(letters), filter, dialect)));
+		}
+
+		List<Candidate> byWordCount = new ArrayList<>(candidates);
+		Collections.sort(byWordCount, new Comparator<Candidate>() {
+			@Override
+			public int compare(Candidate a, Candidate b) {
+				return a.solutions.size() != b.solutions.size()
+						? a.solutions.size() - b.solutions.size()
+						: a.index - b.index;
+			}
+		});
+
+		int from = candidateCount * MIN_PERCENTILE / 100;
+		List<Candidate> kept = new ArrayList<>(byWordCount.subList(from, Math.min(from + count, candidateCount)));
+
+		// Back in the order they were generated, rather than from fewest to most words.
+		Collections.sort(kept, new Comparator<Candidate>() {
+			@Override
+			public int compare(Candidate a, Candidate b) {
+				return a.index - b.index;
+			}
+		});
+
+		for (Candidate candidate : kept) {
+			writer.add(dialect, minLength, candidate.letters, candidate.solutions.values());
+		}
+
+		System.out.println(String.format(
+				"%d letter boards (%s): kept %d of %d, with %d to %d words each",
+				boardSize,
+				dialect == Languages.EN_US.getMask() ? "us" : "uk",
+				kept.size(),
+				candidateCount,
+				byWordCount.get(from).solutions.size(),
+				byWordCount.get(from + kept.size() - 1).solutions.size()));
+	}
+
+	private static StringTrie loadTrie(File trieFile) throws IOException {
+		InputStream input = null;
+		try {
+			input = new BufferedInputStream(new FileInputStream(trieFile));
+			return new StringTrie.Deserializer().deserialize(input, null, Languages.ALL);
+		} finally {
+			if (input != null) {
+				input.close();
+			}
+		}
+	}
+
+	private static class Candidate {
+		final int index;
+		final String[] letters;
+		final Map<String, Solution> solutions;
+
+		Candidate(int index, String[] letters, Map<String, Solution> solutions) {
+			this.index = index;
+			this.letters = letters;
+			this.solutions = solutions;
+		}
+	}
+
+	private static void printUsage() {
+		System.out.println("Usage:");
+		System.out.println("    java -cp trie.jar:trie-builder.jar com.serwylo.lexica.trie.BoardPackApp [options] path/to/words.bin path/to/letters.txt path/to/boards.pack");
+		System.out.println("        words.bin              Trie built by TrieBuilderApp.");
+		System.out.println("        letters.txt            How likely each letter is to be drawn, as used by the app.");
+		System.out.println("        boards.pack ...        Output file(s) containing the solved boards.");
+		System.out.println("        --count N              Boards of each size for each dialect (default 100).");
+		System.out.println("        --seed N               Seed for drawing the boards, so the same pack can be built again (default 0).");
+	}
+
+}
@@ -0,0 +1,277 @@
+package com.serwylo.lexica.trie;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough JSON to read and write one board per line, without adding a dependency to the
+ * builder (which is run straight from its jar, alongside the trie library and nothing else).
+ *
+ * Objects are read as {@link Map}s, arrays as {@link List}s, and numbers as {@link Double}s.
+ */
+class Json {
+
+	private final String text;
+	private int position;
+
+	private Json(String text) {
+		this.text = text;
+	}
+
+	static Object parse(String text) {
+		Json json = new Json(text);
+		Object value = json.readValue();
+		json.skipWhitespace();
+		if (json.position != text.length()) {
+			throw json.error("Unexpected trailing characters");
+		}
+		return value;
+	}
+
+	static void write(StringBuilder out, Object value) {
+		if (value == null) {
+			out.append("null");
+		} else if (value instanceof String) {
+			writeString(out, (String) value);
+		} else if (value instanceof Double && (Double) value == Math.rint((Double) value) && !Double.isInfinite((Double) value)) {
+			out.append(((Double) value).longValue());
+		} else if (value instanceof Number || value instanceof Boolean) {
+			out.append(value);
+		} else if (value instanceof Map) {
+			out.append('{');
+			boolean first = true;
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				if (!first) {
+					out.append(',');
+				}
+				first = false;
+				writeString(out, entry.getKey().toString());
+				out.append(':');
+				write(out, entry.getValue());
+			}
+			out.append('}');
+		} else if (value instanceof List) {
+			out.append('[');
+			boolean first = true;
+			for (Object item : (List<?>) value) {
+				if (!first) {
+					out.append(',');
+				}
+				first = false;
+				write(out, item);
+			}
+			out.append(']');
+		} else {
+			throw new IllegalArgumentException("Can't write " + value.getClass() + " as JSON");
+		}
+	}
+
+	static void writeString(StringBuilder out, String value) {
+		out.append('"');
+		for (int i = 0; i < value.length(); i ++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"':
+					out.append("\\\"");
+					break;
+				case '\\':
+					out.append("\\\\");
+					break;
+				case '\n':
+					out.append("\\n");
+					break;
+				case '\r':
+					out.append("\\r");
+					break;
+				case '\t':
+					out.append("\\t");
+					break;
+				default:
+					if (c < 0x20) {
+						out.append(String.format("\\u%04x", (int) c));
+					} else {
+						out.append(c);
+					}
+			}
+		}
+		out.append('"');
+	}
+
+	private Object readValue() {
+		skipWhitespace();
+		if (position >= text.length()) {
+			throw error("Unexpected end of input");
+		}
+
+		char c = text.charAt(position);
+		switch (c) {
+			case '{':
+				return readObject();
+			case '[':
+				return readArray();
+			case '"':
+				return readString();
+			case 't':
+				return readLiteral("true", Boolean.TRUE);
+			case 'f':
+				return readLiteral("false", Boolean.FALSE);
+			case 'n':
+				return readLiteral("null", null);
+			default:
+				return readNumber();
+		}
+	}
+
+	private Map<String, Object> readObject() {
+		Map<String, Object> object = new LinkedHashMap<>();
+		position ++;
+		skipWhitespace();
+		if (peek() == '}') {
+			position ++;
+			return object;
+		}
+
+		while (true) {
+			skipWhitespace();
+			if (peek() != '"') {
+				throw error("Expected a string key");
+			}
+			String key = readString();
+			skipWhitespace();
+			expect(':');
+			object.put(key, readValue());
+			skipWhitespace();
+			if (peek() == ',') {
+				position ++;
+			} else {
+				expect('}');
+				return object;
+			}
+		}
+	}
+
+	private List<Object> readArray() {
+		List<Object> array = new ArrayList<>();
+		position ++;
+		skipWhitespace();
+		if (peek() == ']') {
+			position ++;
+			return array;
+		}
+
+		while (true) {
+			array.add(readValue());
+			skipWhitespace();
+			if (peek() == ',') {
+				position ++;
+			} else {
+				expect(']');
+				return array;
+			}
+		}
+	}
+
+	private String readString() {
+		StringBuilder string = new StringBuilder();
+		position ++;
+		while (true) {
+			if (position >= text.length()) {
+				throw error("Unterminated string");
+			}
+
+			char c = text.charAt(position ++);
+			if (c == '"') {
+				return string.toString();
+			}
+
+			if (c != '\\') {
+				string.append(c);
+				continue;
+			}
+
+			if (position >= text.length()) {
+				throw error("Unterminated string");
+			}
+
+			char escaped = text.charAt(position ++);
+			switch (escaped) {
+				case 'b':
+					string.append('\b');
+					break;
+				case 'f':
+					string.append('\f');
+					break;
+				case 'n':
+					string.append('\n');
+					break;
+				case 'r':
+					string.append('\r');
+					break;
+				case 't':
+					string.append('\t');
+					break;
+				case 'u':
+					if (position + 4 > text.length()) {
+						throw error("Invalid unicode escape");
+					}
+					string.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+					position += 4;
+					break;
+				default:
+					string.append(escaped);
+			}
+		}
+	}
+
+	private Object readLiteral(String literal, Object value) {
+		if (!text.startsWith(literal, position)) {
+			throw error("Unexpected value");
+		}
+		position += literal.length();
+		return value;
+	}
+
+	private Double readNumber() {
+		int start = position;
+		while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+			position ++;
+		}
+
+		if (start == position) {
+			throw error("Unexpected character '" + text.charAt(position) + "'");
+		}
+
+		try {
+			return Double.parseDouble(text.substring(start, position));
+		} catch (NumberFormatException e) {
+			throw error("Invalid number");
+		}
+	}
+
+	private void skipWhitespace() {
+		while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+			position ++;
+		}
+	}
+
+	private char peek() {
+		if (position >= text.length()) {
+			throw error("Unexpected end of input");
+		}
+		return text.charAt(position);
+	}
+
+	private void expect(char c) {
+		if (peek() != c) {
+			throw error("Expected '" + c + "'");
+		}
+		position ++;
+	}
+
+	private IllegalArgumentException error(String message) {
+		return new IllegalArgumentException(message + " at character " + position);
+	}
+
+}
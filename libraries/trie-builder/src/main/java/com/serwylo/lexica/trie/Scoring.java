@@ -0,0 +1,57 @@
+package com.serwylo.lexica.trie;
+
+/**
+ * The two ways the app can score words. The points are the same as those in the app's
+ * {@code Game}, which this builder can't depend on.
+ */
+enum Scoring {
+
+	/**
+	 * Longer words are worth more, roughly following the Fibonacci sequence.
+	 */
+	WORDS {
+		@Override
+		int score(String word) {
+			return WORD_POINTS[Math.min(word.length(), WORD_POINTS.length - 1)];
+		}
+	},
+
+	/**
+	 * Each letter is worth a fixed number of points, with rarer letters being worth more.
+	 */
+	LETTERS {
+		@Override
+		int score(String word) {
+			int score = 0;
+			for (int i = 0; i < word.length(); i ++) {
+				score += LETTER_POINTS[word.charAt(i) - 'a'];
+				if (word.charAt(i) == 'q') {
+					i ++;
+				}
+			}
+			return score;
+		}
+	};
+
+	private static final int[] LETTER_POINTS = {
+		//  A, B, C, D, E, F, G, H, I, J, K, L, M
+			1, 3, 3, 2, 1, 4, 2, 4, 1, 8, 5, 1, 3,
+		//  N, O, P, Qu,R, S, T, U, V, W, X, Y, Z
+			1, 1, 3, 5, 1, 1, 1, 1, 4, 4, 8, 4, 10
+	};
+
+	private static final int[] WORD_POINTS = {
+		0,0,0, // 0,1,2
+		1,1,2, // 3,4,5
+		3,5,8, // 6,7,8
+		13,21,34, // 9,10,11
+		55,89,144, // 12,13,14
+		233,377,610, //14,15,16
+		987,1597,2584, // 17,18,19
+		4181,6765,10946, // 20,21,22
+		17711,28657,46368, // 23,24,25
+	};
+
+	abstract int score(String word);
+
+}
@@ -0,0 +1,147 @@
+package com.serwylo.lexica.trie;
+
+import net.healeys.trie.Languages;
+import net.healeys.trie.MultiBoardSolver;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.WordFilter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Solves boards in bulk against a compiled dictionary, for analysing large sets of boards
+ * offline. Results are written to stdout as one JSON object per line, and a summary of the
+ * throughput and latency is written to stderr at the end.
+ */
+public class SolverApp {
+
+	public static void main(String[] args) throws IOException {
+		int threads = Runtime.getRuntime().availableProcessors();
+		int minLength = 3;
+		int groupSize = 1;
+		long timeoutMillis = 0;
+		int dialects = Languages.ALL;
+		Scoring scoring = Scoring.WORDS;
+		File trieFile = null;
+		File boardsFile = null;
+
+		try {
+			for (int i = 0; i < args.length; i ++) {
+				switch (args[i]) {
+					case "--threads":
+						threads = Integer.parseInt(args[++ i]);
+						break;
+					case "--group-size":
+						groupSize = Integer.parseInt(args[++ i]);
+						break;
+					case "--timeout-ms":
+						timeoutMillis = Long.parseLong(args[++ i]);
+						break;
+					case "--min-length":
+						minLength = Integer.parseInt(args[++ i]);
+						break;
+					case "--dialect":
+						dialects = parseDialect(args[++ i]);
+						break;
+					case "--score":
+						scoring = Scoring.valueOf(args[++ i].toUpperCase());
+						break;
+					default:
+						if (trieFile == null) {
+							trieFile = new File(args[i]);
+						} else if (boardsFile == null) {
+							boardsFile = new File(args[i]);
+						} else {
+							throw new IllegalArgumentException("Unexpected argument " + args[i]);
+						}
+				}
+			}
+		} catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+			printUsage();
+			return;
+		}
+
+		if (trieFile == null || threads < 1 || groupSize < 1 || groupSize > MultiBoardSolver.MAX_BOARDS || timeoutMillis < 0) {
+			printUsage();
+			return;
+		}
+
+		for (File file : new File[] { trieFile, boardsFile }) {
+			if (file != null && !file.exists()) {
+				System.err.println("Input file " + file + " does not exist.");
+				printUsage();
+				return;
+			}
+		}
+
+		long startTime = System.nanoTime();
+		StringTrie trie = loadTrie(trieFile);
+		System.err.println(String.format("Loaded %s in %.2fs", trieFile, (System.nanoTime() - startTime) / 1e9));
+
+		BatchSolver solver = new BatchSolver(trie, new WordFilter.MinLength(minLength), dialects, scoring, threads, groupSize, timeoutMillis);
+
+		Reader input = boardsFile == null ? new InputStreamReader(System.in) : new InputStreamReader(new FileInputStream(boardsFile));
+		Writer output = new BufferedWriter(new OutputStreamWriter(System.out));
+		try {
+			BatchSolver.Stats stats = solver.run(new BufferedReader(input), output);
+			System.err.println(stats);
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Loads every word in every dialect, so that the trie can answer for any board.
+	 */
+	private static StringTrie loadTrie(File trieFile) throws IOException {
+		InputStream input = null;
+		try {
+			input = new BufferedInputStream(new FileInputStream(trieFile));
+			return new StringTrie.Deserializer().deserialize(input, null, Languages.ALL);
+		} finally {
+			if (input != null) {
+				input.close();
+			}
+		}
+	}
+
+	private static int parseDialect(String dialect) {
+		switch (dialect) {
+			case "us":
+				return Languages.EN_US.getMask();
+			case "uk":
+				return Languages.EN_GB.getMask();
+			case "all":
+				return Languages.ALL;
+			default:
+				throw new IllegalArgumentException("Unknown dialect " + dialect);
+		}
+	}
+
+	private static void printUsage() {
+		System.out.println("Usage:");
+		System.out.println("    java -cp trie.jar:trie-builder.jar com.serwylo.lexica.trie.SolverApp [options] path/to/words.bin [path/to/boards.txt]");
+		System.out.println("        words.bin              Trie built by TrieBuilderApp.");
+		System.out.println("        boards.txt             One board per line (read from stdin if omitted). Either a JSON object such as");
+		System.out.println("                               {\"id\": 1, \"board\": [\"a\", \"b\", ...]}, or just the letters, e.g. \"a,b,qu,d,...\".");
+		System.out.println("                               Boards are square unless the JSON object has a \"width\".");
+		System.out.println("        --threads N            Number of boards to solve at once (default: number of CPUs).");
+		System.out.println("        --group-size N         Number of boards to solve together in one walk of the trie, up to " + MultiBoardSolver.MAX_BOARDS + " (default 1).");
+		System.out.println("                               Full groups solve around 1.5x as many boards per second, not more.");
+		System.out.println("        --timeout-ms N         Give up on each group of boards after N milliseconds, and mark them");
+		System.out.println("                               \"complete\": false with only the words found so far (default: no limit).");
+		System.out.println("        --min-length N         Shortest word to include (default 3).");
+		System.out.println("        --dialect us|uk|all    Which dictionary to solve with (default all).");
+		System.out.println("        --score words|letters  How to score the words found on each board (default words).");
+	}
+
+}
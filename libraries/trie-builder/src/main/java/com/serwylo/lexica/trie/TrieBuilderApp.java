@@ -8,20 +8,32 @@ import com.serwylo.lexica.trie.util.TrieBuilder;
 public class TrieBuilderApp {
 
 	public static void main(String[] args) throws IOException {
-		if (args.length < 3) {
-			printUsage();
+		if (args.length > 0 && args[0].equals("--delta")) {
+			buildDelta(args);
+			return;
+		}
+
+		if (args.length > 0 && args[0].equals("--patch")) {
+			applyDelta(args);
 			return;
 		}
 
-		final File usDictFile = new File(args[0]);
-		final File ukDictFile = new File(args[1]);
+		int threads = 1;
+		int start = 0;
+		if (args.length > 1 && args[0].equals("--threads")) {
+			threads = Integer.parseInt(args[1]);
+			start = 2;
+		}
 
-		int outputFileCount = args.length - 2;
-		final File[] outputFiles = new File[outputFileCount];
-		for (int i = 0; i < outputFileCount; i ++) {
-			outputFiles[i] = new File(args[i + 2]);
+		if (args.length - start < 3 || threads < 1) {
+			printUsage();
+			return;
 		}
 
+		final File usDictFile = new File(args[start]);
+		final File ukDictFile = new File(args[start + 1]);
+		final File[] outputFiles = filesFrom(args, start + 2);
+
 		if (!usDictFile.exists()) {
 			printFileNotFound(usDictFile);
 			return;
@@ -33,14 +45,71 @@ public class TrieBuilderApp {
 		}
 
 		final TrieBuilder builder = new TrieBuilder(usDictFile, ukDictFile, outputFiles);
-		builder.run();
+		builder.run(threads);
+	}
+
+	private static void buildDelta(String[] args) throws IOException {
+		if (args.length < 5) {
+			printUsage();
+			return;
+		}
+
+		final File baseFile = new File(args[1]);
+		final File usDictFile = new File(args[2]);
+		final File ukDictFile = new File(args[3]);
+		final File[] outputFiles = filesFrom(args, 4);
+
+		for (File file : new File[] { baseFile, usDictFile, ukDictFile }) {
+			if (!file.exists()) {
+				printFileNotFound(file);
+				return;
+			}
+		}
+
+		new TrieBuilder(usDictFile, ukDictFile, outputFiles).runDelta(baseFile);
+	}
+
+	private static void applyDelta(String[] args) throws IOException {
+		if (args.length < 4) {
+			printUsage();
+			return;
+		}
+
+		final File baseFile = new File(args[1]);
+		final File deltaFile = new File(args[2]);
+		final File[] outputFiles = filesFrom(args, 3);
+
+		for (File file : new File[] { baseFile, deltaFile }) {
+			if (!file.exists()) {
+				printFileNotFound(file);
+				return;
+			}
+		}
+
+		TrieBuilder.patch(baseFile, deltaFile, outputFiles);
+	}
+
+	private static File[] filesFrom(String[] args, int start) {
+		File[] files = new File[args.length - start];
+		for (int i = 0; i < files.length; i ++) {
+			files[i] = new File(args[i + start]);
+		}
+		return files;
 	}
 
 	private static void printUsage() {
 		System.out.println("Usage:");
-		System.out.println("    java -jar trie-builder.jar path/to/usDict.txt path/to/ukDict.txt path/to/words.bin");
+		System.out.println("    java -jar trie-builder.jar [--threads N] path/to/usDict.txt path/to/ukDict.txt path/to/words.bin");
+		System.out.println("        --threads N            Number of workers to build the trie with (default 1).");
 		System.out.println("        usDict.txt|ukDict.txt  Input text files, one word per line.");
 		System.out.println("        words.bin ...          Output file(s) containing a trie of all the words.");
+		System.out.println();
+		System.out.println("    java -jar trie-builder.jar --delta path/to/base.bin path/to/usDict.txt path/to/ukDict.txt path/to/words.delta");
+		System.out.println("        base.bin               Trie built previously from older versions of the input files.");
+		System.out.println("        words.delta ...        Output file(s) containing only the words added and removed since base.bin.");
+		System.out.println();
+		System.out.println("    java -jar trie-builder.jar --patch path/to/base.bin path/to/words.delta path/to/words.bin");
+		System.out.println("        words.bin ...          Output file(s) containing base.bin with words.delta applied.");
 	}
 
 	private static void printFileNotFound(File file) {
@@ -0,0 +1,38 @@
+package com.serwylo.lexica.trie.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.serwylo.lexica.BoardSolve")
+@Label("Board Solve")
+@Description("Every word on a board found by StringTrie.solver")
+@Category({"Lexica", "Trie"})
+public class BoardSolveEvent extends jdk.jfr.Event {
+
+	@Label("Board Size")
+	int boardSize;
+
+	@Label("Dialects")
+	@Description("Bitmask of the languages which words were found in")
+	int dialects;
+
+	@Label("Nodes Visited")
+	int nodesVisited;
+
+	@Label("Branches Pruned")
+	int branchesPruned;
+
+	@Label("Words Found")
+	int wordsFound;
+
+	@Label("Duplicate Hits")
+	@Description("Words found again by a different path")
+	int duplicateHits;
+
+	@Label("Complete")
+	@Description("False if the solve was cancelled before every path had been tried")
+	boolean complete;
+
+}
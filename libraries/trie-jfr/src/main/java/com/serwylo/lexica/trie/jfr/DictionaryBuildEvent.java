@@ -0,0 +1,28 @@
+package com.serwylo.lexica.trie.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.serwylo.lexica.DictionaryBuild")
+@Label("Dictionary Build")
+@Description("A trie compiled from word lists by TrieBuilder.run")
+@Category({"Lexica", "Trie"})
+public class DictionaryBuildEvent extends jdk.jfr.Event {
+
+	@Label("Threads")
+	int threads;
+
+	@Label("Words Read")
+	int wordsRead;
+
+	@Label("Shards")
+	int shards;
+
+	@Label("Bytes Written")
+	@DataAmount
+	long bytesWritten;
+
+}
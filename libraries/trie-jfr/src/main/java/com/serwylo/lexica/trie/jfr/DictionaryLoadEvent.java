@@ -0,0 +1,37 @@
+package com.serwylo.lexica.trie.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.serwylo.lexica.DictionaryLoad")
+@Label("Dictionary Load")
+@Description("A trie deserialized by StringTrie.Deserializer, either in full or for a single board")
+@Category({"Lexica", "Trie"})
+public class DictionaryLoadEvent extends jdk.jfr.Event {
+
+	@Label("Board Size")
+	@Description("Number of positions on the board the trie was loaded for, or 0 if it was loaded in full")
+	int boardSize;
+
+	@Label("Dialects")
+	@Description("Bitmask of the languages which were kept")
+	int dialects;
+
+	@Label("Bytes Read")
+	@DataAmount
+	long bytesRead;
+
+	@Label("Bytes Skipped")
+	@DataAmount
+	long bytesSkipped;
+
+	@Label("Nodes Created")
+	int nodesCreated;
+
+	@Label("Subtrees Skipped")
+	int subtreesSkipped;
+
+}
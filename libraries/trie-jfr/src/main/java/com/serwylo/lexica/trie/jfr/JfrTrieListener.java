@@ -0,0 +1,96 @@
+package com.serwylo.lexica.trie.jfr;
+
+import com.serwylo.lexica.trie.util.TrieBuilder;
+
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.TrieListener;
+
+/**
+ * Emits a Java Flight Recorder event for each dictionary load, board solve and dictionary build,
+ * so that slow ones can be lined up against GC and I/O in the same recording. Pass it to
+ * {@link StringTrie.Deserializer#Deserializer(TrieListener)} and/or
+ * {@link TrieBuilder#setListener(TrieBuilder.Listener)}.
+ *
+ * Each event begins when the work starts and is committed when it finishes, so its duration
+ * covers the work itself. The events are only recorded when enabled in the recording settings,
+ * e.g. {@code -XX:StartFlightRecording:settings=profile} or via {@code jcmd JFR.configure}.
+ */
+public class JfrTrieListener implements TrieListener, TrieBuilder.Listener {
+
+	// Work is reported on the thread it runs on, and several boards may be solved at once.
+	private final ThreadLocal<DictionaryLoadEvent> loadEvent = new ThreadLocal<>();
+	private final ThreadLocal<BoardSolveEvent> solveEvent = new ThreadLocal<>();
+	private final ThreadLocal<DictionaryBuildEvent> buildEvent = new ThreadLocal<>();
+
+	@Override
+	public void onLoadStarted() {
+		DictionaryLoadEvent event = new DictionaryLoadEvent();
+		event.begin();
+		loadEvent.set(event);
+	}
+
+	@Override
+	public void onLoaded(LoadStats stats) {
+		DictionaryLoadEvent event = loadEvent.get();
+		loadEvent.remove();
+		if (event == null || !event.shouldCommit()) {
+			return;
+		}
+
+		event.boardSize = stats.getBoardSize();
+		event.dialects = stats.getDialects();
+		event.bytesRead = stats.getBytesRead();
+		event.bytesSkipped = stats.getBytesSkipped();
+		event.nodesCreated = stats.getNodesMaterialized();
+		event.subtreesSkipped = stats.getNodesSkipped();
+		event.commit();
+	}
+
+	@Override
+	public void onSolveStarted() {
+		BoardSolveEvent event = new BoardSolveEvent();
+		event.begin();
+		solveEvent.set(event);
+	}
+
+	@Override
+	public void onSolved(SolveStats stats) {
+		BoardSolveEvent event = solveEvent.get();
+		solveEvent.remove();
+		if (event == null || !event.shouldCommit()) {
+			return;
+		}
+
+		event.boardSize = stats.getBoardSize();
+		event.dialects = stats.getDialects();
+		event.nodesVisited = stats.getNodesVisited();
+		event.branchesPruned = stats.getBranchesPruned();
+		event.wordsFound = stats.getWordsEmitted();
+		event.duplicateHits = stats.getDuplicateHits();
+		event.complete = stats.isComplete();
+		event.commit();
+	}
+
+	@Override
+	public void onBuildStarted() {
+		DictionaryBuildEvent event = new DictionaryBuildEvent();
+		event.begin();
+		buildEvent.set(event);
+	}
+
+	@Override
+	public void onBuilt(TrieBuilder.BuildStats stats) {
+		DictionaryBuildEvent event = buildEvent.get();
+		buildEvent.remove();
+		if (event == null || !event.shouldCommit()) {
+			return;
+		}
+
+		event.threads = stats.getThreads();
+		event.wordsRead = stats.getWordsRead();
+		event.shards = stats.getShards();
+		event.bytesWritten = stats.getBytesWritten();
+		event.commit();
+	}
+
+}
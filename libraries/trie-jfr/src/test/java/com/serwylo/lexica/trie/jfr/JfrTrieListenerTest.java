@@ -0,0 +1,161 @@
+package com.serwylo.lexica.trie.jfr;
+
+import com.serwylo.lexica.trie.util.TrieBuilder;
+
+import net.healeys.trie.GridTransitionMap;
+import net.healeys.trie.Languages;
+import net.healeys.trie.Solution;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.WordFilter;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JfrTrieListenerTest {
+
+	private static final String[] BOARD = {
+			"c", "a", "t", "s",
+			"r", "t", "o", "p",
+			"e", "s", "n", "d",
+			"qu", "i", "e", "t",
+	};
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void recordsLoadAndSolve() throws IOException {
+		StringTrie source = new StringTrie();
+		for (String word : new String[] { "cat", "cats", "tops", "quiet", "zebra" }) {
+			source.addWord(word, Languages.ALL);
+		}
+		ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+		source.write(serialized);
+
+		GridTransitionMap board = new GridTransitionMap(BOARD);
+		Map<String, Solution> solutions;
+
+		Recording recording = startRecording();
+		try {
+			StringTrie trie = new StringTrie.Deserializer(new JfrTrieListener())
+					.deserialize(new ByteArrayInputStream(serialized.toByteArray()), board, Languages.EN_GB.getMask());
+			solutions = trie.solver(board, new WordFilter.MinLength(3), Languages.EN_GB.getMask());
+		} finally {
+			recording.stop();
+		}
+
+		List<RecordedEvent> events = readEvents(recording);
+		assertEquals(2, events.size());
+
+		RecordedEvent load = find(events, "com.serwylo.lexica.DictionaryLoad");
+		assertEquals(16, load.getInt("boardSize"));
+		assertEquals(Languages.EN_GB.getMask(), load.getInt("dialects"));
+		assertEquals(serialized.size(), load.getLong("bytesRead") + load.getLong("bytesSkipped"));
+		assertTrue(load.getInt("nodesCreated") > 0);
+		assertTrue(load.getInt("subtreesSkipped") > 0);
+
+		RecordedEvent solve = find(events, "com.serwylo.lexica.BoardSolve");
+		assertEquals(16, solve.getInt("boardSize"));
+		assertEquals(solutions.size(), solve.getInt("wordsFound") - solve.getInt("duplicateHits"));
+		assertTrue(!solve.getStartTime().isBefore(load.getEndTime()));
+	}
+
+	@Test
+	public void recordsBuild() throws IOException {
+		File us = writeWords("us.txt", "color", "cat");
+		File uk = writeWords("uk.txt", "colour", "cat");
+		File output = folder.newFile("words.bin");
+
+		TrieBuilder builder = new TrieBuilder(us, uk, new File[] { output });
+		builder.setListener(new JfrTrieListener());
+
+		Recording recording = startRecording();
+		try {
+			builder.run(2);
+		} finally {
+			recording.stop();
+		}
+
+		RecordedEvent build = find(readEvents(recording), "com.serwylo.lexica.DictionaryBuild");
+		assertEquals(2, build.getInt("threads"));
+		assertEquals(4, build.getInt("wordsRead"));
+		assertEquals(1, build.getInt("shards"));
+		assertEquals(output.length(), build.getLong("bytesWritten"));
+	}
+
+	@Test
+	public void doesNothingWhenNotRecording() throws IOException {
+		StringTrie source = new StringTrie();
+		source.addWord("cat", Languages.ALL);
+		ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+		source.write(serialized);
+
+		GridTransitionMap board = new GridTransitionMap(BOARD);
+		StringTrie trie = new StringTrie.Deserializer(new JfrTrieListener())
+				.deserialize(new ByteArrayInputStream(serialized.toByteArray()), board, Languages.ALL);
+
+		assertEquals(1, trie.solver(board, null).size());
+	}
+
+	private static Recording startRecording() {
+		Recording recording = new Recording();
+		recording.enable(DictionaryLoadEvent.class);
+		recording.enable(BoardSolveEvent.class);
+		recording.enable(DictionaryBuildEvent.class);
+		recording.start();
+		return recording;
+	}
+
+	private List<RecordedEvent> readEvents(Recording recording) throws IOException {
+		Path file = folder.newFile("recording.jfr").toPath();
+		try {
+			recording.dump(file);
+		} finally {
+			recording.close();
+		}
+		return RecordingFile.readAllEvents(file);
+	}
+
+	private static RecordedEvent find(List<RecordedEvent> events, String name) {
+		for (RecordedEvent event : events) {
+			if (event.getEventType().getName().equals(name)) {
+				return event;
+			}
+		}
+		throw new AssertionError("No " + name + " event in " + events);
+	}
+
+	private File writeWords(String name, String... words) throws IOException {
+		File file = folder.newFile(name);
+		FileWriter writer = null;
+		try {
+			writer = new FileWriter(file);
+			for (String word : words) {
+				writer.write(word + "\n");
+			}
+		} finally {
+			if (writer != null) {
+				writer.close();
+			}
+		}
+		return file;
+	}
+
+}
@@ -1,17 +1,32 @@
 package com.serwylo.lexica.trie.util;
 
+import net.healeys.trie.Languages;
+import net.healeys.trie.SortedTrieWriter;
 import net.healeys.trie.StringTrie;
-import net.healeys.trie.Trie;
+import net.healeys.trie.TrieDelta;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.BufferedReader;
-import java.io.DataOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class TrieBuilder {
 
@@ -19,6 +34,8 @@ public class TrieBuilder {
 	private final InputStream ukDictFile;
 	private final File[] outputFiles;
 
+	private Listener listener;
+
 	public TrieBuilder(File usDictFile, File ukDictFile, File[] outputFiles) throws IOException {
 		this(new FileInputStream(usDictFile), new FileInputStream(ukDictFile), outputFiles);
 	}
@@ -29,17 +46,160 @@ public class TrieBuilder {
 		this.outputFiles = outputFiles;
 	}
 
+	/**
+	 * @param listener Told when {@link #run(int)} starts and finishes, or null.
+	 */
+	public void setListener(Listener listener) {
+		this.listener = listener;
+	}
+
 	public void run() throws IOException {
-		Trie outTrie = new StringTrie();
+		run(1);
+	}
+
+	/**
+	 * Builds the trie using {@param threads} workers.
+	 *
+	 * Words are sharded by their first token. Each shard is then sorted and streamed through its
+	 * own {@link SortedTrieWriter}, so only the words themselves are held in memory rather than an
+	 * entire trie of them. As each shard is already serialized as a subtree, joining them under the
+	 * root node is just a matter of copying bytes. The result is serialized once, and the same
+	 * bytes written to every output file.
+	 */
+	public void run(int threads) throws IOException {
+		BuildStats stats = null;
+		long startTime = 0;
+		if (listener != null) {
+			listener.onBuildStarted();
+			stats = new BuildStats();
+			stats.threads = threads;
+			startTime = System.nanoTime();
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			Future<List<String>> usWords = executor.submit(new WordReader(usDictFile));
+			Future<List<String>> ukWords = executor.submit(new WordReader(ukDictFile));
+
+			Map<String, Shard> shards = new TreeMap<>();
+			int rootDialects = 0;
+
+			List<String> usWordList = get(usWords);
+			List<String> ukWordList = get(ukWords);
+
+			for (String word : usWordList) {
+				if (word.isEmpty()) {
+					rootDialects |= Languages.EN_US.getMask();
+				} else {
+					shardFor(shards, word).usWords.add(word.substring(shardLabel(word).length()));
+				}
+			}
+
+			for (String word : ukWordList) {
+				if (word.isEmpty()) {
+					rootDialects |= Languages.EN_GB.getMask();
+				} else {
+					shardFor(shards, word).ukWords.add(word.substring(shardLabel(word).length()));
+				}
+			}
+
+			Map<String, Future<byte[]>> subtrees = new LinkedHashMap<>();
+			for (Map.Entry<String, Shard> shard : shards.entrySet()) {
+				subtrees.put(shard.getKey(), executor.submit(shard.getValue()));
+			}
+
+			Map<String, byte[]> children = new LinkedHashMap<>();
+			for (Map.Entry<String, Future<byte[]>> subtree : subtrees.entrySet()) {
+				children.put(subtree.getKey(), get(subtree.getValue()));
+			}
+
+			byte[] trie = SortedTrieWriter.join(rootDialects, children);
+			writeToOutputFiles(trie, outputFiles);
+
+			if (listener != null) {
+				stats.wordsRead = usWordList.size() + ukWordList.size();
+				stats.shards = shards.size();
+				stats.bytesWritten = trie.length;
+				stats.wallTimeNanos = System.nanoTime() - startTime;
+				listener.onBuilt(stats);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
 
-		readFileIntoTrie(usDictFile, outTrie, true, false);
-		readFileIntoTrie(ukDictFile, outTrie, false, true);
+	private static String shardLabel(String word) {
+		return StringTrie.tokenAt(word, 0);
+	}
+
+	private static Shard shardFor(Map<String, Shard> shards, String word) {
+		String label = shardLabel(word);
+		Shard shard = shards.get(label);
+		if (shard == null) {
+			shard = new Shard();
+			shards.put(label, shard);
+		}
+		return shard;
+	}
+
+	private static <T> T get(Future<T> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while building trie", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			} else if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
 
+	/**
+	 * Rather than writing a full trie, writes the delta which turns {@param baseFile} (a trie
+	 * written by an earlier {@link #run()}) into the trie that {@link #run()} would write now.
+	 * The delta can be applied with {@link #patch(File, File, File[])}, or loaded on top of the
+	 * base trie at runtime using {@link net.healeys.trie.OverlayTrie}.
+	 */
+	public void runDelta(File baseFile) throws IOException {
+		Map<String, Integer> words = new HashMap<>();
+
+		readFileIntoMap(usDictFile, words, Languages.EN_US.getMask());
+		readFileIntoMap(ukDictFile, words, Languages.EN_GB.getMask());
+
+		ByteArrayOutputStream delta = new ByteArrayOutputStream();
+		TrieDelta.diff(readFile(baseFile), words, delta);
+		writeToOutputFiles(delta.toByteArray(), outputFiles);
+	}
+
+	/**
+	 * Applies a delta written by {@link #runDelta(File)} to {@param baseFile}. Only the nodes
+	 * along the paths to words which changed are rebuilt, the rest of the trie is copied as is.
+	 */
+	public static void patch(File baseFile, File deltaFile, File[] outputFiles) throws IOException {
+		ByteArrayOutputStream patched = new ByteArrayOutputStream();
+		FileInputStream delta = null;
+		try {
+			delta = new FileInputStream(deltaFile);
+			TrieDelta.patch(readFile(baseFile), delta, patched);
+		} finally {
+			if (delta != null) {
+				delta.close();
+			}
+		}
+
+		writeToOutputFiles(patched.toByteArray(), outputFiles);
+	}
+
+	private static void writeToOutputFiles(byte[] bytes, File[] outputFiles) throws IOException {
 		for (File outputFile : outputFiles) {
 			FileOutputStream of = null;
 			try {
 				of = new FileOutputStream(outputFile, false);
-				outTrie.write(new DataOutputStream(of));
+				of.write(bytes);
 			} finally {
 				if (of != null) {
 					of.close();
@@ -48,11 +208,136 @@ public class TrieBuilder {
 		}
 	}
 
-	private static void readFileIntoTrie(InputStream dictFile, Trie trie, boolean usWord, boolean ukWord) throws IOException {
+	private static byte[] readFile(File file) throws IOException {
+		byte[] bytes = new byte[(int) file.length()];
+		DataInputStream input = null;
+		try {
+			input = new DataInputStream(new FileInputStream(file));
+			input.readFully(bytes);
+		} finally {
+			if (input != null) {
+				input.close();
+			}
+		}
+		return bytes;
+	}
+
+	private static void readFileIntoMap(InputStream dictFile, Map<String, Integer> words, int dialects) throws IOException {
 		BufferedReader br = new BufferedReader(new InputStreamReader(dictFile));
 		String line;
 		while((line = br.readLine()) != null) {
-			trie.addWord(line.toLowerCase(Locale.ENGLISH), usWord, ukWord);
+			String word = line.toLowerCase(Locale.ENGLISH);
+			Integer existing = words.get(word);
+			words.put(word, existing == null ? dialects : existing | dialects);
+		}
+	}
+
+	/**
+	 * Every word starting with the same token, with that token removed. Serializes to the subtree
+	 * below that token.
+	 */
+	private static class Shard implements Callable<byte[]> {
+		final List<String> usWords = new ArrayList<>();
+		final List<String> ukWords = new ArrayList<>();
+
+		@Override
+		public byte[] call() {
+			Collections.sort(usWords, SortedTrieWriter.TOKEN_ORDER);
+			Collections.sort(ukWords, SortedTrieWriter.TOKEN_ORDER);
+
+			SortedTrieWriter writer = new SortedTrieWriter();
+
+			int us = 0;
+			int uk = 0;
+			while (us < usWords.size() || uk < ukWords.size()) {
+				int order = us == usWords.size() ? 1
+						: uk == ukWords.size() ? -1
+						: SortedTrieWriter.TOKEN_ORDER.compare(usWords.get(us), ukWords.get(uk));
+
+				if (order <= 0) {
+					writer.addWord(usWords.get(us ++), Languages.EN_US.getMask());
+				}
+
+				if (order >= 0) {
+					writer.addWord(ukWords.get(uk ++), Languages.EN_GB.getMask());
+				}
+			}
+
+			return writer.finish();
+		}
+	}
+
+	/**
+	 * Receives statistics about each {@link #run(int)}, e.g. to correlate slow builds with GC or
+	 * I/O on a server JVM.
+	 */
+	public interface Listener {
+
+		/**
+		 * Called on the same thread which will then call {@link #onBuilt(BuildStats)}.
+		 */
+		void onBuildStarted();
+
+		void onBuilt(BuildStats stats);
+
+	}
+
+	public static class BuildStats {
+		int threads;
+		int wordsRead;
+		int shards;
+		int bytesWritten;
+		long wallTimeNanos;
+
+		public int getThreads() {
+			return threads;
+		}
+
+		/**
+		 * Words read from both dictionaries, including those in both.
+		 */
+		public int getWordsRead() {
+			return wordsRead;
+		}
+
+		public int getShards() {
+			return shards;
+		}
+
+		/**
+		 * Size of the serialized trie, which is written once to each output file.
+		 */
+		public int getBytesWritten() {
+			return bytesWritten;
+		}
+
+		public long getWallTimeNanos() {
+			return wallTimeNanos;
+		}
+
+		@Override
+		public String toString() {
+			return "read " + wordsRead + " words into " + shards + " shards, wrote " + bytesWritten
+					+ " bytes, using " + threads + " threads, in " + wallTimeNanos / 1000000 + "ms";
+		}
+	}
+
+	private static class WordReader implements Callable<List<String>> {
+		private final InputStream dictFile;
+
+		WordReader(InputStream dictFile) {
+			this.dictFile = dictFile;
+		}
+
+		@Override
+		public List<String> call() throws IOException {
+			List<String> words = new ArrayList<>();
+			BufferedReader br = new BufferedReader(new InputStreamReader(dictFile));
+			String line;
+			while((line = br.readLine()) != null) {
+				words.add(line.toLowerCase(Locale.ENGLISH));
+			}
+			return words;
 		}
 	}
 
@@ -0,0 +1,293 @@
+package net.healeys.trie;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Solves boards on which any position can follow any other (see {@link Topology#isComplete()}),
+ * as in anagram modes. Searching over positions would try every ordering of the board's letters,
+ * so instead this walks the trie against how many of each token are left to use, and only works
+ * out which positions spell a word once it has been found. Each trie node is visited at most
+ * once, no matter how many times its letters appear on the board.
+ *
+ * Blanks ({@link TransitionMap#BLANK}) are only used for tokens which have run out, because
+ * using the token itself leaves at least as many words within reach.
+ *
+ * The path reported for each word is the one {@link StringTrie#solver(TransitionMap, WordFilter, int)}
+ * would report when searching over positions. That search reports the last path it finds, and on
+ * these boards any unused position with the right token (or a blank) can come next, so the last
+ * path takes the last such position at each step from which the rest of the word can still be
+ * spelt.
+ */
+class AnagramSolver {
+
+	private final StringTrie.Grid grid;
+	private final WordFilter filter;
+	private final int dialects;
+	private final Map<String, Solution> solutions;
+	private final TrieListener.SolveStats stats;
+	private final Cancellation.Check cancellation;
+
+	/**
+	 * Each different token on the board, how many of it there are, and how many of it haven't
+	 * been used yet.
+	 */
+	private final String[] tokens;
+	private final Map<String, Integer> indexes = new HashMap<>();
+	private final int[] counts;
+	private final int[] remaining;
+
+	private final int blankCount;
+	private int blanksRemaining;
+
+	/**
+	 * Index into {@link #tokens} of the value at each position, or -1 for blanks.
+	 */
+	private final int[] tokenAt;
+
+	/**
+	 * Index into {@link #tokens} of each token in the current prefix, or -1 for tokens which
+	 * aren't on the board and so can only come from a blank.
+	 */
+	private final int[] path;
+
+	/**
+	 * Positions in the reverse of the order the search over positions tries them, for the first
+	 * token of a word and then for every token after it.
+	 */
+	private final int[] lastStarts;
+	private final int[] lastSteps;
+
+	/**
+	 * Working space for {@link #positionsOf(int)}.
+	 */
+	private final boolean[] used;
+	private final int[] unused;
+	private final int[] needed;
+
+	private final StringBuilder prefix;
+
+	/**
+	 * @param stats If null, then no statistics are collected.
+	 */
+	AnagramSolver(StringTrie.Grid grid, WordFilter filter, int dialects, Map<String, Solution> solutions, TrieListener.SolveStats stats, Cancellation.Check cancellation) {
+		this.grid = grid;
+		this.filter = filter;
+		this.dialects = dialects;
+		this.solutions = solutions;
+		this.stats = stats;
+		this.cancellation = cancellation;
+
+		int cells = grid.values.length;
+		int blanks = 0;
+		tokenAt = new int[cells];
+		for (int position = 0; position < cells; position ++) {
+			if (grid.blanks[position]) {
+				tokenAt[position] = -1;
+				blanks ++;
+				continue;
+			}
+
+			Integer index = indexes.get(grid.values[position]);
+			if (index == null) {
+				index = indexes.size();
+				indexes.put(grid.values[position], index);
+			}
+			tokenAt[position] = index;
+		}
+
+		blankCount = blanksRemaining = blanks;
+		tokens = new String[indexes.size()];
+		counts = new int[indexes.size()];
+		for (Map.Entry<String, Integer> entry : indexes.entrySet()) {
+			tokens[entry.getValue()] = entry.getKey();
+		}
+		for (int position = 0; position < cells; position ++) {
+			if (tokenAt[position] >= 0) {
+				counts[tokenAt[position]] ++;
+			}
+		}
+		remaining = counts.clone();
+
+		int width = grid.topology.getWidth();
+		int height = grid.topology.getHeight();
+		lastStarts = new int[cells];
+		lastSteps = new int[cells];
+		for (int i = 0; i < cells; i ++) {
+			lastStarts[i] = cells - 1 - i;
+			lastSteps[i] = (width - 1 - i / height) + width * (height - 1 - i % height);
+		}
+
+		path = new int[cells];
+		used = new boolean[cells];
+		unused = new int[tokens.length];
+		needed = new int[tokens.length];
+		prefix = new StringBuilder(cells + 1);
+	}
+
+	void solve(StringTrie.Node root) {
+		walkChildren(root, 0);
+	}
+
+	private void walk(StringTrie.Node node, int depth) {
+		if (cancellation.shouldStop()) {
+			return;
+		}
+
+		if (stats != null) {
+			stats.nodesVisited ++;
+		}
+
+		if ((node.dialects() & dialects) != 0) {
+			String word = prefix.toString();
+			if (filter == null || filter.isWord(word)) {
+				solutions.put(word, new StringTrie.StringSolution(word, positionsOf(depth)));
+
+				if (stats != null) {
+					stats.wordsEmitted ++;
+				}
+			}
+		}
+
+		if (!node.isTail()) {
+			walkChildren(node, depth);
+		}
+	}
+
+	private void walkChildren(StringTrie.Node node, int depth) {
+		if (blanksRemaining > 0) {
+			walkEveryChild(node, depth);
+			return;
+		}
+
+		for (int token = 0; token < tokens.length && !cancellation.isStopped(); token ++) {
+			if (remaining[token] == 0) {
+				continue;
+			}
+
+			StringTrie.Node child = node.maybeChildAt(tokens[token]);
+			if (child == null) {
+				if (stats != null) {
+					stats.branchesPruned ++;
+				}
+				continue;
+			}
+
+			remaining[token] --;
+			path[depth] = token;
+			prefix.append(tokens[token]);
+
+			walk(child, depth + 1);
+
+			prefix.setLength(prefix.length() - tokens[token].length());
+			remaining[token] ++;
+		}
+	}
+
+	/**
+	 * With a blank left, every child of {@param node} is within reach, rather than only those
+	 * for the tokens left on the board.
+	 */
+	private void walkEveryChild(StringTrie.Node node, int depth) {
+		for (Map.Entry<String, StringTrie.Node> entry : node.getChildren().entrySet()) {
+			StringTrie.Node child = entry.getValue();
+			if (child.isTail() && (child.dialects() & dialects) == 0) {
+				if (stats != null) {
+					stats.branchesPruned ++;
+				}
+				continue;
+			}
+
+			String label = entry.getKey();
+			Integer index = indexes.get(label);
+			int token = index == null ? -1 : index;
+			boolean useBlank = token < 0 || remaining[token] == 0;
+
+			if (useBlank) {
+				blanksRemaining --;
+			} else {
+				remaining[token] --;
+			}
+			path[depth] = token;
+			prefix.append(label);
+
+			walk(child, depth + 1);
+
+			prefix.setLength(prefix.length() - label.length());
+			if (useBlank) {
+				blanksRemaining ++;
+			} else {
+				remaining[token] ++;
+			}
+
+			if (cancellation.isStopped()) {
+				return;
+			}
+		}
+	}
+
+	private Integer[] positionsOf(int length) {
+		System.arraycopy(counts, 0, unused, 0, counts.length);
+		int blanksUnused = blankCount;
+
+		Integer[] positions = new Integer[length];
+		for (int i = 0; i < length; i ++) {
+			for (int position : i == 0 ? lastStarts : lastSteps) {
+				int token = tokenAt[position];
+				if (used[position] || token >= 0 && token != path[i]) {
+					continue;
+				}
+
+				// Without blanks, any position with the right token will do.
+				if (blankCount > 0) {
+					if (token < 0) {
+						blanksUnused --;
+					} else {
+						unused[token] --;
+					}
+
+					if (!canSpell(i + 1, length, blanksUnused)) {
+						if (token < 0) {
+							blanksUnused ++;
+						} else {
+							unused[token] ++;
+						}
+						continue;
+					}
+				}
+
+				used[position] = true;
+				positions[i] = grid.positions[position];
+				break;
+			}
+		}
+
+		for (Integer position : positions) {
+			used[position] = false;
+		}
+		return positions;
+	}
+
+	/**
+	 * Whether the tokens in {@link #path} from {@param from} onwards can be spelt using the
+	 * tokens in {@link #unused} and {@param blanksUnused} blanks.
+	 */
+	private boolean canSpell(int from, int length, int blanksUnused) {
+		int blanksNeeded = 0;
+		for (int i = from; i < length; i ++) {
+			if (path[i] < 0) {
+				blanksNeeded ++;
+			} else if (++ needed[path[i]] > unused[path[i]]) {
+				blanksNeeded ++;
+			}
+		}
+
+		for (int i = from; i < length; i ++) {
+			if (path[i] >= 0) {
+				needed[path[i]] = 0;
+			}
+		}
+		return blanksNeeded <= blanksUnused;
+	}
+
+}
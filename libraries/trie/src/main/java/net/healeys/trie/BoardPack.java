@@ -0,0 +1,450 @@
+package net.healeys.trie;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Boards which have been generated and solved ahead of time, so that a game can be started on
+ * one without having to solve it first.
+ *
+ * Boards are grouped into sections, one for each board size, set of dialects and minimum word
+ * length they were solved for. Each section has an index with the offset of every board in it,
+ * so any board can be read straight out of the buffer (which can be a memory-mapped file) without
+ * reading anything before it.
+ *
+ * Words aren't stored, because they can be spelt from the board and the path taken to find them.
+ * Paths are sorted, and each only stores how many positions it shares with the path before it,
+ * followed by the rest of its steps. Boards are square grids, so each step is stored as which of
+ * the previous position's neighbours it goes to, in half a byte.
+ */
+public final class BoardPack {
+
+	private static final int MAGIC = 0x4c584231; // "LXB1"
+
+	private final ByteBuffer buffer;
+	private final String[] tokens;
+	private final List<Section> sections;
+
+	private BoardPack(ByteBuffer buffer, String[] tokens, List<Section> sections) {
+		this.buffer = buffer;
+		this.tokens = tokens;
+		this.sections = sections;
+	}
+
+	/**
+	 * Only reads the header. Boards are read from {@param buffer} as they are asked for, so it
+	 * must not be changed afterwards.
+	 */
+	public static BoardPack read(ByteBuffer buffer) throws IOException {
+		ByteBuffer header = buffer.duplicate();
+		try {
+			if (header.getInt() != MAGIC) {
+				throw new IOException("Not a board pack");
+			}
+
+			String[] tokens = new String[header.get() & 0xff];
+			for (int i = 0; i < tokens.length; i ++) {
+				byte[] bytes = new byte[header.get() & 0xff];
+				header.get(bytes);
+				tokens[i] = new String(bytes, "UTF-8");
+			}
+
+			List<Section> sections = new ArrayList<>();
+			BoardPack pack = new BoardPack(buffer, tokens, Collections.unmodifiableList(sections));
+			int sectionCount = header.get() & 0xff;
+			for (int i = 0; i < sectionCount; i ++) {
+				int boardSize = header.getShort() & 0xffff;
+				int dialects = header.getInt();
+				int minLength = header.get() & 0xff;
+				int boardCount = header.getInt();
+				int indexOffset = header.getInt();
+				if (boardCount < 0 || indexOffset < 0 || indexOffset + 4L * (boardCount + 1) > buffer.limit()) {
+					throw new IOException("Board pack section " + i + " is out of bounds");
+				}
+
+				sections.add(pack.new Section(boardSize, dialects, minLength, boardCount, indexOffset));
+			}
+			return pack;
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Board pack is truncated");
+		}
+	}
+
+	public List<Section> getSections() {
+		return sections;
+	}
+
+	/**
+	 * @return Null if there are no boards of this size solved for exactly these dialects and
+	 * minimum word length.
+	 */
+	public Section getSection(int boardSize, int dialects, int minLength) {
+		for (Section section : sections) {
+			if (section.boardSize == boardSize && section.dialects == dialects && section.minLength == minLength) {
+				return section;
+			}
+		}
+		return null;
+	}
+
+	public final class Section {
+
+		private final int boardSize;
+		private final int dialects;
+		private final int minLength;
+		private final int boardCount;
+		private final int indexOffset;
+		private final Topology topology;
+
+		private Section(int boardSize, int dialects, int minLength, int boardCount, int indexOffset) throws IOException {
+			this.boardSize = boardSize;
+			this.dialects = dialects;
+			this.minLength = minLength;
+			this.boardCount = boardCount;
+			this.indexOffset = indexOffset;
+			this.topology = gridOf(boardSize);
+		}
+
+		public int getBoardSize() {
+			return boardSize;
+		}
+
+		public int getDialects() {
+			return dialects;
+		}
+
+		public int getMinLength() {
+			return minLength;
+		}
+
+		public int getBoardCount() {
+			return boardCount;
+		}
+
+		/**
+		 * The number of words on board {@param index}, without reading the rest of it.
+		 */
+		public int getWordCount(int index) {
+			return buffer.getShort(offsetOf(index) + boardSize) & 0xffff;
+		}
+
+		public Entry get(int index) {
+			int offset = offsetOf(index);
+
+			String[] letters = new String[boardSize];
+			for (int i = 0; i < boardSize; i ++) {
+				letters[i] = tokens[buffer.get(offset ++) & 0xff];
+			}
+
+			int wordCount = buffer.getShort(offset) & 0xffff;
+			offset += 2;
+
+			Map<String, Solution> solutions = new LinkedHashMap<>(wordCount * 4 / 3 + 1);
+			int[] path = new int[boardSize];
+			StringBuilder word = new StringBuilder();
+			for (int i = 0; i < wordCount; i ++) {
+				int shared;
+				int length;
+				int lengths = buffer.get(offset ++) & 0xff;
+				if (lengths == ESCAPE) {
+					shared = buffer.get(offset ++) & 0xff;
+					length = shared + (buffer.get(offset ++) & 0xff);
+				} else {
+					shared = lengths >> 4;
+					length = shared + (lengths & 0xf);
+				}
+
+				int step = shared;
+				if (step == 0) {
+					path[step ++] = buffer.get(offset ++) & 0xff;
+				}
+
+				for (int nibble = 0; step < length; nibble ++, step ++) {
+					int neighbour = nibble % 2 == 0 ? (buffer.get(offset) & 0xff) >> 4 : buffer.get(offset ++) & 0xf;
+					path[step] = topology.neighbours[path[step - 1]][neighbour];
+				}
+
+				if ((length - Math.max(shared, 1)) % 2 == 1) {
+					offset ++;
+				}
+
+				word.setLength(0);
+				Integer[] positions = new Integer[length];
+				for (int j = 0; j < length; j ++) {
+					positions[j] = path[j];
+					word.append(letters[path[j]]);
+				}
+
+				String spelt = word.toString();
+				solutions.put(spelt, new Solution.Default(spelt, positions));
+			}
+
+			return new Entry(letters, solutions);
+		}
+
+		private int offsetOf(int index) {
+			if (index < 0 || index >= boardCount) {
+				throw new IndexOutOfBoundsException("Board " + index + " of " + boardCount);
+			}
+
+			return buffer.getInt(indexOffset + 4 * index);
+		}
+
+	}
+
+	/**
+	 * Written instead of the lengths of a path when the number of positions it shares with the
+	 * path before it, or the number after that, don't fit in half a byte.
+	 */
+	private static final int ESCAPE = 0xff;
+
+	private static Topology gridOf(int boardSize) throws IOException {
+		int width = (int) Math.round(Math.sqrt(boardSize));
+		if (width * width != boardSize) {
+			throw new IOException("Board packs only hold square boards, not " + boardSize + " positions");
+		}
+		return Topology.grid(width, width);
+	}
+
+	public static final class Entry {
+
+		private final String[] letters;
+		private final Map<String, Solution> solutions;
+
+		private Entry(String[] letters, Map<String, Solution> solutions) {
+			this.letters = letters;
+			this.solutions = solutions;
+		}
+
+		public String[] getLetters() {
+			return letters;
+		}
+
+		public Map<String, Solution> getSolutions() {
+			return solutions;
+		}
+
+	}
+
+	/**
+	 * Collects boards in memory, and then writes them all out as a pack.
+	 */
+	public static final class Writer {
+
+		private final List<String> tokens = new ArrayList<>();
+		private final Map<String, Integer> tokenIndexes = new HashMap<>();
+		private final Map<List<Integer>, List<byte[]>> sections = new LinkedHashMap<>();
+
+		/**
+		 * @param solutions Every word on the board. Blanks aren't supported, so each word must be
+		 *                  exactly the letters along its path.
+		 */
+		public void add(int dialects, int minLength, String[] letters, Collection<Solution> solutions) {
+			if (letters.length > 0xff) {
+				throw new IllegalArgumentException("Boards can have at most 255 positions");
+			}
+
+			if (solutions.size() > 0xffff) {
+				throw new IllegalArgumentException("Boards can have at most 65535 words");
+			}
+
+			Topology topology;
+			try {
+				topology = gridOf(letters.length);
+			} catch (IOException e) {
+				throw new IllegalArgumentException(e.getMessage());
+			}
+
+			List<Integer> key = Arrays.asList(letters.length, dialects, minLength);
+			List<byte[]> boards = sections.get(key);
+			if (boards == null) {
+				boards = new ArrayList<>();
+				sections.put(key, boards);
+			}
+
+			boards.add(encode(letters, topology, solutions));
+		}
+
+		private byte[] encode(String[] letters, Topology topology, Collection<Solution> solutions) {
+			List<Integer[]> paths = new ArrayList<>(solutions.size());
+			for (Solution solution : solutions) {
+				Integer[] positions = solution.getPositions();
+				StringBuilder spelt = new StringBuilder();
+				for (Integer position : positions) {
+					spelt.append(letters[position]);
+				}
+
+				if (!spelt.toString().equals(solution.getWord())) {
+					throw new IllegalArgumentException("\"" + solution.getWord() + "\" isn't spelt by its path");
+				}
+				paths.add(positions);
+			}
+
+			Collections.sort(paths, new Comparator<Integer[]>() {
+				@Override
+				public int compare(Integer[] a, Integer[] b) {
+					for (int i = 0; i < a.length && i < b.length; i ++) {
+						if (!a[i].equals(b[i])) {
+							return a[i] < b[i] ? -1 : 1;
+						}
+					}
+					return a.length - b.length;
+				}
+			});
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			for (String letter : letters) {
+				bytes.write(tokenIndex(letter));
+			}
+
+			bytes.write(paths.size() >> 8);
+			bytes.write(paths.size());
+
+			Integer[] previous = new Integer[0];
+			for (Integer[] path : paths) {
+				int shared = 0;
+				while (shared < previous.length && shared < path.length && previous[shared].equals(path[shared])) {
+					shared ++;
+				}
+
+				int suffix = path.length - shared;
+				if (shared < 0xf && suffix < 0xf) {
+					bytes.write(shared << 4 | suffix);
+				} else {
+					bytes.write(ESCAPE);
+					bytes.write(shared);
+					bytes.write(suffix);
+				}
+
+				int step = shared;
+				if (step == 0) {
+					bytes.write(path[step ++]);
+				}
+
+				int pending = -1;
+				for (; step < path.length; step ++) {
+					int neighbour = neighbourIndex(topology, path[step - 1], path[step]);
+					if (neighbour < 0 || neighbour > 0xf) {
+						throw new IllegalArgumentException("Path steps from " + path[step - 1] + " to " + path[step] + ", which aren't neighbours");
+					}
+
+					if (pending < 0) {
+						pending = neighbour;
+					} else {
+						bytes.write(pending << 4 | neighbour);
+						pending = -1;
+					}
+				}
+
+				if (pending >= 0) {
+					bytes.write(pending << 4);
+				}
+				previous = path;
+			}
+
+			return bytes.toByteArray();
+		}
+
+		private static int neighbourIndex(Topology topology, int from, int to) {
+			int[] neighbours = topology.neighbours[from];
+			for (int i = 0; i < neighbours.length; i ++) {
+				if (neighbours[i] == to) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		private int tokenIndex(String token) {
+			Integer index = tokenIndexes.get(token);
+			if (index == null) {
+				if (tokens.size() > 0xff) {
+					throw new IllegalArgumentException("Board packs can have at most 256 different letters");
+				}
+
+				index = tokens.size();
+				tokens.add(token);
+				tokenIndexes.put(token, index);
+			}
+			return index;
+		}
+
+		public void write(OutputStream out) throws IOException {
+			if (sections.size() > 0xff) {
+				throw new IllegalStateException("Board packs can have at most 255 sections");
+			}
+
+			ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+			DataOutputStream header = new DataOutputStream(headerBytes);
+			header.writeInt(MAGIC);
+			header.writeByte(tokens.size());
+			for (String token : tokens) {
+				byte[] bytes = utf8(token);
+				header.writeByte(bytes.length);
+				header.write(bytes);
+			}
+
+			// Each section's entry in the header is 15 bytes, and its index comes straight after
+			// the header, followed by its boards.
+			int offset = headerBytes.size() + 1 + 15 * sections.size();
+			header.writeByte(sections.size());
+			for (Map.Entry<List<Integer>, List<byte[]>> section : sections.entrySet()) {
+				List<Integer> key = section.getKey();
+				List<byte[]> boards = section.getValue();
+				header.writeShort(key.get(0));
+				header.writeInt(key.get(1));
+				header.writeByte(key.get(2));
+				header.writeInt(boards.size());
+				header.writeInt(offset);
+
+				offset += 4 * (boards.size() + 1);
+				for (byte[] board : boards) {
+					offset += board.length;
+				}
+			}
+
+			DataOutputStream output = new DataOutputStream(out);
+			output.write(headerBytes.toByteArray());
+
+			offset = headerBytes.size();
+			for (List<byte[]> boards : sections.values()) {
+				int boardOffset = offset + 4 * (boards.size() + 1);
+				for (byte[] board : boards) {
+					output.writeInt(boardOffset);
+					boardOffset += board.length;
+				}
+				output.writeInt(boardOffset);
+
+				for (byte[] board : boards) {
+					output.write(board);
+				}
+				offset = boardOffset;
+			}
+			output.flush();
+		}
+
+		private static byte[] utf8(String token) {
+			try {
+				return token.getBytes("UTF-8");
+			} catch (UnsupportedEncodingException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,137 @@
+package net.healeys.trie;
+
+import java.util.Random;
+
+/**
+ * How many words, points and long words a board should have, so that boards which are too
+ * sparse or too easy can be thrown away before anyone plays them.
+ *
+ * Candidates are scored with a {@link WordCounter}. On a desktop JVM that takes about half as
+ * long as solving the board against a trie which is already loaded, but allocates nothing. About
+ * two in three boards land within a range as wide as those in a {@link BoardPack}, so only one
+ * or two are usually tried.
+ */
+public final class BoardTarget {
+
+	private int minWords = 0;
+	private int maxWords = Integer.MAX_VALUE;
+
+	private int[] pointsByLength;
+	private int minScore = 0;
+	private int maxScore = Integer.MAX_VALUE;
+
+	private int longWordLength = Integer.MAX_VALUE;
+	private int minLongWords = 0;
+	private int maxLongWords = Integer.MAX_VALUE;
+
+	public BoardTarget words(int min, int max) {
+		minWords = min;
+		maxWords = max;
+		return this;
+	}
+
+	/**
+	 * Targets the range of word counts of the boards in {@param section}, which BoardPackApp has
+	 * already narrowed down to those with a good number of words. Does nothing if it is empty.
+	 */
+	public BoardTarget wordsLike(BoardPack.Section section) {
+		if (section.getBoardCount() == 0) {
+			return this;
+		}
+
+		int min = Integer.MAX_VALUE;
+		int max = 0;
+		for (int i = 0; i < section.getBoardCount(); i ++) {
+			int words = section.getWordCount(i);
+			min = Math.min(min, words);
+			max = Math.max(max, words);
+		}
+		return words(min, max);
+	}
+
+	/**
+	 * @param pointsByLength Points for a word of each length. Words longer than this array get the
+	 *                       points for the longest length in it.
+	 */
+	public BoardTarget score(int[] pointsByLength, int min, int max) {
+		this.pointsByLength = pointsByLength.clone();
+		minScore = min;
+		maxScore = max;
+		return this;
+	}
+
+	/**
+	 * @param length Words with at least this many letters count as long.
+	 */
+	public BoardTarget longWords(int length, int min, int max) {
+		longWordLength = length;
+		minLongWords = min;
+		maxLongWords = max;
+		return this;
+	}
+
+	/**
+	 * Whether the board which was last counted by {@param counter} is within every range.
+	 */
+	public boolean accepts(WordCounter counter) {
+		return distance(counter) == 0;
+	}
+
+	/**
+	 * Draws boards until one is within every range, or until {@param maxAttempts} boards have
+	 * been tried, in which case the one which came closest is returned.
+	 */
+	public String[] generate(LetterGenerator generator, WordCounter counter, Topology topology, Random random, int maxAttempts) {
+		String[] best = null;
+		double bestDistance = Double.MAX_VALUE;
+		for (int attempt = 0; attempt < maxAttempts; attempt ++) {
+			String[] letters = generator.generateBoard(topology.getSize(), random);
+			counter.count(letters, topology);
+
+			double distance = distance(counter);
+			if (distance == 0) {
+				return letters;
+			}
+
+			if (distance < bestDistance) {
+				best = letters;
+				bestDistance = distance;
+			}
+		}
+		return best != null ? best : generator.generateBoard(topology.getSize(), random);
+	}
+
+	/**
+	 * How far outside of each range the board is, relative to the size of the range's bounds, or 0
+	 * if it is within all of them.
+	 */
+	private double distance(WordCounter counter) {
+		int longWords = 0;
+		int score = 0;
+		for (int length = 1; length <= counter.getMaxLength(); length ++) {
+			int words = counter.getWordCount(length);
+			if (length >= longWordLength) {
+				longWords += words;
+			}
+
+			if (pointsByLength != null && words > 0) {
+				score += words * pointsByLength[Math.min(length, pointsByLength.length - 1)];
+			}
+		}
+
+		return distance(counter.getWordCount(), minWords, maxWords)
+				+ distance(score, minScore, maxScore)
+				+ distance(longWords, minLongWords, maxLongWords);
+	}
+
+	private static double distance(int value, int min, int max) {
+		if (value < min) {
+			return (min - value) / (double) min;
+		} else if (value > max) {
+			return (value - max) / (double) Math.max(max, 1);
+		} else {
+			return 0;
+		}
+	}
+
+}
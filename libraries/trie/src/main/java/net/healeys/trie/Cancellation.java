@@ -0,0 +1,100 @@
+package net.healeys.trie;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops a solve early, either once {@link #cancel()} is called (e.g. from another thread) or once
+ * a deadline passes. Solvers only check it every so many trie nodes, so that checking stays
+ * cheap, which means a solve may run on for a moment after being cancelled.
+ *
+ * Once cancelled it stays cancelled, so the same instance can be shared by every solve which
+ * belongs to a single request.
+ */
+public class Cancellation {
+
+	private final boolean hasDeadline;
+
+	/**
+	 * In terms of {@link System#nanoTime()}.
+	 */
+	private final long deadline;
+
+	private volatile boolean cancelled;
+
+	/**
+	 * Only cancelled by calling {@link #cancel()}.
+	 */
+	public Cancellation() {
+		this(false, 0);
+	}
+
+	private Cancellation(boolean hasDeadline, long deadline) {
+		this.hasDeadline = hasDeadline;
+		this.deadline = deadline;
+	}
+
+	/**
+	 * Cancelled once {@param timeout} has passed from now, or by calling {@link #cancel()}.
+	 */
+	public static Cancellation after(long timeout, TimeUnit unit) {
+		return new Cancellation(true, System.nanoTime() + unit.toNanos(timeout));
+	}
+
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		if (!cancelled && hasDeadline && System.nanoTime() - deadline >= 0) {
+			cancelled = true;
+		}
+		return cancelled;
+	}
+
+	/**
+	 * Counts the nodes visited by one solve, and only checks the {@link Cancellation} every
+	 * {@link #INTERVAL} nodes. Not thread safe, so each solve needs its own.
+	 */
+	static class Check {
+
+		static final int INTERVAL = 1024;
+
+		private final Cancellation cancellation;
+
+		/**
+		 * Starts at one, so that a solve which is already cancelled stops straight away.
+		 */
+		private int untilNextCheck = 1;
+
+		private boolean stopped;
+
+		/**
+		 * @param cancellation If null, the solve is never stopped.
+		 */
+		Check(Cancellation cancellation) {
+			this.cancellation = cancellation;
+		}
+
+		/**
+		 * Called once for each node visited.
+		 */
+		boolean shouldStop() {
+			if (cancellation == null || stopped) {
+				return stopped;
+			}
+
+			if (-- untilNextCheck > 0) {
+				return false;
+			}
+
+			untilNextCheck = INTERVAL;
+			stopped = cancellation.isCancelled();
+			return stopped;
+		}
+
+		boolean isStopped() {
+			return stopped;
+		}
+	}
+
+}
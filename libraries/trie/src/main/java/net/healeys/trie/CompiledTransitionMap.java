@@ -0,0 +1,16 @@
+package net.healeys.trie;
+
+/**
+ * A board which already knows the neighbours of each of its positions, so that solvers and
+ * loaders can use its {@link Topology} directly rather than compiling one from
+ * {@link #canTransition(int, int, int, int)}.
+ */
+public interface CompiledTransitionMap extends TransitionMap {
+
+	/**
+	 * Must agree with {@link #canTransition(int, int, int, int)}, and have the same width and
+	 * height as this board.
+	 */
+	Topology getTopology();
+
+}
@@ -12,4 +12,14 @@ public interface Deserializer<T extends Trie> {
      */
     T deserialize(InputStream stream, TransitionMap transitionMap, boolean usDict, boolean ukDict) throws IOException;
 
+    /**
+     * Same as {@link #deserialize(InputStream, TransitionMap, boolean, boolean)}, but keeps words
+     * from any of the {@link Languages} in the {@param dialects} bitmask. Passing
+     * {@link Languages#ALL} gives a trie which can answer queries for each dialect in turn.
+     *
+     * If {@param transitionMap} is null, then nothing is pruned based on the letters of a board,
+     * and the entire dictionary is loaded.
+     */
+    T deserialize(InputStream stream, TransitionMap transitionMap, int dialects) throws IOException;
+
 }
@@ -0,0 +1,101 @@
+package net.healeys.trie;
+
+import java.util.Arrays;
+
+/**
+ * A board where positions can't be revisited, and each position can transition to its neighbours
+ * in a {@link Topology}. By default these are any of its (up to eight) neighbours on a rectangular
+ * grid, which are the same rules as the app's boards, but without any dependency on Android, so
+ * boards can be solved by tools outside the app.
+ */
+public class GridTransitionMap implements CompiledTransitionMap {
+
+	private final String[] letters;
+	private final Topology topology;
+
+	/**
+	 * @param letters One value per position, row by row. There must be a square number of them.
+	 */
+	public GridTransitionMap(String[] letters) {
+		this(letters, squareWidth(letters));
+	}
+
+	/**
+	 * @param letters One value per position, row by row. There must be a whole number of rows.
+	 */
+	public GridTransitionMap(String[] letters, int width) {
+		if (width < 1 || letters.length % width != 0) {
+			throw new IllegalArgumentException("Board with " + letters.length + " positions can't be " + width + " wide.");
+		}
+
+		this.letters = letters;
+		this.topology = Topology.grid(width, letters.length / width);
+	}
+
+	/**
+	 * @param letters One value per position of {@param topology}.
+	 */
+	public GridTransitionMap(String[] letters, Topology topology) {
+		if (letters.length != topology.getSize()) {
+			throw new IllegalArgumentException("Board with " + letters.length + " positions doesn't fit a topology of " + topology.getSize() + ".");
+		}
+
+		this.letters = letters;
+		this.topology = topology;
+	}
+
+	private static int squareWidth(String[] letters) {
+		int width = (int) Math.round(Math.sqrt(letters.length));
+		if (width * width != letters.length) {
+			throw new IllegalArgumentException("Board must be square, but has " + letters.length + " positions.");
+		}
+		return width;
+	}
+
+	@Override
+	public boolean canTransition(int fromX, int fromY, int toX, int toY) {
+		int width = topology.getWidth();
+		int height = topology.getHeight();
+		if (fromX < 0 || fromY < 0 || toX < 0 || toY < 0 || fromX >= width || fromY >= height || toX >= width || toY >= height) {
+			return false;
+		}
+
+		return topology.isAdjacent(fromX + width * fromY, toX + width * toY);
+	}
+
+	@Override
+	public String valueAt(int position) {
+		return letters[position];
+	}
+
+	@Override
+	public int getSize() {
+		return letters.length;
+	}
+
+	@Override
+	public int getWidth() {
+		return topology.getWidth();
+	}
+
+	@Override
+	public int getHeight() {
+		return topology.getHeight();
+	}
+
+	@Override
+	public Topology getTopology() {
+		return topology;
+	}
+
+	@Override
+	public boolean canRevisit() {
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(letters);
+	}
+
+}
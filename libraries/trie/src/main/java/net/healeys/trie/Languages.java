@@ -1,6 +1,27 @@
 package net.healeys.trie;
 
+/**
+ * Each dialect is assigned a single bit, so that a terminal node in a trie can record every
+ * dialect it is a word in as one bitmask. Queries against the trie then pass the mask of the
+ * dialect(s) they are interested in, rather than having the dialect baked in at load time.
+ *
+ * Masks are serialized as an unsigned short, so there is room for up to 16 dialects.
+ */
 public enum Languages {
 	EN_US,
-	EN_GB
+	EN_GB;
+
+	/**
+	 * Mask which matches a word in any dialect. Use this when loading a dictionary which should
+	 * be able to answer queries about every dialect.
+	 */
+	public static final int ALL = (1 << values().length) - 1;
+
+	public int getMask() {
+		return 1 << ordinal();
+	}
+
+	public static int mask(boolean usWord, boolean ukWord) {
+		return (usWord ? EN_US.getMask() : 0) | (ukWord ? EN_GB.getMask() : 0);
+	}
 }
@@ -0,0 +1,242 @@
+package net.healeys.trie;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Draws the letters for new boards.
+ *
+ * Each line of the letters file is a letter followed by one or more weights. The first weight is
+ * how likely that letter is to be drawn the first time, the second how likely it is to be drawn
+ * again once it is already on the board, and so on. Once its weights run out, it isn't drawn again.
+ *
+ * Letters are drawn from an {@link AliasTable}, which picks one in constant time however many
+ * there are. The table is built from the largest weight each letter could still have, so as a
+ * letter's weight goes down it is rejected more often, in proportion, and so is still drawn
+ * by its current weight. Once rejections would happen more often than not, a new table is
+ * built from the weights which are left.
+ */
+public class LetterGenerator {
+
+	private final String[] letters;
+	private final int[][] weights;
+
+	/**
+	 * The largest weight each letter could have once it has been drawn a number of times, with
+	 * a 0 on the end for when its weights have run out.
+	 */
+	private final int[][] maxWeights;
+
+	/**
+	 * Built from each letter's largest weight, and shared by every board until its weights are
+	 * used up.
+	 */
+	private final AliasTable table;
+
+	public LetterGenerator(InputStream stream) throws IOException {
+		List<String> letters = new ArrayList<>();
+		List<int[]> weights = new ArrayList<>();
+
+		BufferedReader reader = new BufferedReader(new InputStreamReader(stream, "UTF-8"));
+		for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+			String[] chunks = line.trim().toLowerCase(Locale.ENGLISH).split(" ");
+			if (chunks[0].isEmpty()) {
+				continue;
+			}
+
+			int[] letterWeights = new int[chunks.length - 1];
+			for (int i = 1; i < chunks.length; i ++) {
+				letterWeights[i - 1] = Integer.parseInt(chunks[i]);
+				if (letterWeights[i - 1] < 0) {
+					throw new IOException("Negative weight for " + chunks[0]);
+				}
+			}
+
+			letters.add(chunks[0]);
+			weights.add(letterWeights);
+		}
+
+		this.letters = letters.toArray(new String[letters.size()]);
+		this.weights = weights.toArray(new int[weights.size()][]);
+
+		maxWeights = new int[this.letters.length][];
+		long total = 0;
+		for (int i = 0; i < this.letters.length; i ++) {
+			int[] letterWeights = this.weights[i];
+			maxWeights[i] = new int[letterWeights.length + 1];
+			for (int drawn = letterWeights.length - 1; drawn >= 0; drawn --) {
+				maxWeights[i][drawn] = Math.max(letterWeights[drawn], maxWeights[i][drawn + 1]);
+			}
+			total += maxWeights[i][0];
+		}
+		if (total > Integer.MAX_VALUE) {
+			throw new IOException("Letter weights add up to more than " + Integer.MAX_VALUE);
+		}
+
+		table = new AliasTable();
+		table.build(new int[this.letters.length]);
+	}
+
+	public String[] generateBoard(int size) {
+		return generateBoard(size, new SplitMixRandom(new Random().nextLong()));
+	}
+
+	/**
+	 * The same seed always gives the same board for the same letters file, on any JVM or Android
+	 * device, so a board can be shared by its seed alone.
+	 */
+	public String[] generateBoard(int size, long seed) {
+		return generateBoard(size, new SplitMixRandom(seed));
+	}
+
+	public String[] generateBoard(int size, Random rng) {
+		int[] drawn = new int[letters.length];
+		AliasTable table = this.table;
+		long remaining = 0;
+		for (int i = 0; i < letters.length; i ++) {
+			remaining += weight(i, 0);
+		}
+
+		String[] board = new String[size];
+		for (int i = 0; i < size; i ++) {
+			if (remaining <= 0) {
+				throw new IllegalArgumentException("Not enough letters for a board of " + size);
+			}
+
+			if (remaining * 2 < table.total) {
+				if (table == this.table) {
+					table = new AliasTable();
+				}
+				table.build(drawn);
+			}
+
+			int letter = table.draw(rng, drawn);
+			board[i] = letters[letter];
+			remaining -= weight(letter, drawn[letter]);
+			drawn[letter] ++;
+			remaining += weight(letter, drawn[letter]);
+		}
+
+		// Letters are drawn with different odds as the board fills up, so the order they were
+		// drawn in is shuffled away (Fisher-Yates).
+		for (int to = size - 1; to > 0; to --) {
+			int from = rng.nextInt(to + 1);
+			String tmp = board[to];
+			board[to] = board[from];
+			board[from] = tmp;
+		}
+
+		return board;
+	}
+
+	/**
+	 * How likely {@param letter} is to be drawn once it has been drawn {@param drawn} times already.
+	 */
+	private int weight(int letter, int drawn) {
+		int[] letterWeights = weights[letter];
+		return drawn < letterWeights.length ? letterWeights[drawn] : 0;
+	}
+
+	/**
+	 * Vose's alias method, in whole numbers. Each letter's bound is scaled by the number of
+	 * letters, so that every column of the table holds {@link #total}, made up of its own letter
+	 * and at most one other.
+	 */
+	private class AliasTable {
+
+		/**
+		 * The largest weight each letter could have while this table is used.
+		 */
+		final int[] bounds = new int[letters.length];
+		int total;
+
+		/**
+		 * Column i is letter i if a number below {@link #total} is less than keep[i], and letter
+		 * alias[i] otherwise.
+		 */
+		final int[] keep = new int[letters.length];
+		final int[] alias = new int[letters.length];
+
+		private final long[] scaled = new long[letters.length];
+		private final int[] small = new int[letters.length];
+		private final int[] large = new int[letters.length];
+
+		/**
+		 * (Re)builds the table for when each letter has been drawn {@param drawn} times.
+		 */
+		void build(int[] drawn) {
+			int count = letters.length;
+			total = 0;
+			for (int i = 0; i < count; i ++) {
+				bounds[i] = maxWeights[i][drawn[i]];
+				total += bounds[i];
+			}
+
+			int smallCount = 0;
+			int largeCount = 0;
+
+			for (int i = 0; i < count; i ++) {
+				scaled[i] = (long) bounds[i] * count;
+				if (scaled[i] < total) {
+					small[smallCount ++] = i;
+				} else {
+					large[largeCount ++] = i;
+				}
+			}
+
+			while (smallCount > 0 && largeCount > 0) {
+				int less = small[-- smallCount];
+				int more = large[largeCount - 1];
+
+				keep[less] = (int) scaled[less];
+				alias[less] = more;
+
+				scaled[more] -= total - scaled[less];
+				if (scaled[more] < total) {
+					largeCount --;
+					small[smallCount ++] = more;
+				}
+			}
+
+			// Whatever is left over fills its column exactly.
+			while (largeCount > 0) {
+				int i = large[-- largeCount];
+				keep[i] = total;
+				alias[i] = i;
+			}
+			while (smallCount > 0) {
+				int i = small[-- smallCount];
+				keep[i] = total;
+				alias[i] = i;
+			}
+		}
+
+		/**
+		 * Picks a letter by its bound, then only keeps it in proportion to how much of that bound
+		 * its current weight is.
+		 *
+		 * Rather than dividing, each number is scaled into range by multiplying 32 random bits and
+		 * keeping the top half, which is out by at most one part in 2^32.
+		 */
+		int draw(Random rng, int[] drawn) {
+			while (true) {
+				// One number picks both the column and which of its two letters.
+				long bits = rng.nextLong();
+				int column = (int) (((bits >>> 32) * keep.length) >>> 32);
+				int letter = ((bits & 0xffffffffL) * total) >>> 32 < keep[column] ? column : alias[column];
+
+				int weight = weight(letter, drawn[letter]);
+				if (weight > 0 && (weight == bounds[letter] || ((rng.nextLong() >>> 32) * bounds[letter]) >>> 32 < weight)) {
+					return letter;
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,481 @@
+package net.healeys.trie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Solves many boards with a single walk of a {@link StringTrie}, rather than walking the trie
+ * again from the root for each board.
+ *
+ * At each trie node, every path (on every board) which spells out that node's prefix is kept in
+ * a single list. Extending those paths by one more position groups them by the child they lead
+ * to, and only children which at least one path leads to are visited. The cost of visiting each
+ * trie node is therefore shared by all of the boards, and a child is only pruned once no board
+ * can reach it. Extending the paths themselves can't be shared between boards though, and that
+ * is most of the work. A batch of {@link #MAX_BOARDS} boards of the same size is only around 1.3
+ * to 1.6 times quicker per board than solving each board on its own (see SolverBenchmark in
+ * trie-benchmarks), so this is only worth it when solving boards in bulk.
+ *
+ * Results are identical to calling {@link StringTrie#solver(TransitionMap, WordFilter, int)} on
+ * each board, including which path is reported when a word can be found in more than one way.
+ * The trie should be loaded without a {@link TransitionMap}, so that it contains the words for
+ * every board. Anagram boards, whose {@link Topology#isComplete()}, are better solved one at a
+ * time by {@link StringTrie}, which doesn't search through every ordering of their letters.
+ * Boards with blanks ({@link TransitionMap#BLANK}) are always solved one at a time.
+ */
+public class MultiBoardSolver {
+
+	/**
+	 * The set of boards being solved is tracked as a bitmask, and so is the set of positions
+	 * visited by each path, so both are limited to the number of bits in a long.
+	 */
+	public static final int MAX_BOARDS = 64;
+	public static final int MAX_POSITIONS = 64;
+
+	private final StringTrie trie;
+
+	public MultiBoardSolver(StringTrie trie) {
+		this.trie = trie;
+	}
+
+	/**
+	 * @return The solutions for each board, in the same order as {@param boards}.
+	 */
+	public List<Map<String, Solution>> solve(List<? extends TransitionMap> boards, WordFilter filter, int dialects) {
+		List<Map<String, Solution>> solutions = new ArrayList<>(boards.size());
+		for (SolveResult result : solve(boards, filter, dialects, null)) {
+			solutions.add(result.getSolutions());
+		}
+		return solutions;
+	}
+
+	/**
+	 * Same as {@link #solve(List, WordFilter, int)}, but gives up once {@param cancellation} is
+	 * cancelled. As the boards share one walk of the trie, either every board is complete or
+	 * none of them are, apart from boards with blanks.
+	 *
+	 * @param cancellation If null, the solve always runs to completion.
+	 */
+	public List<SolveResult> solve(List<? extends TransitionMap> boards, WordFilter filter, int dialects, Cancellation cancellation) {
+		if (boards.size() > MAX_BOARDS) {
+			throw new IllegalArgumentException("Can solve at most " + MAX_BOARDS + " boards at once, but got " + boards.size() + ".");
+		}
+
+		// Paths are grouped by the values on the boards, but blanks can stand for tokens which
+		// aren't on any of them, so boards with blanks are solved on their own instead.
+		List<TransitionMap> shared = new ArrayList<>(boards.size());
+		for (TransitionMap board : boards) {
+			if (!StringTrie.hasBlank(board)) {
+				shared.add(board);
+			}
+		}
+
+		Walk walk = new Walk(shared, filter, dialects, new Cancellation.Check(cancellation));
+		walk.solve(trie.getRootNode());
+
+		List<SolveResult> results = new ArrayList<>(boards.size());
+		int next = 0;
+		for (TransitionMap board : boards) {
+			if (StringTrie.hasBlank(board)) {
+				results.add(trie.solver(board, filter, dialects, cancellation));
+			} else {
+				results.add(new SolveResult(walk.solutions.get(next ++), !walk.check.isStopped()));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * The state of one walk over the trie. Every distinct value on the boards is given a small
+	 * index, so that paths can be grouped by the child they lead to using plain arrays.
+	 */
+	private static class Walk {
+
+		private final WordFilter filter;
+		private final int dialects;
+		private final Cancellation.Check check;
+
+		private final List<Map<String, Solution>> solutions;
+		private final boolean[] canRevisit;
+
+		/**
+		 * For each board, the value at each position as an index into {@link #values}.
+		 */
+		private final int[][] valueIndexes;
+
+		/**
+		 * For each board, the positions which can be reached from each position, in the same
+		 * order as {@link StringTrie#solver(TransitionMap, WordFilter, int)} tries them. The paths
+		 * are therefore found in the same order, and the last one for each word wins, just as it
+		 * does there. The first entry is for a path which hasn't started yet, and lists every
+		 * position on the board.
+		 */
+		private final int[][][] neighbours;
+
+		/**
+		 * For each board and entry in {@link #neighbours}, a bitmask of the {@link #values} which
+		 * those neighbours have. Along with {@link #neighbourSlots}, this lets each path skip
+		 * straight to the neighbours which lead to a child of the current node, rather than
+		 * trying every one of them. Null if there are more values than bits in a long.
+		 */
+		private final long[][] neighbourValues;
+
+		/**
+		 * For each board and entry in {@link #neighbours}, which of those neighbours (as bits of
+		 * their index in that list) have each value in {@link #neighbourValues}, lowest value first.
+		 */
+		private final long[][][] neighbourSlots;
+
+		private final String[] values;
+
+		/**
+		 * Looks up the index of each value in {@link #values}. Almost every value is a single
+		 * letter, so those have a table of their own which avoids hashing.
+		 */
+		private final Map<String, Integer> indexes = new HashMap<>();
+		private final int[] singleCharIndexes = new int[128];
+
+		/**
+		 * Working space for each depth of the trie, reused by every node at that depth.
+		 */
+		private final List<Level> levels = new ArrayList<>();
+
+		private final StringBuilder prefix = new StringBuilder();
+
+		private final int[] lastPathForBoard;
+
+		Walk(List<? extends TransitionMap> boards, WordFilter filter, int dialects, Cancellation.Check check) {
+			this.filter = filter;
+			this.dialects = dialects;
+			this.check = check;
+
+			int boardCount = boards.size();
+			solutions = new ArrayList<>(boardCount);
+			canRevisit = new boolean[boardCount];
+			valueIndexes = new int[boardCount][];
+			neighbours = new int[boardCount][][];
+			lastPathForBoard = new int[boardCount];
+
+			List<String> values = new ArrayList<>();
+
+			for (int b = 0; b < boardCount; b ++) {
+				TransitionMap board = boards.get(b);
+				if (board.getWidth() * board.getHeight() > MAX_POSITIONS) {
+					throw new IllegalArgumentException("Boards can have at most " + MAX_POSITIONS + " positions.");
+				}
+
+				StringTrie.Grid grid = new StringTrie.Grid(board);
+				int cells = grid.values.length;
+
+				solutions.add(new TreeMap<String, Solution>());
+				canRevisit[b] = grid.canRevisit;
+
+				valueIndexes[b] = new int[cells];
+				for (int position = 0; position < cells; position ++) {
+					String value = grid.values[position];
+					Integer index = indexes.get(value);
+					if (index == null) {
+						index = values.size();
+						indexes.put(value, index);
+						values.add(value);
+					}
+					valueIndexes[b][position] = index;
+				}
+
+				neighbours[b] = new int[cells + 1][];
+				int[] starts = new int[board.getSize()];
+				for (int position = 0; position < starts.length; position ++) {
+					starts[position] = position;
+				}
+				neighbours[b][0] = starts;
+				System.arraycopy(grid.neighbours, 0, neighbours[b], 1, cells);
+			}
+
+			this.values = values.toArray(new String[values.size()]);
+
+			if (this.values.length <= 64) {
+				neighbourValues = new long[boardCount][];
+				neighbourSlots = new long[boardCount][][];
+				for (int b = 0; b < boardCount; b ++) {
+					groupNeighboursByValue(b);
+				}
+			} else {
+				neighbourValues = null;
+				neighbourSlots = null;
+			}
+
+			Arrays.fill(singleCharIndexes, -1);
+			for (int i = 0; i < this.values.length; i ++) {
+				String value = this.values[i];
+				if (value.length() == 1 && value.charAt(0) < singleCharIndexes.length) {
+					singleCharIndexes[value.charAt(0)] = i;
+				}
+			}
+		}
+
+		private void groupNeighboursByValue(int board) {
+			int[][] near = neighbours[board];
+			neighbourValues[board] = new long[near.length];
+			neighbourSlots[board] = new long[near.length][];
+
+			for (int from = 0; from < near.length; from ++) {
+				long present = 0;
+				for (int to : near[from]) {
+					present |= 1L << valueIndexes[board][to];
+				}
+
+				long[] slots = new long[Long.bitCount(present)];
+				for (int slot = 0; slot < near[from].length; slot ++) {
+					int value = valueIndexes[board][near[from][slot]];
+					slots[Long.bitCount(present & ((1L << value) - 1))] |= 1L << slot;
+				}
+
+				neighbourValues[board][from] = present;
+				neighbourSlots[board][from] = slots;
+			}
+		}
+
+		void solve(StringTrie.Node root) {
+			Paths start = new Paths();
+			for (int b = 0; b < solutions.size(); b ++) {
+				start.add(b, -1, 0, -1);
+			}
+
+			extend(root, start, 0);
+		}
+
+		/**
+		 * Extends each of the {@param paths} which lead to {@param node} by one more position,
+		 * then visits each child of the node which at least one path reached.
+		 */
+		private void extend(StringTrie.Node node, Paths paths, int depth) {
+			if (check.shouldStop()) {
+				return;
+			}
+
+			Level level = levelAt(depth);
+			level.current = paths;
+			level.visit ++;
+			level.reachedCount = 0;
+
+			Level next = levelAt(depth + 1);
+
+			long childValues = 0;
+			for (Map.Entry<String, StringTrie.Node> entry : node.getChildren().entrySet()) {
+				int value = indexOf(entry.getKey());
+				if (value >= 0) {
+					level.children[value] = entry.getValue();
+					level.isChild[value] = level.visit;
+					childValues |= 1L << value;
+				}
+			}
+
+			for (int i = 0; i < paths.size; i ++) {
+				int board = paths.boards[i];
+				int from = paths.positions[i] + 1;
+				long visited = paths.visited[i];
+				int[] near = neighbours[board][from];
+
+				if (neighbourValues == null) {
+					for (int to : near) {
+						if (level.isChild[valueIndexes[board][to]] == level.visit) {
+							reach(level, next, board, to, visited, i);
+						}
+					}
+					continue;
+				}
+
+				// Within each value, the neighbours are still tried in the same order as in
+				// StringTrie, which is all that decides which path is found last.
+				long present = neighbourValues[board][from];
+				long matching = present & childValues;
+				while (matching != 0) {
+					int value = Long.numberOfTrailingZeros(matching);
+					matching &= matching - 1;
+
+					long slots = neighbourSlots[board][from][Long.bitCount(present & ((1L << value) - 1))];
+					while (slots != 0) {
+						reach(level, next, board, near[Long.numberOfTrailingZeros(slots)], visited, i);
+						slots &= slots - 1;
+					}
+				}
+			}
+
+			// Visiting each child only uses the levels below this one, so nothing here is
+			// overwritten until the loop is done.
+			for (int r = 0; r < level.reachedCount && !check.isStopped(); r ++) {
+				int value = level.reached[r];
+				StringTrie.Node child = level.children[value];
+				Paths childPaths = next.paths[value];
+
+				prefix.append(values[value]);
+
+				if ((child.dialects() & dialects) != 0) {
+					addWord(childPaths, depth + 1);
+				}
+
+				if (!child.isTail()) {
+					extend(child, childPaths, depth + 1);
+				}
+
+				prefix.setLength(prefix.length() - values[value].length());
+			}
+		}
+
+		/**
+		 * Extends path {@param parent} on {@param board} to position {@param to}, unless it has
+		 * been there already.
+		 */
+		private void reach(Level level, Level next, int board, int to, long visited, int parent) {
+			long bit = 1L << to;
+			if ((visited & bit) != 0) {
+				return;
+			}
+
+			int value = valueIndexes[board][to];
+			if (level.isReached[value] != level.visit) {
+				level.isReached[value] = level.visit;
+				level.reached[level.reachedCount ++] = value;
+				next.paths[value].clear();
+			}
+
+			next.paths[value].add(board, to, canRevisit[board] ? 0 : visited | bit, parent);
+		}
+
+		/**
+		 * Records the word spelled out by the current prefix against each board which has a path
+		 * for it. If a board has more than one path, the last one wins.
+		 */
+		private void addWord(Paths paths, int depth) {
+			String word = prefix.toString();
+			if (filter != null && !filter.isWord(word)) {
+				return;
+			}
+
+			long boards = 0;
+			for (int i = 0; i < paths.size; i ++) {
+				boards |= 1L << paths.boards[i];
+				lastPathForBoard[paths.boards[i]] = i;
+			}
+
+			while (boards != 0) {
+				int board = Long.numberOfTrailingZeros(boards);
+				boards &= boards - 1;
+
+				Integer[] positions = new Integer[depth];
+				Paths current = paths;
+				int i = lastPathForBoard[board];
+				for (int d = depth; d > 0; d --) {
+					positions[d - 1] = current.positions[i];
+					i = current.parents[i];
+					current = levels.get(d - 1).current;
+				}
+
+				solutions.get(board).put(word, new StringTrie.StringSolution(word, positions));
+			}
+		}
+
+		/**
+		 * @return The index of {@param value} in {@link #values}, or -1 if it isn't on any board.
+		 */
+		private int indexOf(String value) {
+			if (value.length() == 1 && value.charAt(0) < singleCharIndexes.length) {
+				return singleCharIndexes[value.charAt(0)];
+			}
+
+			Integer index = indexes.get(value);
+			return index == null ? -1 : index;
+		}
+
+		/**
+		 * Boards which allow revisiting are only limited by the depth of the trie, so levels are
+		 * created as they are needed.
+		 */
+		private Level levelAt(int depth) {
+			while (levels.size() <= depth) {
+				levels.add(new Level(values.length));
+			}
+			return levels.get(depth);
+		}
+
+	}
+
+	private static class Level {
+
+		/**
+		 * The paths being extended from the trie node currently being visited at this depth.
+		 */
+		Paths current;
+
+		/**
+		 * Paths which have reached this depth, grouped by the value of the position they ended on.
+		 */
+		final Paths[] paths;
+
+		/**
+		 * Children of the current node, indexed by value. Rather than clearing these arrays at
+		 * every node, each entry records the {@link #visit} it was set in, and entries from
+		 * earlier visits are ignored.
+		 */
+		final StringTrie.Node[] children;
+		final int[] isChild;
+		int visit;
+
+		/**
+		 * Values which at least one path reached from the current node, in the order they were
+		 * first reached.
+		 */
+		final int[] reached;
+		final int[] isReached;
+		int reachedCount;
+
+		Level(int valueCount) {
+			paths = new Paths[valueCount];
+			for (int i = 0; i < valueCount; i ++) {
+				paths[i] = new Paths();
+			}
+
+			children = new StringTrie.Node[valueCount];
+			isChild = new int[valueCount];
+			isReached = new int[valueCount];
+			reached = new int[valueCount];
+		}
+	}
+
+	/**
+	 * A growable list of paths, stored as parallel arrays. Each path only records its last
+	 * position, along with the index of the path it extends at the previous depth.
+	 */
+	private static class Paths {
+		int size;
+		int[] boards = new int[16];
+		int[] positions = new int[16];
+		long[] visited = new long[16];
+		int[] parents = new int[16];
+
+		void clear() {
+			size = 0;
+		}
+
+		void add(int board, int position, long visited, int parent) {
+			if (size == boards.length) {
+				int capacity = size * 2;
+				boards = Arrays.copyOf(boards, capacity);
+				positions = Arrays.copyOf(positions, capacity);
+				this.visited = Arrays.copyOf(this.visited, capacity);
+				parents = Arrays.copyOf(parents, capacity);
+			}
+
+			boards[size] = board;
+			positions[size] = position;
+			this.visited[size] = visited;
+			parents[size] = parent;
+			size ++;
+		}
+	}
+
+}
@@ -0,0 +1,218 @@
+package net.healeys.trie;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Layers a small, mutable set of user-added and user-blocked words over a (usually much larger)
+ * base trie, without having to rebuild or reload the base.
+ *
+ * The base, added and blocked words are each kept in their own {@link StringTrie}, and are walked
+ * together as if they were one: each step down the overlay takes the same step in all three. Only
+ * the paths which the added or blocked words share with the base need combining, so elsewhere the
+ * base trie's own nodes are used as they are. A node is a word in the dialects it was added in,
+ * plus those it is a word in the base for but hasn't been blocked in. So solving a board is a
+ * single walk, and {@link #write(OutputStream)} writes the combined trie.
+ *
+ * Changes can be persisted by recording them in a {@link WordJournal} and restored using
+ * {@link #load(InputStream)}.
+ */
+public class OverlayTrie implements Trie {
+
+	private final StringTrie base;
+	private final StringTrie added = new StringTrie();
+	private final StringTrie blocked = new StringTrie();
+
+	/**
+	 * The combined root, kept between walks so that the nodes below it only need combining once.
+	 * Thrown away whenever a word is added or blocked.
+	 */
+	private volatile StringTrie.Node root;
+
+	public OverlayTrie(StringTrie base) {
+		this.base = base;
+	}
+
+	/**
+	 * Replays a {@link WordJournal} on top of any changes already made to this overlay.
+	 */
+	public void load(InputStream journal) throws IOException {
+		WordJournal.replay(journal, new WordJournal.Handler() {
+			@Override
+			public void onAdded(String word, int dialects) {
+				addWord(word, dialects);
+			}
+
+			@Override
+			public void onBlocked(String word, int dialects) {
+				blockWord(word, dialects);
+			}
+		});
+	}
+
+	@Override
+	public void addWord(String w, boolean usWord, boolean ukWord) {
+		addWord(w, Languages.mask(usWord, ukWord));
+	}
+
+	@Override
+	public void addWord(String w, int dialects) {
+		blocked.removeWord(w, dialects);
+		added.addWord(w, dialects);
+		root = null;
+	}
+
+	public void blockWord(String w, int dialects) {
+		added.removeWord(w, dialects);
+		blocked.addWord(w, dialects);
+		root = null;
+	}
+
+	@Override
+	public boolean isWord(String w, boolean usWord, boolean ukWord) {
+		return isWord(w, Languages.mask(usWord, ukWord));
+	}
+
+	@Override
+	public boolean isWord(String w, int dialects) {
+		return root().isWord(w, 0, dialects);
+	}
+
+	@Override
+	public boolean isWord(String w) {
+		return isWord(w, Languages.ALL);
+	}
+
+	/**
+	 * Writes the base trie with the added and blocked words applied, in the same format as
+	 * {@link StringTrie#write(OutputStream)}.
+	 */
+	@Override
+	public void write(OutputStream out) throws IOException {
+		root().writeNode(out);
+	}
+
+	@Override
+	public Map<String, Solution> solver(TransitionMap m, WordFilter filter) {
+		return solver(m, filter, Languages.ALL);
+	}
+
+	@Override
+	public Map<String, Solution> solver(TransitionMap m, WordFilter filter, int dialects) {
+		return solver(m, filter, dialects, null).getSolutions();
+	}
+
+	@Override
+	public SolveResult solver(TransitionMap m, WordFilter filter, int dialects, Cancellation cancellation) {
+		return base.solve(root(), m, filter, dialects, cancellation);
+	}
+
+	private StringTrie.Node root() {
+		StringTrie.Node root = this.root;
+		if (root == null) {
+			root = Merged.of(base.getRootNode(), added.getRootNode(), blocked.getRootNode());
+			this.root = root;
+		}
+		return root;
+	}
+
+	/**
+	 * The same position in the base, added and blocked tries, seen as one node.
+	 */
+	private static class Merged extends StringTrie.Node {
+
+		private final StringTrie.Node base;
+		private final StringTrie.Node added;
+		private final StringTrie.Node blocked;
+
+		/**
+		 * Combined the first time they are needed and then kept, as solvers visit the same nodes
+		 * over and over. If two threads get here at once, they each combine the same children.
+		 */
+		private volatile Map<String, StringTrie.Node> children;
+
+		private Merged(StringTrie.Node base, StringTrie.Node added, StringTrie.Node blocked) {
+			this.base = base;
+			this.added = added;
+			this.blocked = blocked;
+		}
+
+		/**
+		 * Only combines the nodes when it has to. Added and blocked words never overlap in the same
+		 * dialect, so where the base has no node, the added one can be used as it is.
+		 */
+		static StringTrie.Node of(StringTrie.Node base, StringTrie.Node added, StringTrie.Node blocked) {
+			added = isEmpty(added) ? null : added;
+			blocked = isEmpty(blocked) ? null : blocked;
+
+			if (added == null && blocked == null) {
+				return base;
+			}
+			if (base == null) {
+				return added;
+			}
+			return new Merged(base, added, blocked);
+		}
+
+		private static boolean isEmpty(StringTrie.Node node) {
+			return node == null || node.isTail() && node.dialects() == 0;
+		}
+
+		@Override
+		public int dialects() {
+			int addedDialects = added == null ? 0 : added.dialects();
+			int blockedDialects = blocked == null ? 0 : blocked.dialects();
+			return addedDialects | base.dialects() & ~blockedDialects;
+		}
+
+		@Override
+		public boolean isTail() {
+			return base.isTail() && (added == null || added.isTail());
+		}
+
+		@Override
+		StringTrie.Node maybeChildAt(String token) {
+			return getChildren().get(token);
+		}
+
+		@Override
+		Map<String, StringTrie.Node> getChildren() {
+			Map<String, StringTrie.Node> children = this.children;
+			if (children == null) {
+				children = new HashMap<>();
+				for (String token : base.getChildren().keySet()) {
+					combineChild(children, token);
+				}
+				if (added != null) {
+					for (String token : added.getChildren().keySet()) {
+						combineChild(children, token);
+					}
+				}
+				this.children = children;
+			}
+			return children;
+		}
+
+		private void combineChild(Map<String, StringTrie.Node> children, String token) {
+			StringTrie.Node child = of(
+					base.maybeChildAt(token),
+					added == null ? null : added.maybeChildAt(token),
+					blocked == null ? null : blocked.maybeChildAt(token));
+			if (child != null) {
+				children.put(token, child);
+			}
+		}
+
+		/**
+		 * Words are added to the {@link OverlayTrie}, not to this view of it.
+		 */
+		@Override
+		public TrieNode addSuffix(String word, int currentPosition, int dialects) {
+			throw new UnsupportedOperationException("Add words to the OverlayTrie instead.");
+		}
+	}
+
+}
@@ -5,6 +5,12 @@ public interface Solution {
 
 	Integer[] getPositions();
 
+	/**
+	 * The token spelt at each of {@link #getPositions()}. This is the value at that position,
+	 * unless it is a {@link TransitionMap#BLANK}, in which case it is the token the blank stood for.
+	 */
+	String[] getTokens();
+
 	class Default implements Solution {
 
 		private final String word;
@@ -24,5 +30,10 @@ public interface Solution {
 		public Integer[] getPositions() {
 			return positions;
 		}
+
+		@Override
+		public String[] getTokens() {
+			return StringTrie.tokensOf(word);
+		}
 	}
 }
\ No newline at end of file
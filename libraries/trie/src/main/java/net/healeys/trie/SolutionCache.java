@@ -0,0 +1,229 @@
+package net.healeys.trie;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Remembers the solutions of the most recently solved boards, so that solving the same board
+ * again (such as when a game is restored, or shown on the score screen) is only a lookup.
+ *
+ * A board which has been rotated or reflected has the same words as the original, only along
+ * different paths. So boards are stored in a canonical orientation: whichever of the eight
+ * rotations and reflections of the square puts the letters first in lexicographic order. Only
+ * those which map the board's {@link Topology} onto itself are tried, so grids get all eight (or
+ * four, when not square), while e.g. hex boards only get those which happen to fit. On the way
+ * back out, each path is mapped from the canonical orientation onto the board which was asked for.
+ *
+ * Solutions depend on the dictionary as well as the board, so this must be cleared if the
+ * dictionary changes.
+ */
+public class SolutionCache {
+
+	private final Map<Key, Map<String, Solution>> entries;
+
+	/**
+	 * @param capacity How many boards to keep. Once full, the least recently used is dropped.
+	 */
+	public SolutionCache(final int capacity) {
+		entries = new LinkedHashMap<Key, Map<String, Solution>>(capacity * 4 / 3 + 1, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Map<String, Solution>> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * @return Solutions for {@param board}, with paths on the board as it is now, or null if
+	 * neither it nor any rotation or reflection of it has been solved with these settings.
+	 */
+	public synchronized Map<String, Solution> get(CompiledTransitionMap board, int dialects, int minLength) {
+		Orientation orientation = Orientation.canonical(board);
+		Map<String, Solution> canonical = entries.get(new Key(orientation.letters, board, dialects, minLength));
+		return canonical == null ? null : orientation.fromCanonical(canonical);
+	}
+
+	public synchronized void put(CompiledTransitionMap board, int dialects, int minLength, Map<String, Solution> solutions) {
+		Orientation orientation = Orientation.canonical(board);
+		entries.put(new Key(orientation.letters, board, dialects, minLength), orientation.toCanonical(solutions));
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * One of the eight symmetries of the square, as where each position on a board ends up.
+	 */
+	private static class Orientation {
+
+		final int[] positions;
+		final String[] letters;
+
+		private Orientation(int[] positions, String[] letters) {
+			this.positions = positions;
+			this.letters = letters;
+		}
+
+		/**
+		 * The symmetry which puts the letters of {@param board} first in order, out of those which
+		 * keep every position's neighbours the same.
+		 */
+		static Orientation canonical(CompiledTransitionMap board) {
+			int width = board.getWidth();
+			int height = board.getHeight();
+			Topology topology = board.getTopology();
+
+			Orientation best = null;
+			for (int symmetry = 0; symmetry < 8; symmetry ++) {
+				boolean transposes = (symmetry & 4) != 0;
+				if (transposes && width != height) {
+					continue;
+				}
+
+				int[] positions = new int[width * height];
+				for (int y = 0; y < height; y ++) {
+					for (int x = 0; x < width; x ++) {
+						int toX = (symmetry & 1) != 0 ? width - 1 - x : x;
+						int toY = (symmetry & 2) != 0 ? height - 1 - y : y;
+						positions[x + width * y] = transposes ? toY + width * toX : toX + width * toY;
+					}
+				}
+
+				if (!preservesNeighbours(topology, positions)) {
+					continue;
+				}
+
+				String[] letters = new String[positions.length];
+				for (int from = 0; from < positions.length; from ++) {
+					letters[positions[from]] = board.valueAt(from);
+				}
+
+				if (best == null || compare(letters, best.letters) < 0) {
+					best = new Orientation(positions, letters);
+				}
+			}
+			return best;
+		}
+
+		private static boolean preservesNeighbours(Topology topology, int[] positions) {
+			for (int from = 0; from < positions.length; from ++) {
+				int[] neighbours = topology.neighbours[from];
+				if (neighbours.length != topology.neighbours[positions[from]].length) {
+					return false;
+				}
+
+				for (int to : neighbours) {
+					if (!topology.isAdjacent(positions[from], positions[to])) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+
+		private static int compare(String[] a, String[] b) {
+			for (int i = 0; i < a.length; i ++) {
+				int comparison = a[i].compareTo(b[i]);
+				if (comparison != 0) {
+					return comparison;
+				}
+			}
+			return 0;
+		}
+
+		Map<String, Solution> toCanonical(Map<String, Solution> solutions) {
+			return remap(solutions, positions);
+		}
+
+		Map<String, Solution> fromCanonical(Map<String, Solution> solutions) {
+			int[] inverse = new int[positions.length];
+			for (int from = 0; from < positions.length; from ++) {
+				inverse[positions[from]] = from;
+			}
+			return remap(solutions, inverse);
+		}
+
+		private static Map<String, Solution> remap(Map<String, Solution> solutions, int[] map) {
+			Map<String, Solution> remapped = new TreeMap<>();
+			for (Solution solution : solutions.values()) {
+				remapped.put(solution.getWord(), new Remapped(solution, map));
+			}
+			return remapped;
+		}
+	}
+
+	private static class Remapped implements Solution {
+
+		private final Solution solution;
+		private final Integer[] positions;
+
+		Remapped(Solution solution, int[] map) {
+			this.solution = solution instanceof Remapped ? ((Remapped) solution).solution : solution;
+
+			Integer[] original = solution.getPositions();
+			positions = new Integer[original.length];
+			for (int i = 0; i < original.length; i ++) {
+				positions[i] = map[original[i]];
+			}
+		}
+
+		@Override
+		public String getWord() {
+			return solution.getWord();
+		}
+
+		@Override
+		public Integer[] getPositions() {
+			return positions;
+		}
+
+		@Override
+		public String[] getTokens() {
+			return solution.getTokens();
+		}
+	}
+
+	private static class Key {
+
+		private final String[] letters;
+		private final Topology topology;
+		private final boolean canRevisit;
+		private final int dialects;
+		private final int minLength;
+
+		Key(String[] letters, CompiledTransitionMap board, int dialects, int minLength) {
+			this.letters = letters;
+			this.topology = board.getTopology();
+			this.canRevisit = board.canRevisit();
+			this.dialects = dialects;
+			this.minLength = minLength;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Key)) {
+				return false;
+			}
+
+			Key key = (Key) other;
+			return Arrays.equals(letters, key.letters)
+					&& topology.equals(key.topology)
+					&& canRevisit == key.canRevisit
+					&& dialects == key.dialects
+					&& minLength == key.minLength;
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = Arrays.hashCode(letters);
+			hash = 31 * hash + topology.hashCode();
+			hash = 31 * hash + (canRevisit ? 1 : 0);
+			hash = 31 * hash + dialects;
+			return 31 * hash + minLength;
+		}
+	}
+
+}
@@ -0,0 +1,34 @@
+package net.healeys.trie;
+
+import java.util.Map;
+
+/**
+ * The words found on a board by a solve which may have been stopped early by a
+ * {@link Cancellation}.
+ */
+public class SolveResult {
+
+	private final Map<String, Solution> solutions;
+	private final boolean complete;
+
+	public SolveResult(Map<String, Solution> solutions, boolean complete) {
+		this.solutions = solutions;
+		this.complete = complete;
+	}
+
+	/**
+	 * Every word found, each with a valid path on the board. If the solve was stopped early,
+	 * this is only some of the words on the board.
+	 */
+	public Map<String, Solution> getSolutions() {
+		return solutions;
+	}
+
+	/**
+	 * False if the solve was stopped before every path on the board had been tried.
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+}
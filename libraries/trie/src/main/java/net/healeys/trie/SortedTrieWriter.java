@@ -0,0 +1,272 @@
+package net.healeys.trie;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializes a trie in the same format as {@link StringTrie#write(OutputStream)}, but without
+ * ever building the whole trie in memory.
+ *
+ * Words must be added in {@link #TOKEN_ORDER}. Because of this, once a word is added which
+ * doesn't share a prefix with the previous word, every node below that shared prefix is known to
+ * be finished. These finished nodes are encoded straight away and forgotten, so only the nodes
+ * along the path to the most recent word are ever held in memory (the same observation that
+ * Daciuk et al. use to build minimal automata from sorted input).
+ *
+ * The format prefixes each node with its size, and puts each node before its children. As
+ * children are always finished before their parents, the output is built from back to front:
+ * each finished node is prepended to the buffer, immediately in front of its already encoded
+ * children. Every byte is only written once, instead of being copied again at each level of the
+ * trie.
+ */
+public class SortedTrieWriter {
+
+	/**
+	 * Orders words token by token (see {@link StringTrie#tokenAt(String, int)}), so that all words
+	 * which share a prefix of tokens end up next to each other. This differs from plain
+	 * alphabetical order for words such as "qat" (tokens "q", "a", "t"), which has to come before
+	 * "qua" (tokens "qu", "a").
+	 */
+	public static final Comparator<String> TOKEN_ORDER = new Comparator<String>() {
+		@Override
+		public int compare(String a, String b) {
+			int position = 0;
+			while (position < a.length() && position < b.length()) {
+				char charA = a.charAt(position);
+				char charB = b.charAt(position);
+				if (charA != charB) {
+					return charA - charB;
+				}
+
+				int lengthA = tokenLength(a, position);
+				int lengthB = tokenLength(b, position);
+				if (lengthA != lengthB) {
+					return lengthA - lengthB;
+				}
+
+				position += lengthA;
+			}
+
+			return a.length() - b.length();
+		}
+	};
+
+	private static int tokenLength(String word, int position) {
+		return word.charAt(position) == 'q' && position + 1 < word.length() && word.charAt(position + 1) == 'u' ? 2 : 1;
+	}
+
+	/**
+	 * Nodes along the path to the most recently added word, starting with the root.
+	 */
+	private final List<OpenNode> path = new ArrayList<>();
+
+	private String previousWord = "";
+
+	private byte[] buffer;
+
+	/**
+	 * Index of the first byte written to {@link #buffer}. Bytes are written from the end of the
+	 * buffer back towards the start.
+	 */
+	private int front;
+
+	public SortedTrieWriter() {
+		this(64 * 1024);
+	}
+
+	public SortedTrieWriter(int initialCapacity) {
+		buffer = new byte[initialCapacity];
+		front = buffer.length;
+		path.add(new OpenNode(null, front));
+	}
+
+	/**
+	 * @param word Must not come before the previous word in {@link #TOKEN_ORDER}. Adding the same
+	 *             word more than once adds each of the {@param dialects}.
+	 */
+	public void addWord(String word, int dialects) {
+		if (dialects == 0) {
+			return;
+		}
+
+		if (path.isEmpty()) {
+			throw new IllegalStateException("Can't add words after the trie has been finished.");
+		}
+
+		if (TOKEN_ORDER.compare(previousWord, word) > 0) {
+			throw new IllegalArgumentException("Words must be added in token order, but \"" + word + "\" came after \"" + previousWord + "\".");
+		}
+
+		// Count how many tokens this word shares with the previous one. Everything beyond that
+		// can't have any more words added below it, so it gets finished.
+		int sharedDepth = 0;
+		int position = 0;
+		while (position < word.length() && position < previousWord.length()) {
+			int length = tokenLength(word, position);
+			if (length != tokenLength(previousWord, position) || !word.regionMatches(position, previousWord, position, length)) {
+				break;
+			}
+
+			position += length;
+			sharedDepth ++;
+		}
+
+		while (path.size() > sharedDepth + 1) {
+			finishDeepestNode();
+		}
+
+		while (position < word.length()) {
+			String token = StringTrie.tokenAt(word, position);
+			path.add(new OpenNode(token, front));
+			position += token.length();
+		}
+
+		path.get(path.size() - 1).dialects |= dialects;
+		previousWord = word;
+	}
+
+	/**
+	 * Finishes every node which is still open and returns the serialized trie.
+	 */
+	public byte[] finish() {
+		while (!path.isEmpty()) {
+			finishDeepestNode();
+		}
+
+		byte[] output = new byte[buffer.length - front];
+		System.arraycopy(buffer, front, output, 0, output.length);
+		return output;
+	}
+
+	public void finish(OutputStream out) throws IOException {
+		out.write(finish());
+	}
+
+	/**
+	 * Serializes a root node above subtrees which have already been serialized, e.g. by separate
+	 * writers which were each given the words starting with a different token (with that token
+	 * removed). The subtrees are copied as they are.
+	 *
+	 * @param dialects Dialects in which the empty word is a word, which is normally none.
+	 * @param children Each serialized subtree, keyed by the token which leads to it.
+	 */
+	public static byte[] join(int dialects, Map<String, byte[]> children) {
+		int headerLength = 4 + 2 + 2;
+		int childrenLength = 0;
+		for (Map.Entry<String, byte[]> child : children.entrySet()) {
+			headerLength += 1 + child.getKey().length();
+			childrenLength += child.getValue().length;
+		}
+
+		byte[] output = new byte[headerLength + childrenLength];
+		int position = writeInt(output, headerLength - 4 + childrenLength, 0);
+		position = writeShort(output, dialects, position);
+		position = writeShort(output, children.size(), position);
+		for (String label : children.keySet()) {
+			position = writeLabel(output, label, position);
+		}
+
+		for (byte[] child : children.values()) {
+			System.arraycopy(child, 0, output, position, child.length);
+			position += child.length;
+		}
+
+		return output;
+	}
+
+	/**
+	 * Everything written since this node was opened is its children, laid out in the reverse
+	 * order to which they were finished. Prepends the header (which lists the child labels in
+	 * that same order) in front of them.
+	 */
+	private void finishDeepestNode() {
+		OpenNode node = path.remove(path.size() - 1);
+
+		int headerLength = 4 + 2 + 2;
+		for (String label : node.childLabels) {
+			headerLength += 1 + label.length();
+		}
+
+		int childrenLength = node.start - front;
+		ensureCapacity(headerLength);
+		front -= headerLength;
+
+		int position = front;
+		position = writeInt(buffer, headerLength - 4 + childrenLength, position);
+		position = writeShort(buffer, node.dialects, position);
+		position = writeShort(buffer, node.childLabels.size(), position);
+		for (int i = node.childLabels.size() - 1; i >= 0; i --) {
+			position = writeLabel(buffer, node.childLabels.get(i), position);
+		}
+
+		if (!path.isEmpty()) {
+			path.get(path.size() - 1).childLabels.add(node.label);
+		}
+	}
+
+	private static int writeInt(byte[] buffer, int value, int position) {
+		buffer[position] = (byte) (value >>> 24);
+		buffer[position + 1] = (byte) (value >>> 16);
+		buffer[position + 2] = (byte) (value >>> 8);
+		buffer[position + 3] = (byte) value;
+		return position + 4;
+	}
+
+	private static int writeShort(byte[] buffer, int value, int position) {
+		buffer[position] = (byte) (value >>> 8);
+		buffer[position + 1] = (byte) value;
+		return position + 2;
+	}
+
+	private static int writeLabel(byte[] buffer, String label, int position) {
+		buffer[position ++] = (byte) label.length();
+		for (int i = 0; i < label.length(); i ++) {
+			buffer[position ++] = (byte) label.charAt(i);
+		}
+		return position;
+	}
+
+	/**
+	 * Grows the buffer at the front, so the offsets of open nodes (which are measured from the
+	 * end of the buffer) need adjusting too.
+	 */
+	private void ensureCapacity(int bytes) {
+		if (front >= bytes) {
+			return;
+		}
+
+		int used = buffer.length - front;
+		int newLength = Math.max(buffer.length * 2, used + bytes);
+		byte[] newBuffer = new byte[newLength];
+		System.arraycopy(buffer, front, newBuffer, newLength - used, used);
+
+		int shift = newLength - buffer.length;
+		for (OpenNode node : path) {
+			node.start += shift;
+		}
+
+		buffer = newBuffer;
+		front += shift;
+	}
+
+	private static class OpenNode {
+		final String label;
+		final List<String> childLabels = new ArrayList<>();
+		int dialects;
+
+		/**
+		 * Value of {@link #front} when this node was opened.
+		 */
+		int start;
+
+		OpenNode(String label, int start) {
+			this.label = label;
+			this.start = start;
+		}
+	}
+
+}
@@ -0,0 +1,45 @@
+package net.healeys.trie;
+
+import java.util.Random;
+
+/**
+ * The SplitMix64 generator which java.util.SplittableRandom uses, for platforms which don't have
+ * it (it only arrived in Java 8 and Android API 24).
+ *
+ * It is quicker than {@link Random} itself, as there is no atomic update of the seed for each
+ * number, and so it isn't thread safe. Like {@link Random}, the same seed always gives the same
+ * numbers.
+ */
+public class SplitMixRandom extends Random {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private long state;
+
+	public SplitMixRandom(long seed) {
+		super(seed);
+		state = seed;
+	}
+
+	@Override
+	public synchronized void setSeed(long seed) {
+		super.setSeed(seed);
+		state = seed;
+	}
+
+	@Override
+	protected int next(int bits) {
+		return (int) (nextLong() >>> (64 - bits));
+	}
+
+	@Override
+	public long nextLong() {
+		long z = state += GOLDEN_GAMMA;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+}
@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -19,8 +20,14 @@ public class StringTrie implements Trie {
 
 	private final Node rootNode;
 
+	/**
+	 * Told about each board solved with this trie. Null unless statistics have been asked for.
+	 */
+	private final TrieListener listener;
+
 	public StringTrie() {
 		rootNode = new Node();
+		listener = null;
 	}
 
 	/**
@@ -37,31 +44,23 @@ public class StringTrie implements Trie {
 		private Map<String, Set<String>> transitions = new HashMap<>();
 
 		CheapTransitionMap(TransitionMap transitionMap) {
+			Topology topology = Topology.of(transitionMap);
 			for (int fromPos = 0; fromPos < transitionMap.getSize(); fromPos ++) {
 
 				String from = transitionMap.valueAt(fromPos);
 
-				int fromX = fromPos % transitionMap.getWidth();
-				int fromY = fromPos / transitionMap.getWidth();
-
-				Set <String> transitionTo = new HashSet<>();
-				for (int j = 0; j < transitionMap.getSize(); j ++) {
-					String to = transitionMap.valueAt(j);
-					if (transitionMap.valueAt(j).equals(to)) {
-						int toX = j % transitionMap.getWidth();
-						int toY = j / transitionMap.getWidth();
-						if (transitionMap.canTransition(fromX, fromY, toX, toY)) {
-							transitionTo.add(transitionMap.valueAt(j));
-						}
-					}
+				Set<String> transitionTo = transitions.get(from);
+				if (transitionTo == null) {
+					transitionTo = new HashSet<>();
+					transitions.put(from, transitionTo);
 				}
 
-				if (!transitions.containsKey(from)) {
-					transitions.put(from, new HashSet<String>());
+				for (int to : topology.neighbours[fromPos]) {
+					if (to < transitionMap.getSize()) {
+						transitionTo.add(transitionMap.valueAt(to));
+					}
 				}
 
-				transitions.get(from).addAll(transitionTo);
-
 			}
 		}
 
@@ -75,27 +74,59 @@ public class StringTrie implements Trie {
 		}
 	}
 
-	private StringTrie(InputStream in, TransitionMap transitionMap, boolean usDict, boolean ukDict) throws IOException {
-		Set<String> availableStrings = new HashSet<>(transitionMap.getSize());
-		for (int i = 0; i < transitionMap.getSize(); i ++) {
-			availableStrings.add(transitionMap.valueAt(i));
+	private StringTrie(InputStream in, TransitionMap transitionMap, int dialects, TrieListener listener) throws IOException {
+		TrieListener.LoadStats stats = null;
+		long startTime = 0;
+		if (listener != null) {
+			listener.onLoadStarted();
+			stats = new TrieListener.LoadStats();
+			stats.boardSize = transitionMap == null ? 0 : transitionMap.getSize();
+			stats.dialects = dialects;
+			startTime = System.nanoTime();
+		}
+
+		// A blank can lead to any word at all, so nothing can be left out for boards with them.
+		CheapTransitionMap cheapTransitionMap = transitionMap == null || hasBlank(transitionMap) ? null : new CheapTransitionMap(transitionMap);
+		rootNode = new Node(new DataInputStream(new BufferedInputStream(in)), dialects, cheapTransitionMap, null, 0, stats);
+		this.listener = listener;
+
+		if (listener != null) {
+			stats.wallTimeNanos = System.nanoTime() - startTime;
+			listener.onLoaded(stats);
 		}
-		rootNode = new Node(new DataInputStream(new BufferedInputStream(in)), usDict, ukDict, new CheapTransitionMap(transitionMap), availableStrings, false, null, 0);
 	}
 
 	@Override
 	public void addWord(String w, boolean usWord, boolean ukWord) {
-		rootNode.addSuffix(w, 0, usWord, ukWord);
+		addWord(w, Languages.mask(usWord, ukWord));
+	}
+
+	@Override
+	public void addWord(String w, int dialects) {
+		rootNode.addSuffix(w, 0, dialects);
+	}
+
+	/**
+	 * Clears the {@param dialects} from a word previously added to this trie. Any nodes which no
+	 * longer lead to a word are pruned.
+	 */
+	public void removeWord(String w, int dialects) {
+		rootNode.removeSuffix(w, 0, dialects);
 	}
 
 	@Override
 	public boolean isWord(String w, boolean usWord, boolean ukWord) {
-		return rootNode.isWord(w, 0, usWord, ukWord);
+		return isWord(w, Languages.mask(usWord, ukWord));
+	}
+
+	@Override
+	public boolean isWord(String w, int dialects) {
+		return rootNode.isWord(w, 0, dialects);
 	}
 
 	@Override
 	public boolean isWord(String word) {
-		return rootNode.isAnyWord(word, 0);
+		return isWord(word, Languages.ALL);
 	}
 
 	@Override
@@ -103,6 +134,10 @@ public class StringTrie implements Trie {
 		rootNode.writeNode(out);
 	}
 
+	Node getRootNode() {
+		return rootNode;
+	}
+
 	public static class StringSolution implements net.healeys.trie.Solution {
 
 		private final String word;
@@ -121,24 +156,96 @@ public class StringTrie implements Trie {
 		public Integer[] getPositions() {
 			return positions;
 		}
+
+		@Override
+		public String[] getTokens() {
+			return tokensOf(word);
+		}
+	}
+
+	/**
+	 * The token (i.e. the label of a child node) which starts at {@param position} in a word.
+	 * This is usually a single letter, but "q" followed by "u" is treated as a single "qu" token.
+	 */
+	// TODO: Refactor special handling of "Q" into interface for other Locales to use.
+	public static String tokenAt(String word, int position) {
+		char character = word.charAt(position);
+		if (character == 'q' && position + 1 < word.length() && word.charAt(position + 1) == 'u') {
+			return "qu";
+		}
+		return character < SINGLE_CHARACTER_TOKENS.length ? SINGLE_CHARACTER_TOKENS[character] : String.valueOf(character);
+	}
+
+	/**
+	 * Splits {@param word} into the same tokens as it is stored under in the trie.
+	 */
+	public static String[] tokensOf(String word) {
+		List<String> tokens = new ArrayList<>(word.length());
+		for (int i = 0; i < word.length(); i += tokenAt(word, i).length()) {
+			tokens.add(tokenAt(word, i));
+		}
+		return tokens.toArray(new String[tokens.size()]);
+	}
+
+	static boolean hasBlank(TransitionMap transitionMap) {
+		for (int i = 0; i < transitionMap.getSize(); i ++) {
+			if (TransitionMap.BLANK.equals(transitionMap.valueAt(i))) {
+				return true;
+			}
+		}
+		return false;
 	}
 
+	/**
+	 * Shared strings for each single ASCII character, so that looking up tokens and reading
+	 * labels doesn't allocate a new string every time.
+	 */
+	private static final String[] SINGLE_CHARACTER_TOKENS = new String[128];
+
+	static {
+		for (int i = 0; i < SINGLE_CHARACTER_TOKENS.length; i ++) {
+			SINGLE_CHARACTER_TOKENS[i] = String.valueOf((char) i);
+		}
+	}
+
+	/**
+	 * Recurses once per token in the current prefix, so the depth is limited by the longest word
+	 * in the trie rather than by the size of the board.
+	 */
 	private void recursiveSolver(
-			TransitionMap transitions,
+			Grid grid,
 			WordFilter wordFilter,
+			int dialects,
 			StringTrie.Node node,
 			int pos,
-			Set<Integer> usedPositions,
+			long[] usedPositions,
 			StringBuilder prefix,
 			Map<String, Solution> solutions,
-			List<Integer> solution) {
+			List<Integer> solution,
+			TrieListener.SolveStats stats,
+			Cancellation.Check cancellation) {
+
+		if (cancellation.shouldStop()) {
+			return;
+		}
+
+		if (stats != null) {
+			stats.nodesVisited ++;
+		}
 
-		if (node.usWord() || node.ukWord()) {
+		if ((node.dialects() & dialects) != 0) {
 			String w = new String(prefix);
 			if(wordFilter == null || wordFilter.isWord(w)) {
 				Integer[] solutionArray = new Integer[solution.size()];
 				solution.toArray(solutionArray);
-				solutions.put(w, new StringSolution(w, solutionArray));
+				Solution previous = solutions.put(w, new StringSolution(w, solutionArray));
+
+				if (stats != null) {
+					stats.wordsEmitted ++;
+					if (previous != null) {
+						stats.duplicateHits ++;
+					}
+				}
 			}
 		}
 
@@ -146,136 +253,326 @@ public class StringTrie implements Trie {
 			return;
 		}
 
-		if (!transitions.canRevisit()) {
-			usedPositions.add(pos);
+		if (!grid.canRevisit) {
+			usedPositions[pos >>> 6] |= 1L << pos;
 		}
 
-		int fromX = pos % transitions.getWidth();
-		int fromY = pos / transitions.getWidth();
+		for (int toPosition : grid.neighbours[pos]) {
+			if ((usedPositions[toPosition >>> 6] & 1L << toPosition) != 0) {
+				continue;
+			}
 
-		for (int toX = 0; toX < transitions.getWidth(); toX ++) {
-			for	(int toY = 0; toY < transitions.getWidth(); toY ++) {
-				if (!transitions.canTransition(fromX, fromY, toX, toY)) {
-					continue;
-				}
+			if (grid.blanks[toPosition]) {
+				solveBlank(grid, wordFilter, dialects, node, toPosition, usedPositions, prefix, solutions, solution, stats, cancellation);
+				continue;
+			}
 
-				int toPosition = toX + transitions.getWidth() * toY;
-				if (usedPositions.contains(toPosition)) {
-					continue;
+			String valueAt = grid.values[toPosition];
+			StringTrie.Node nextNode = node.maybeChildAt(valueAt);
+			if (nextNode == null) {
+				if (stats != null) {
+					stats.branchesPruned ++;
 				}
+				continue;
+			}
 
-				String valueAt = transitions.valueAt(toPosition);
-				StringTrie.Node nextNode = node.maybeChildAt(valueAt);
-				if (nextNode == null) {
-					continue;
+			prefix.append(valueAt);
+
+			solution.add(grid.positions[toPosition]);
+			recursiveSolver(grid, wordFilter, dialects, nextNode, toPosition, usedPositions, prefix, solutions, solution, stats, cancellation);
+			solution.remove(solution.size() - 1);
+
+			prefix.delete(prefix.length() - valueAt.length(), prefix.length());
+		}
+
+		usedPositions[pos >>> 6] &= ~(1L << pos);
+	}
+
+	/**
+	 * A blank at {@param pos} can stand for any token, so this carries on down every child of
+	 * {@param node} rather than looking up a single one. Children which are neither a word nor
+	 * lead to one in these dialects are skipped without being visited.
+	 */
+	private void solveBlank(
+			Grid grid,
+			WordFilter wordFilter,
+			int dialects,
+			StringTrie.Node node,
+			int pos,
+			long[] usedPositions,
+			StringBuilder prefix,
+			Map<String, Solution> solutions,
+			List<Integer> solution,
+			TrieListener.SolveStats stats,
+			Cancellation.Check cancellation) {
+
+		for (Map.Entry<String, Node> child : node.getChildren().entrySet()) {
+			Node nextNode = child.getValue();
+			if (nextNode.isTail() && (nextNode.dialects() & dialects) == 0) {
+				if (stats != null) {
+					stats.branchesPruned ++;
 				}
+				continue;
+			}
 
-				prefix.append(valueAt);
+			String token = child.getKey();
+			prefix.append(token);
 
-				solution.add(toPosition);
-				recursiveSolver(transitions, wordFilter, nextNode, toPosition, usedPositions, prefix, solutions, solution);
-				solution.remove(solution.size() - 1);
+			solution.add(grid.positions[pos]);
+			recursiveSolver(grid, wordFilter, dialects, nextNode, pos, usedPositions, prefix, solutions, solution, stats, cancellation);
+			solution.remove(solution.size() - 1);
 
-				prefix.delete(prefix.length() - valueAt.length(), prefix.length());
+			prefix.delete(prefix.length() - token.length(), prefix.length());
+
+			if (cancellation.isStopped()) {
+				return;
 			}
 		}
+	}
 
-		usedPositions.remove(pos);
+	/**
+	 * Everything the solver needs to know about a {@link TransitionMap}, worked out once per solve
+	 * rather than once per trie node.
+	 */
+	static class Grid {
+
+		final boolean canRevisit;
+
+		final Topology topology;
+
+		/**
+		 * The value at every cell of the grid, which may have more cells than the board has
+		 * positions.
+		 */
+		final String[] values;
+
+		/**
+		 * The cells which can be reached from each cell, in the order they are tried. Shared with
+		 * the board's {@link Topology}, so must not be changed.
+		 */
+		final int[][] neighbours;
+
+		/**
+		 * Whether each cell is a {@link TransitionMap#BLANK}.
+		 */
+		final boolean[] blanks;
+
+		final boolean hasBlanks;
+
+		/**
+		 * Boxed once up front, as boards can have more positions than {@link Integer} caches.
+		 */
+		final Integer[] positions;
+
+		Grid(TransitionMap transitions) {
+			int cells = transitions.getWidth() * transitions.getHeight();
+
+			canRevisit = transitions.canRevisit();
+			topology = Topology.of(transitions);
+			neighbours = topology.neighbours;
+			values = new String[cells];
+			blanks = new boolean[cells];
+			positions = new Integer[cells];
+
+			boolean hasBlanks = false;
+			for (int position = 0; position < cells; position ++) {
+				values[position] = transitions.valueAt(position);
+				blanks[position] = TransitionMap.BLANK.equals(values[position]);
+				hasBlanks |= blanks[position];
+				positions[position] = position;
+			}
+			this.hasBlanks = hasBlanks;
+		}
 	}
 
 	@Override
 	public Map<String, Solution> solver(TransitionMap transitions, WordFilter filter) {
+		return solver(transitions, filter, Languages.ALL);
+	}
+
+	@Override
+	public Map<String, Solution> solver(TransitionMap transitions, WordFilter filter, int dialects) {
+		return solver(transitions, filter, dialects, null).getSolutions();
+	}
+
+	@Override
+	public SolveResult solver(TransitionMap transitions, WordFilter filter, int dialects, Cancellation cancellation) {
+		return solve(rootNode, transitions, filter, dialects, cancellation);
+	}
+
+	/**
+	 * Solves the board by walking down from {@param root}, which need not be this trie's own root
+	 * (see {@link OverlayTrie}).
+	 */
+	SolveResult solve(Node root, TransitionMap transitions, WordFilter filter, int dialects, Cancellation cancellation) {
+
+		TrieListener.SolveStats stats = null;
+		long startTime = 0;
+		if (listener != null) {
+			listener.onSolveStarted();
+			stats = new TrieListener.SolveStats();
+			stats.boardSize = transitions.getSize();
+			stats.dialects = dialects;
+			startTime = System.nanoTime();
+		}
 
-		long startTime = System.currentTimeMillis();
 		Map<String, Solution> solutions = new TreeMap<>();
 		StringBuilder prefix = new StringBuilder(transitions.getSize() + 1);
 
-		List<Integer> positions = new ArrayList<>(transitions.getSize());
-		for(int i=0; i < transitions.getSize(); i ++) {
-			String value = transitions.valueAt(i);
-			StringTrie.Node nextNode = rootNode.maybeChildAt(value);
-			if (nextNode == null) {
-				continue;
-			}
+		Grid grid = new Grid(transitions);
+		List<Integer> positions = new ArrayList<>();
+		long[] usedPositions = new long[(grid.values.length + 63) / 64];
+		Cancellation.Check check = new Cancellation.Check(cancellation);
+
+		// Searching every ordering of the letters would take factorial time.
+		if (!grid.canRevisit && grid.topology.isComplete() && grid.values.length == transitions.getSize()) {
+			new AnagramSolver(grid, filter, dialects, solutions, stats, check).solve(root);
+		} else {
+			for(int i=0; i < transitions.getSize() && !check.isStopped(); i ++) {
+				if (grid.blanks[i]) {
+					solveBlank(grid, filter, dialects, root, i, usedPositions, prefix, solutions, positions, stats, check);
+					continue;
+				}
+
+				String value = grid.values[i];
+				StringTrie.Node nextNode = root.maybeChildAt(value);
+				if (nextNode == null) {
+					if (stats != null) {
+						stats.branchesPruned ++;
+					}
+					continue;
+				}
 
-			prefix.append(value);
-			positions.add(i);
+				prefix.append(value);
+				positions.add(grid.positions[i]);
 
-			recursiveSolver(transitions, filter, nextNode, i, new HashSet<Integer>(), prefix, solutions, positions);
+				recursiveSolver(grid, filter, dialects, nextNode, i, usedPositions, prefix, solutions, positions, stats, check);
 
-			positions.remove(positions.size() - 1);
-			prefix.delete(prefix.length() - value.length(), prefix.length());
+				positions.remove(positions.size() - 1);
+				prefix.delete(prefix.length() - value.length(), prefix.length());
+			}
 		}
 
-		long totalTime = System.currentTimeMillis() - startTime;
+		if (listener != null) {
+			stats.complete = !check.isStopped();
+			stats.wallTimeNanos = System.nanoTime() - startTime;
+			listener.onSolved(stats);
+		}
 
-		return solutions;
+		return new SolveResult(solutions, !check.isStopped());
 	}
 
-	private static class Node implements TrieNode {
+	/**
+	 * Solving, writing and looking up words only go through {@link #dialects()}, {@link #isTail()},
+	 * {@link #maybeChildAt(String)} and {@link #getChildren()}, so that a subclass can stand in for
+	 * a combination of other nodes (see {@link OverlayTrie}).
+	 */
+	static class Node implements TrieNode {
 
-		private final Map<String, Node> children = new HashMap<>();
+		/**
+		 * Most nodes have no children, so they share an empty map until they need one.
+		 */
+		private Map<String, Node> children = Collections.emptyMap();
 
-		private boolean isUsWord;
-		private boolean isUkWord;
+		/**
+		 * Bitmask of {@link Languages} this node is a word in.
+		 */
+		private int dialects;
 
-		private Node() {
+		Node() {
 
 		}
 
-		private Node(DataInputStream input, boolean usDict, boolean ukDict, CheapTransitionMap transitionMap, Set<String> availableStrings, boolean shouldSkip, String lastChar, int depth) throws IOException {
+		/**
+		 * @param transitionMap If null, then all children are kept regardless of whether they can
+		 *                      appear on a board.
+		 * @param stats If null, then no statistics are collected.
+		 */
+		private Node(DataInputStream input, int keepDialects, CheapTransitionMap transitionMap, String lastChar, int depth, TrieListener.LoadStats stats) throws IOException {
 
 			int nodeSizeInBytes = input.readInt();
 
-			if (shouldSkip) {
-				input.skipBytes(nodeSizeInBytes);
-				return;
+			if (stats != null) {
+				if (depth == 0) {
+					stats.totalBytes = 4 + nodeSizeInBytes;
+				}
+
+				stats.nodesMaterialized ++;
 			}
 
-			isUkWord = input.readBoolean();
-			isUsWord = input.readBoolean();
+			// Words from dialects we aren't keeping are treated as prefixes only. Those we do keep
+			// hold on to all of their dialects, so that they can still be queried for any of them.
+			int wordDialects = input.readUnsignedShort();
+			dialects = (wordDialects & keepDialects) != 0 ? wordDialects : 0;
 
 			int numChildren = input.readShort();
 
 			if (numChildren > 0) {
 				String[] childStrings = new String[numChildren];
+				int numKept = 0;
 				for (int i = 0; i < numChildren; i++) {
-					int length = input.readByte();
-
-					byte[] bytes = new byte[length];
-					input.readFully(bytes);
-
-					String string = new String(bytes);
-					if (depth == 0 && transitionMap.contains(string) || depth > 0 && transitionMap.canTransition(lastChar, string)) {
+					String string = readLabel(input);
+					if (transitionMap == null || depth == 0 && transitionMap.contains(string) || depth > 0 && transitionMap.canTransition(lastChar, string)) {
 						childStrings[i] = string;
+						numKept ++;
 					}
 				}
 
 				for (int i = 0; i < numChildren; i++) {
-					// Need to read the node regardless of whether we end up keeping it. This is to
-					// ensure that we traverse the InputStream in the right order.
-					boolean shouldSkipChild = childStrings[i] == null;
-					Node childNode = new Node(input, usDict, ukDict, transitionMap, availableStrings, shouldSkipChild, childStrings[i], depth + 1);
-					if (!shouldSkipChild) {
-						if (childNode.isUsWord && !childNode.isUkWord && !usDict || childNode.isUkWord && !childNode.isUsWord && !ukDict) {
-							// Skip it.
-						} else {
-							children.put(childStrings[i], childNode);
+					// Need to get past the node regardless of whether we end up keeping it. This is
+					// to ensure that we traverse the InputStream in the right order.
+					if (childStrings[i] == null) {
+						skipNode(input, stats);
+						continue;
+					}
+
+					Node childNode = new Node(input, keepDialects, transitionMap, childStrings[i], depth + 1, stats);
+
+					// Any child which is neither a word nor leads to one is dead weight.
+					if (childNode.dialects != 0 || !childNode.isTail()) {
+						if (children.isEmpty()) {
+							children = new HashMap<>(numKept * 4 / 3 + 1);
 						}
+						children.put(childStrings[i], childNode);
 					}
 				}
 			}
 		}
 
+		private static void skipNode(DataInputStream input, TrieListener.LoadStats stats) throws IOException {
+			int nodeSizeInBytes = input.readInt();
+			input.skipBytes(nodeSizeInBytes);
+
+			if (stats != null) {
+				stats.bytesSkipped += nodeSizeInBytes;
+				stats.nodesSkipped ++;
+			}
+		}
+
+		private static String readLabel(DataInputStream input) throws IOException {
+			int length = input.readByte();
+			if (length == 1) {
+				int character = input.readUnsignedByte();
+				if (character < SINGLE_CHARACTER_TOKENS.length) {
+					return SINGLE_CHARACTER_TOKENS[character];
+				}
+				return new String(new byte[] { (byte) character });
+			}
+
+			byte[] bytes = new byte[length];
+			input.readFully(bytes);
+			return new String(bytes);
+		}
+
 		@Override
 		public void writeNode(OutputStream output) throws IOException {
 
 			ByteArrayOutputStream tempOutput = new ByteArrayOutputStream();
 			DataOutputStream tempOutputData = new DataOutputStream(tempOutput);
 
-			tempOutputData.writeBoolean(isUkWord);
-			tempOutputData.writeBoolean(isUsWord);
+			tempOutputData.writeShort(dialects());
 
+			Map<String, Node> children = getChildren();
 			tempOutputData.writeShort(children.size());
 			Set<Map.Entry<String, Node>> entries = children.entrySet();
 			for (Map.Entry<String, Node> entry : entries) {
@@ -294,44 +591,61 @@ public class StringTrie implements Trie {
 		}
 
 		@Override
-		public TrieNode addSuffix(String word, int currentPosition, boolean usWord, boolean ukWord) {
+		public TrieNode addSuffix(String word, int currentPosition, int dialects) {
 			Node child = ensureChildAt(word, currentPosition);
 
-			if (currentPosition == word.length() - 1) {
-				child.isUsWord |= usWord;
-				child.isUkWord |= ukWord;
+			int nextPosition = nextPosition(word, currentPosition);
+			if (nextPosition >= word.length()) {
+				child.dialects |= dialects;
 				return child;
 			} else {
-				return child.addSuffix(word, nextPosition(word, currentPosition), usWord, ukWord);
+				return child.addSuffix(word, nextPosition, dialects);
 			}
 		}
 
-		private int nextPosition(String word, int currentPosition) {
-			return currentPosition + getCharAt(word, currentPosition).length();
-		}
+		private void removeSuffix(String word, int currentPosition, int dialects) {
+			String character = tokenAt(word, currentPosition);
+			Node child = maybeChildAt(character);
+			if (child == null) {
+				return;
+			}
 
-		// TODO: Refactor special handling of "Q" into interface for other Locales to use.
-		private String getCharAt(String word, int position) {
-			String character = Character.toString(word.charAt(position));
-			if (character.equals("q") && word.length() > position && Character.toString(word.charAt(position + 1)).equals("u")) {
-				return "qu";
+			int nextPosition = currentPosition + character.length();
+			if (nextPosition >= word.length()) {
+				child.dialects &= ~dialects;
+			} else {
+				child.removeSuffix(word, nextPosition, dialects);
 			}
-			return character;
+
+			if (child.dialects == 0 && child.isTail()) {
+				children.remove(character);
+			}
+		}
+
+		private int nextPosition(String word, int currentPosition) {
+			return currentPosition + tokenAt(word, currentPosition).length();
 		}
 
 		private Node maybeChildAt(String word, int position) {
-			return children.get(getCharAt(word, position));
+			return children.get(tokenAt(word, position));
 		}
 
-		private Node maybeChildAt(String childChar) {
+		Node maybeChildAt(String childChar) {
 			return children.get(childChar);
 		}
 
+		Map<String, Node> getChildren() {
+			return children;
+		}
+
 		private Node ensureChildAt(String word, int position) {
-			String character = getCharAt(word, position);
+			String character = tokenAt(word, position);
 			Node existingNode = maybeChildAt(word, position);
 			if (existingNode == null) {
 				Node node = new Node();
+				if (children.isEmpty()) {
+					children = new HashMap<>();
+				}
 				children.put(character, node);
 				return node;
 			} else {
@@ -340,13 +654,8 @@ public class StringTrie implements Trie {
 		}
 
 		@Override
-		public boolean usWord() {
-			return isUsWord;
-		}
-
-		@Override
-		public boolean ukWord() {
-			return isUkWord;
+		public int dialects() {
+			return dialects;
 		}
 
 		@Override
@@ -355,29 +664,40 @@ public class StringTrie implements Trie {
 		}
 
 		@Override
-		public boolean isWord(String word, int currentPosition, boolean usWord, boolean ukWord) {
+		public boolean isWord(String word, int currentPosition, int dialects) {
 			if (currentPosition == word.length()) {
-				return usWord && isUsWord || ukWord && isUkWord;
+				return (dialects() & dialects) != 0;
 			}
 
-			Node childNode = maybeChildAt(word, currentPosition);
-			return childNode != null && childNode.isWord(word, nextPosition(word, currentPosition), usWord, ukWord);
+			Node childNode = maybeChildAt(tokenAt(word, currentPosition));
+			return childNode != null && childNode.isWord(word, nextPosition(word, currentPosition), dialects);
 		}
+	}
 
-		private boolean isAnyWord(String word, int currentPosition) {
-			if (currentPosition == word.length()) {
-				return isUsWord || isUkWord;
-			}
+	public static class Deserializer implements net.healeys.trie.Deserializer<StringTrie> {
+
+		private final TrieListener listener;
 
-			Node childNode = maybeChildAt(word, currentPosition);
-			return childNode != null && childNode.isAnyWord(word, nextPosition(word, currentPosition));
+		public Deserializer() {
+			this(null);
+		}
+
+		/**
+		 * @param listener Told about the loading of each trie, and each board solved with it
+		 *                 afterwards. May be null.
+		 */
+		public Deserializer(TrieListener listener) {
+			this.listener = listener;
 		}
-	}
 
-	public static class Deserializer implements net.healeys.trie.Deserializer<StringTrie> {
 		@Override
 		public StringTrie deserialize(InputStream stream, TransitionMap transitionMap, boolean usDict, boolean ukDict) throws IOException {
-			return new StringTrie(stream, transitionMap, usDict, ukDict);
+			return deserialize(stream, transitionMap, Languages.mask(usDict, ukDict));
+		}
+
+		@Override
+		public StringTrie deserialize(InputStream stream, TransitionMap transitionMap, int dialects) throws IOException {
+			return new StringTrie(stream, transitionMap, dialects, listener);
 		}
 	}
 
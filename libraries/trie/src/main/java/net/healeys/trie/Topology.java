@@ -0,0 +1,309 @@
+package net.healeys.trie;
+
+import java.util.Arrays;
+
+/**
+ * Which positions on a board can be reached from which others, compiled into a list of
+ * neighbours for each position. Solvers walk these lists directly, instead of asking
+ * {@link TransitionMap#canTransition(int, int, int, int)} about every pair of cells.
+ *
+ * Positions are laid out row by row in a grid of {@link #getWidth()} by {@link #getHeight()}
+ * cells, the same as a {@link TransitionMap}, although a custom graph need not have anything to
+ * do with its grid. Each position's neighbours are kept in the order that solvers try them:
+ * column by column, then row by row within each column. When a word can be found along more
+ * than one path, the last one found is reported, so this order decides which path that is.
+ */
+public final class Topology {
+
+	private final int width;
+	private final int height;
+
+	/**
+	 * Shared with the solvers, so must not be changed once built.
+	 */
+	final int[][] neighbours;
+
+	private final boolean complete;
+
+	private Topology(int width, int height, int[][] neighbours) {
+		this.width = width;
+		this.height = height;
+		this.neighbours = neighbours;
+
+		boolean complete = true;
+		for (int from = 0; from < neighbours.length && complete; from ++) {
+			complete = neighbours[from].length == neighbours.length - 1 && !isAdjacent(from, from);
+		}
+		this.complete = complete;
+	}
+
+	/**
+	 * Each position is connected to its (up to eight) horizontal, vertical and diagonal
+	 * neighbours. These are the rules of the standard square boards.
+	 */
+	public static Topology grid(int width, int height) {
+		Builder builder = new Builder(width, height);
+		for (int y = 0; y < height; y ++) {
+			for (int x = 0; x < width; x ++) {
+				for (int dy = -1; dy <= 1; dy ++) {
+					for (int dx = -1; dx <= 1; dx ++) {
+						int toX = x + dx;
+						int toY = y + dy;
+						if ((dx != 0 || dy != 0) && toX >= 0 && toX < width && toY >= 0 && toY < height) {
+							builder.connectOneWay(x + width * y, toX + width * toY);
+						}
+					}
+				}
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Like {@link #grid(int, int)}, but the edges wrap around, so that the leftmost column
+	 * neighbours the rightmost and the top row neighbours the bottom.
+	 */
+	public static Topology torus(int width, int height) {
+		Builder builder = new Builder(width, height);
+		for (int y = 0; y < height; y ++) {
+			for (int x = 0; x < width; x ++) {
+				for (int dy = -1; dy <= 1; dy ++) {
+					for (int dx = -1; dx <= 1; dx ++) {
+						int to = (x + dx + width) % width + width * ((y + dy + height) % height);
+						if (to != x + width * y) {
+							builder.connectOneWay(x + width * y, to);
+						}
+					}
+				}
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Hexagonal cells, with every odd row shifted half a cell to the right. Each position is
+	 * connected to the (up to six) cells that it shares an edge with.
+	 */
+	public static Topology hex(int width, int height) {
+		Builder builder = new Builder(width, height);
+		for (int y = 0; y < height; y ++) {
+			// The cells above and below are either up and to the left, or up and to the right,
+			// depending on which way this row is shifted.
+			int shift = y % 2 == 0 ? -1 : 0;
+			int[][] offsets = {
+					{ -1, 0 }, { 1, 0 },
+					{ shift, -1 }, { shift + 1, -1 },
+					{ shift, 1 }, { shift + 1, 1 },
+			};
+
+			for (int x = 0; x < width; x ++) {
+				for (int[] offset : offsets) {
+					int toX = x + offset[0];
+					int toY = y + offset[1];
+					if (toX >= 0 && toX < width && toY >= 0 && toY < height) {
+						builder.connectOneWay(x + width * y, toX + width * toY);
+					}
+				}
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Every position is connected to every other, so that the letters can be used in any order,
+	 * as in an anagram.
+	 */
+	public static Topology complete(int width, int height) {
+		Builder builder = new Builder(width, height);
+		for (int from = 0; from < width * height; from ++) {
+			for (int to = 0; to < width * height; to ++) {
+				if (from != to) {
+					builder.connectOneWay(from, to);
+				}
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Works out the neighbours of every cell in {@param transitions} by asking it about every
+	 * pair of cells. This is only needed for boards which don't already provide a compiled
+	 * topology (see {@link CompiledTransitionMap}).
+	 */
+	public static Topology compile(TransitionMap transitions) {
+		int width = transitions.getWidth();
+		int height = transitions.getHeight();
+		int cells = width * height;
+
+		int[][] neighbours = new int[cells][];
+		int[] reachable = new int[cells];
+		for (int from = 0; from < cells; from ++) {
+			int count = 0;
+			for (int toX = 0; toX < width; toX ++) {
+				for (int toY = 0; toY < height; toY ++) {
+					if (transitions.canTransition(from % width, from / width, toX, toY)) {
+						reachable[count ++] = toX + width * toY;
+					}
+				}
+			}
+			neighbours[from] = Arrays.copyOf(reachable, count);
+		}
+
+		return new Topology(width, height, neighbours);
+	}
+
+	/**
+	 * The topology the board already has, or one compiled from it if it doesn't have one.
+	 */
+	static Topology of(TransitionMap transitions) {
+		if (transitions instanceof CompiledTransitionMap) {
+			return ((CompiledTransitionMap) transitions).getTopology();
+		}
+		return compile(transitions);
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getSize() {
+		return neighbours.length;
+	}
+
+	/**
+	 * @return A copy of the positions which can be reached from {@param position}, in the order
+	 * solvers try them.
+	 */
+	public int[] getNeighbours(int position) {
+		return neighbours[position].clone();
+	}
+
+	/**
+	 * Whether every position is connected to every other, as in {@link #complete(int, int)}.
+	 * Words on such boards don't depend on where each letter is, only on how many of each
+	 * letter there are.
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	public boolean isAdjacent(int from, int to) {
+		if (from < 0 || from >= neighbours.length) {
+			return false;
+		}
+
+		for (int neighbour : neighbours[from]) {
+			if (neighbour == to) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Topologies are equal if they connect the same positions, however they were built.
+	 */
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof Topology)) {
+			return false;
+		}
+
+		Topology topology = (Topology) other;
+		return width == topology.width && height == topology.height && Arrays.deepEquals(neighbours, topology.neighbours);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * width + height) + Arrays.deepHashCode(neighbours);
+	}
+
+	/**
+	 * Builds a custom topology, one connection at a time.
+	 */
+	public static class Builder {
+
+		private final int width;
+		private final int height;
+		private final int[][] neighbours;
+		private final int[] counts;
+
+		/**
+		 * For graphs which have no particular layout, as a single row of {@param size} positions.
+		 */
+		public Builder(int size) {
+			this(size, 1);
+		}
+
+		public Builder(int width, int height) {
+			if (width < 1 || height < 1) {
+				throw new IllegalArgumentException("Topology can't be " + width + " by " + height + ".");
+			}
+
+			this.width = width;
+			this.height = height;
+			neighbours = new int[width * height][];
+			counts = new int[width * height];
+			for (int i = 0; i < neighbours.length; i ++) {
+				neighbours[i] = new int[8];
+			}
+		}
+
+		/**
+		 * Allows moving from {@param a} to {@param b} and back again.
+		 */
+		public Builder connect(int a, int b) {
+			connectOneWay(a, b);
+			connectOneWay(b, a);
+			return this;
+		}
+
+		public Builder connectOneWay(int from, int to) {
+			if (from < 0 || from >= neighbours.length || to < 0 || to >= neighbours.length) {
+				throw new IllegalArgumentException("Can't connect " + from + " to " + to + " in a topology of " + neighbours.length + " positions.");
+			}
+
+			if (counts[from] == neighbours[from].length) {
+				neighbours[from] = Arrays.copyOf(neighbours[from], counts[from] * 2);
+			}
+			neighbours[from][counts[from] ++] = to;
+			return this;
+		}
+
+		/**
+		 * Sorts each position's neighbours into the order solvers try them, and drops any
+		 * connections which were made more than once.
+		 */
+		public Topology build() {
+			int[][] compiled = new int[neighbours.length][];
+			for (int from = 0; from < neighbours.length; from ++) {
+				// Sorting by column and then row is the same as sorting by this key.
+				long[] keys = new long[counts[from]];
+				for (int i = 0; i < keys.length; i ++) {
+					int to = neighbours[from][i];
+					keys[i] = (long) (to % width) * height + to / width;
+				}
+				Arrays.sort(keys);
+
+				int[] sorted = new int[keys.length];
+				int count = 0;
+				for (int i = 0; i < keys.length; i ++) {
+					if (i == 0 || keys[i] != keys[i - 1]) {
+						sorted[count ++] = (int) (keys[i] / height) + width * (int) (keys[i] % height);
+					}
+				}
+				compiled[from] = Arrays.copyOf(sorted, count);
+			}
+
+			return new Topology(width, height, compiled);
+		}
+	}
+
+}
@@ -18,11 +18,19 @@ package net.healeys.trie;
 
 /**
  * The TransitionMap is an abstract representation of a game board.
- * It supports up to 32 positions and provides information about the value
- * at a particular position and the ability for positions to be connected.
+ * Positions are laid out row by row in a grid of {@link #getWidth()} by {@link #getHeight()}
+ * cells, and it provides information about the value at a particular position and the ability
+ * for positions to be connected. Boards which already know the neighbours of each position should
+ * implement {@link CompiledTransitionMap}, so solvers don't have to work them out.
  */
 public interface TransitionMap {
 
+	/**
+	 * Value of a blank tile, which can stand for any token. The token it stood for in each word is
+	 * given by {@link Solution#getTokens()}.
+	 */
+	String BLANK = "?";
+
 	boolean canTransition(int fromX, int fromY, int toX, int toY);
 	
 	/**
@@ -42,6 +50,12 @@ public interface TransitionMap {
 
 	int getWidth();
 
+	/**
+	 * Number of rows, so that position p is at (p % getWidth(), p / getWidth()). Boards need not
+	 * be square.
+	 */
+	int getHeight();
+
 	/**
 	 * Whether or not the user is allowed to backrack to squares they've already visited.
 	 */
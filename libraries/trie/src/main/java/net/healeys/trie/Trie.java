@@ -7,12 +7,39 @@ import java.util.Map;
 public interface Trie extends WordFilter {
 	void addWord(String w, boolean usWord, boolean ukWord);
 
+	/**
+	 * @param dialects Bitmask of {@link Languages} which this word is valid in.
+	 */
+	void addWord(String w, int dialects);
+
 	boolean isWord(String w, boolean usWord, boolean ukWord);
 
+	/**
+	 * @param dialects Bitmask of {@link Languages}. The word only needs to be valid in one of them.
+	 */
+	boolean isWord(String w, int dialects);
+
 	boolean isWord(String w);
 
 	void write(OutputStream out) throws IOException;
 
 	Map<String,Solution> solver(TransitionMap m, WordFilter filter);
 
+	/**
+	 * Same as {@link #solver(TransitionMap, WordFilter)}, but only words from the requested
+	 * {@link Languages} are returned. This allows one trie loaded with {@link Languages#ALL} to
+	 * solve boards for any dialect.
+	 */
+	Map<String,Solution> solver(TransitionMap m, WordFilter filter, int dialects);
+
+	/**
+	 * Same as {@link #solver(TransitionMap, WordFilter, int)}, but gives up once
+	 * {@param cancellation} is cancelled, returning whichever words were found by then. This
+	 * bounds the time taken by boards which would otherwise take too long, such as very large
+	 * boards or those which allow positions to be revisited.
+	 *
+	 * @param cancellation If null, the solve always runs to completion.
+	 */
+	SolveResult solver(TransitionMap m, WordFilter filter, int dialects, Cancellation cancellation);
+
 }
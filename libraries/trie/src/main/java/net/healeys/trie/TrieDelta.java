@@ -0,0 +1,268 @@
+package net.healeys.trie;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Computes and applies changes to a trie which has already been serialized by
+ * {@link StringTrie#write(OutputStream)}, so that correcting a handful of words doesn't require
+ * the whole dictionary to be rebuilt.
+ *
+ * A delta is a {@link WordJournal}: added words have their dialects set, and blocked words have
+ * their dialects cleared. This means that the same delta can either be applied to produce a new
+ * serialized trie using {@link #patch(byte[], InputStream, OutputStream)}, or shipped alongside
+ * the original and combined at load time using {@link OverlayTrie#load(InputStream)}.
+ *
+ * Patching only decodes the nodes along the paths to changed words. Every other subtree is
+ * copied across byte for byte (each serialized node is prefixed with its size, so there is no
+ * need to look inside them).
+ */
+public final class TrieDelta {
+
+	private TrieDelta() {
+
+	}
+
+	/**
+	 * Every word in a serialized trie, along with the bitmask of {@link Languages} it is valid in.
+	 */
+	public static Map<String, Integer> readWords(byte[] trie) {
+		Map<String, Integer> words = new HashMap<>();
+		readWords(trie, 0, new StringBuilder(), words);
+		return words;
+	}
+
+	private static void readWords(byte[] trie, int offset, StringBuilder prefix, Map<String, Integer> words) {
+		SerializedNode node = new SerializedNode(trie, offset);
+		if (node.dialects != 0) {
+			words.put(prefix.toString(), node.dialects);
+		}
+
+		for (int i = 0; i < node.labels.length; i ++) {
+			prefix.append(node.labels[i]);
+			readWords(trie, node.childOffsets[i], prefix, words);
+			prefix.delete(prefix.length() - node.labels[i].length(), prefix.length());
+		}
+	}
+
+	/**
+	 * Writes the delta required to turn the serialized trie {@param base} into one containing
+	 * exactly {@param words} (each mapped to its bitmask of {@link Languages}).
+	 */
+	public static void diff(byte[] base, Map<String, Integer> words, OutputStream delta) throws IOException {
+		Map<String, Integer> baseWords = readWords(base);
+
+		Set<String> allWords = new TreeSet<>(baseWords.keySet());
+		allWords.addAll(words.keySet());
+
+		WordJournal.Writer writer = new WordJournal.Writer(delta);
+		for (String word : allWords) {
+			int before = dialectsOf(baseWords, word);
+			int after = dialectsOf(words, word);
+
+			if ((after & ~before) != 0) {
+				writer.added(word, after & ~before);
+			}
+
+			if ((before & ~after) != 0) {
+				writer.blocked(word, before & ~after);
+			}
+		}
+	}
+
+	private static int dialectsOf(Map<String, Integer> words, String word) {
+		Integer dialects = words.get(word);
+		return dialects == null ? 0 : dialects;
+	}
+
+	/**
+	 * Writes a copy of the serialized trie {@param base} with the {@param delta} applied.
+	 */
+	public static void patch(byte[] base, InputStream delta, OutputStream out) throws IOException {
+		final Change changes = new Change();
+		WordJournal.replay(delta, new WordJournal.Handler() {
+			@Override
+			public void onAdded(String word, int dialects) {
+				Change change = changes.ensure(word, 0);
+				change.set |= dialects;
+				change.clear &= ~dialects;
+			}
+
+			@Override
+			public void onBlocked(String word, int dialects) {
+				Change change = changes.ensure(word, 0);
+				change.clear |= dialects;
+				change.set &= ~dialects;
+			}
+		});
+
+		Plan root = plan(base, 0, changes);
+		if (root == null) {
+			root = new Plan();
+		}
+
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(out));
+		write(base, root, output);
+		output.flush();
+	}
+
+	/**
+	 * Works out what the patched node will look like, without writing anything yet. This is
+	 * required because each node is prefixed by its size, which depends on the size of all of its
+	 * (possibly patched) children.
+	 *
+	 * @param offset Position of the node in {@param base}, or -1 if it is a new node.
+	 * @return Null if the node no longer leads to any words.
+	 */
+	private static Plan plan(byte[] base, int offset, Change change) {
+		Plan plan = new Plan();
+
+		if (offset >= 0) {
+			SerializedNode node = new SerializedNode(base, offset);
+			plan.dialects = node.dialects;
+
+			for (int i = 0; i < node.labels.length; i ++) {
+				Change childChange = change.children.get(node.labels[i]);
+				if (childChange == null) {
+					plan.addChild(node.labels[i], Plan.verbatim(node.childOffsets[i], SerializedNode.lengthAt(base, node.childOffsets[i])));
+				} else {
+					plan.addChild(node.labels[i], plan(base, node.childOffsets[i], childChange));
+				}
+			}
+		}
+
+		for (Map.Entry<String, Change> entry : change.children.entrySet()) {
+			if (!plan.labels.contains(entry.getKey())) {
+				plan.addChild(entry.getKey(), plan(base, -1, entry.getValue()));
+			}
+		}
+
+		plan.dialects = (plan.dialects & ~change.clear) | change.set;
+		return plan.dialects == 0 && plan.labels.isEmpty() ? null : plan;
+	}
+
+	private static void write(byte[] base, Plan plan, DataOutputStream output) throws IOException {
+		if (plan.copyFrom >= 0) {
+			output.write(base, plan.copyFrom, plan.length);
+			return;
+		}
+
+		output.writeInt(plan.length - 4);
+		output.writeShort(plan.dialects);
+		output.writeShort(plan.labels.size());
+		for (String label : plan.labels) {
+			output.writeByte(label.length());
+			output.writeBytes(label);
+		}
+
+		for (Plan child : plan.children) {
+			write(base, child, output);
+		}
+	}
+
+	/**
+	 * Words to be changed, arranged as a trie so that it can be walked alongside the base trie.
+	 */
+	private static class Change {
+		final Map<String, Change> children = new HashMap<>();
+		int set;
+		int clear;
+
+		Change ensure(String word, int position) {
+			if (position >= word.length()) {
+				return this;
+			}
+
+			String token = StringTrie.tokenAt(word, position);
+			Change child = children.get(token);
+			if (child == null) {
+				child = new Change();
+				children.put(token, child);
+			}
+
+			return child.ensure(word, position + token.length());
+		}
+	}
+
+	private static class Plan {
+		final List<String> labels = new ArrayList<>();
+		final List<Plan> children = new ArrayList<>();
+		int dialects;
+
+		/**
+		 * Number of bytes this node takes up, including the int which prefixes it with its size.
+		 */
+		int length = 4 + 2 + 2;
+
+		/**
+		 * If this is not -1, then the node is untouched, and {@link #length} bytes are to be copied
+		 * from this offset in the base trie.
+		 */
+		int copyFrom = -1;
+
+		static Plan verbatim(int offset, int length) {
+			Plan plan = new Plan();
+			plan.copyFrom = offset;
+			plan.length = length;
+			return plan;
+		}
+
+		void addChild(String label, Plan child) {
+			if (child != null) {
+				labels.add(label);
+				children.add(child);
+				length += 1 + label.length() + child.length;
+			}
+		}
+	}
+
+	/**
+	 * The header of a node in a serialized trie, as written by {@link StringTrie#write(OutputStream)}.
+	 */
+	private static class SerializedNode {
+		final int dialects;
+		final String[] labels;
+		final int[] childOffsets;
+
+		SerializedNode(byte[] trie, int offset) {
+			int position = offset + 4;
+
+			dialects = readUnsignedShort(trie, position);
+			position += 2;
+
+			int numChildren = readUnsignedShort(trie, position);
+			position += 2;
+
+			labels = new String[numChildren];
+			for (int i = 0; i < numChildren; i ++) {
+				int length = trie[position];
+				labels[i] = new String(trie, position + 1, length);
+				position += 1 + length;
+			}
+
+			childOffsets = new int[numChildren];
+			for (int i = 0; i < numChildren; i ++) {
+				childOffsets[i] = position;
+				position += lengthAt(trie, position);
+			}
+		}
+
+		static int lengthAt(byte[] trie, int offset) {
+			return 4 + ((trie[offset] & 0xff) << 24 | (trie[offset + 1] & 0xff) << 16 | (trie[offset + 2] & 0xff) << 8 | trie[offset + 3] & 0xff);
+		}
+
+		static int readUnsignedShort(byte[] trie, int offset) {
+			return (trie[offset] & 0xff) << 8 | trie[offset + 1] & 0xff;
+		}
+	}
+
+}
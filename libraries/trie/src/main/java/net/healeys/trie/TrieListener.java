@@ -0,0 +1,182 @@
+package net.healeys.trie;
+
+/**
+ * Receives statistics about loading a {@link StringTrie} and solving boards with it, to help find
+ * out where time is spent. Statistics are only collected when a listener is given to
+ * {@link StringTrie.Deserializer#Deserializer(TrieListener)}, so there is no cost otherwise.
+ */
+public interface TrieListener {
+
+	/**
+	 * Called just before a trie starts loading, on the same thread which will then call
+	 * {@link #onLoaded(LoadStats)}.
+	 */
+	void onLoadStarted();
+
+	void onLoaded(LoadStats stats);
+
+	/**
+	 * Called just before a board starts being solved, on the same thread which will then call
+	 * {@link #onSolved(SolveStats)}. Boards may be solved on several threads at once.
+	 */
+	void onSolveStarted();
+
+	void onSolved(SolveStats stats);
+
+	/**
+	 * Does nothing for each event, so that listeners only need to override the ones they use.
+	 */
+	abstract class Adapter implements TrieListener {
+
+		@Override
+		public void onLoadStarted() {
+		}
+
+		@Override
+		public void onLoaded(LoadStats stats) {
+		}
+
+		@Override
+		public void onSolveStarted() {
+		}
+
+		@Override
+		public void onSolved(SolveStats stats) {
+		}
+
+	}
+
+	class LoadStats {
+		int boardSize;
+		int dialects;
+		long totalBytes;
+		long bytesSkipped;
+		int nodesMaterialized;
+		int nodesSkipped;
+		long wallTimeNanos;
+
+		/**
+		 * Number of positions on the board that the trie was loaded for, or 0 if the whole trie
+		 * was loaded.
+		 */
+		public int getBoardSize() {
+			return boardSize;
+		}
+
+		/**
+		 * Bitmask of {@link Languages} which were kept.
+		 */
+		public int getDialects() {
+			return dialects;
+		}
+
+		/**
+		 * Bytes which were read and decoded, rather than skipped over.
+		 */
+		public long getBytesRead() {
+			return totalBytes - bytesSkipped;
+		}
+
+		/**
+		 * Bytes belonging to subtrees which could never be reached on the board, and so were
+		 * skipped without being decoded.
+		 */
+		public long getBytesSkipped() {
+			return bytesSkipped;
+		}
+
+		/**
+		 * Nodes which were decoded. Some of these may be dropped straight away if, once their
+		 * own children have been pruned, they no longer lead to a word.
+		 */
+		public int getNodesMaterialized() {
+			return nodesMaterialized;
+		}
+
+		/**
+		 * Subtrees which were skipped (the nodes within them are not counted).
+		 */
+		public int getNodesSkipped() {
+			return nodesSkipped;
+		}
+
+		public long getWallTimeNanos() {
+			return wallTimeNanos;
+		}
+
+		@Override
+		public String toString() {
+			return "read " + getBytesRead() + " bytes, skipped " + bytesSkipped + " bytes (" + nodesSkipped + " subtrees), "
+					+ nodesMaterialized + " nodes materialized, in " + wallTimeNanos / 1000000 + "ms";
+		}
+	}
+
+	class SolveStats {
+		int boardSize;
+		int dialects;
+		int nodesVisited;
+		int branchesPruned;
+		int wordsEmitted;
+		int duplicateHits;
+		boolean complete;
+		long wallTimeNanos;
+
+		public int getBoardSize() {
+			return boardSize;
+		}
+
+		/**
+		 * Bitmask of {@link Languages} which words were found in.
+		 */
+		public int getDialects() {
+			return dialects;
+		}
+
+		/**
+		 * Trie nodes reached by at least one path on the board (counting each path separately).
+		 */
+		public int getNodesVisited() {
+			return nodesVisited;
+		}
+
+		/**
+		 * Moves to a neighbouring position which weren't followed, because no word continues
+		 * with that letter.
+		 */
+		public int getBranchesPruned() {
+			return branchesPruned;
+		}
+
+		/**
+		 * Words found, including those found more than once along different paths.
+		 */
+		public int getWordsEmitted() {
+			return wordsEmitted;
+		}
+
+		/**
+		 * Words which had already been found along a different path.
+		 */
+		public int getDuplicateHits() {
+			return duplicateHits;
+		}
+
+		/**
+		 * False if the solve was stopped early by a {@link Cancellation}.
+		 */
+		public boolean isComplete() {
+			return complete;
+		}
+
+		public long getWallTimeNanos() {
+			return wallTimeNanos;
+		}
+
+		@Override
+		public String toString() {
+			return "visited " + nodesVisited + " nodes, pruned " + branchesPruned + " branches, emitted "
+					+ wordsEmitted + " words (" + duplicateHits + " duplicates), " + (complete ? "" : "cancelled ") + "in " + wallTimeNanos / 1000000 + "ms";
+		}
+	}
+
+}
@@ -7,14 +7,16 @@ public interface TrieNode {
 
 	void writeNode(OutputStream out) throws IOException;
 
-	TrieNode addSuffix(String word, int currentPosition, boolean usWord, boolean ukWord);
+	TrieNode addSuffix(String word, int currentPosition, int dialects);
 
-	boolean usWord();
-
-	boolean ukWord();
+	/**
+	 * Bitmask of {@link Languages} in which the path to this node spells a word, or 0 if it is
+	 * only a prefix.
+	 */
+	int dialects();
 
 	boolean isTail();
 
-	boolean isWord(String word, int currentPosition, boolean usWord, boolean ukWord);
+	boolean isWord(String word, int currentPosition, int dialects);
 
 }
@@ -0,0 +1,249 @@
+package net.healeys.trie;
+
+import java.util.Arrays;
+
+/**
+ * Counts the words on boards by walking a serialized trie (as written by
+ * {@link StringTrie#write(java.io.OutputStream)}) in place, rather than deserializing it first.
+ * Nothing is allocated for each board once the working space has grown to fit, so it is cheap
+ * enough to score many candidate boards and keep the best (see {@link BoardTarget}).
+ *
+ * Unlike a solver, no paths are recorded. Each word is counted once, however many paths spell it.
+ * Blanks aren't supported, and neither are tokens of more than three letters.
+ *
+ * Not thread safe, as the working space is reused from one board to the next.
+ */
+public final class WordCounter {
+
+	private final byte[] trie;
+	private final int dialects;
+	private final int minLength;
+
+	private int[][] neighbours;
+	private boolean[] used = new boolean[0];
+
+	/**
+	 * The token at each position, packed by {@link #code(String)} so that it can be compared with
+	 * a label in one go.
+	 */
+	private int[] codes = new int[0];
+
+	/**
+	 * How many words of each length (in letters, so "qu" counts as two) were found on the last board.
+	 */
+	private int[] lengthCounts = new int[0];
+	private int wordCount;
+	private int maxLength;
+
+	/**
+	 * Offsets of the trie nodes which have been counted on the current board, as an open
+	 * addressing hash set. A slot is only in use if its stamp is the current {@link #stamp}, so
+	 * the set is emptied for each board just by incrementing it.
+	 */
+	private int[] foundOffsets = new int[256];
+	private int[] foundStamps = new int[256];
+	private int stamp;
+
+	public WordCounter(byte[] trie, int dialects, int minLength) {
+		this.trie = trie;
+		this.dialects = dialects;
+		this.minLength = minLength;
+	}
+
+	/**
+	 * @return The number of different words on the board.
+	 */
+	public int count(String[] letters, Topology topology) {
+		if (letters.length != topology.getSize()) {
+			throw new IllegalArgumentException("Expected " + topology.getSize() + " letters, not " + letters.length);
+		}
+
+		this.neighbours = topology.neighbours;
+		if (used.length < letters.length) {
+			used = new boolean[letters.length];
+			codes = new int[letters.length];
+		}
+		for (int position = 0; position < letters.length; position ++) {
+			codes[position] = code(letters[position]);
+		}
+
+		// Tokens which can be matched are at most three letters.
+		if (lengthCounts.length < letters.length * 3 + 1) {
+			lengthCounts = new int[letters.length * 3 + 1];
+		} else {
+			Arrays.fill(lengthCounts, 0);
+		}
+
+		wordCount = 0;
+		maxLength = 0;
+		if (++ stamp == 0) {
+			Arrays.fill(foundStamps, 0);
+			stamp = 1;
+		}
+
+		int childCount = readUnsignedShort(6);
+		int label = 8;
+		int child = childrenOffset(label, childCount);
+		for (int i = 0; i < childCount; i ++) {
+			int code = labelCode(label);
+			for (int position = 0; position < letters.length; position ++) {
+				if (codes[position] == code) {
+					walk(child, position, trie[label]);
+				}
+			}
+
+			label += 1 + trie[label];
+			child += 4 + readInt(child);
+		}
+
+		this.neighbours = null;
+		return wordCount;
+	}
+
+	public int getWordCount() {
+		return wordCount;
+	}
+
+	/**
+	 * The number of different words with exactly {@param length} letters on the last board.
+	 */
+	public int getWordCount(int length) {
+		return length < lengthCounts.length ? lengthCounts[length] : 0;
+	}
+
+	/**
+	 * The number of letters in the longest word on the last board, or 0 if there were none.
+	 */
+	public int getMaxLength() {
+		return maxLength;
+	}
+
+	/**
+	 * @param node Offset of the node reached by using the token at {@param position}.
+	 * @param length Letters in the word so far, including that token.
+	 */
+	private void walk(int node, int position, int length) {
+		used[position] = true;
+
+		if ((readUnsignedShort(node + 4) & dialects) != 0 && length >= minLength) {
+			found(node, length);
+		}
+
+		int childCount = readUnsignedShort(node + 6);
+		if (childCount > 0) {
+			int label = node + 8;
+			int child = childrenOffset(label, childCount);
+			int[] next = neighbours[position];
+			for (int i = 0; i < childCount; i ++) {
+				int code = labelCode(label);
+				for (int to : next) {
+					if (codes[to] == code && !used[to]) {
+						walk(child, to, length + trie[label]);
+					}
+				}
+
+				label += 1 + trie[label];
+				child += 4 + readInt(child);
+			}
+		}
+
+		used[position] = false;
+	}
+
+	private void found(int node, int length) {
+		int mask = foundOffsets.length - 1;
+		int slot = (node * 0x9e3779b9 >>> 16) & mask;
+		while (foundStamps[slot] == stamp) {
+			if (foundOffsets[slot] == node) {
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		foundOffsets[slot] = node;
+		foundStamps[slot] = stamp;
+		wordCount ++;
+		lengthCounts[length] ++;
+		maxLength = Math.max(maxLength, length);
+
+		if (wordCount * 2 > foundOffsets.length) {
+			growFound();
+		}
+	}
+
+	private void growFound() {
+		int[] offsets = foundOffsets;
+		int[] stamps = foundStamps;
+		foundOffsets = new int[offsets.length * 2];
+		foundStamps = new int[offsets.length * 2];
+
+		int mask = foundOffsets.length - 1;
+		for (int i = 0; i < offsets.length; i ++) {
+			if (stamps[i] == stamp) {
+				int slot = (offsets[i] * 0x9e3779b9 >>> 16) & mask;
+				while (foundStamps[slot] == stamp) {
+					slot = (slot + 1) & mask;
+				}
+				foundOffsets[slot] = offsets[i];
+				foundStamps[slot] = stamp;
+			}
+		}
+	}
+
+	/**
+	 * Packs a token of up to three ASCII letters into an int, along with its length. Anything
+	 * else can't be packed, and gets a code which no label has.
+	 */
+	private static int code(String token) {
+		int length = token.length();
+		if (length > 3) {
+			return -1;
+		}
+
+		int code = length << 24;
+		for (int i = 0; i < length; i ++) {
+			char letter = token.charAt(i);
+			if (letter > 0x7f) {
+				return -1;
+			}
+			code |= letter << (16 - i * 8);
+		}
+		return code;
+	}
+
+	/**
+	 * The same as {@link #code(String)}, for the label at {@param label} (a length byte followed
+	 * by the letters).
+	 */
+	private int labelCode(int label) {
+		int length = trie[label];
+		if (length > 3) {
+			return -2;
+		}
+
+		int code = length << 24;
+		for (int i = 0; i < length; i ++) {
+			code |= (trie[label + 1 + i] & 0xff) << (16 - i * 8);
+		}
+		return code;
+	}
+
+	/**
+	 * Children are serialized one after the other, straight after all of the labels.
+	 */
+	private int childrenOffset(int label, int childCount) {
+		for (int i = 0; i < childCount; i ++) {
+			label += 1 + trie[label];
+		}
+		return label;
+	}
+
+	private int readUnsignedShort(int offset) {
+		return (trie[offset] & 0xff) << 8 | trie[offset + 1] & 0xff;
+	}
+
+	private int readInt(int offset) {
+		return (trie[offset] & 0xff) << 24 | (trie[offset + 1] & 0xff) << 16 | (trie[offset + 2] & 0xff) << 8 | trie[offset + 3] & 0xff;
+	}
+
+}
@@ -0,0 +1,207 @@
+package net.healeys.trie;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+
+/**
+ * Append-only log of words which have been added to, or blocked from, a dictionary.
+ *
+ * The file starts with a short header, followed by one small record per change. Nothing is ever
+ * rewritten, so recording a change is a single small write, and loading is a single sequential
+ * read. Later records win over earlier ones, so blocking a word which was previously added (or
+ * vice versa) is simply another record.
+ *
+ * If the app is killed part way through appending a record, the partial record at the end of the
+ * file is ignored when it is next read, and cut off before anything else is appended.
+ */
+public final class WordJournal {
+
+	private static final int MAGIC = 0x4c584a31; // "LXJ1"
+
+	private static final byte ADDED = 1;
+	private static final byte BLOCKED = 2;
+
+	private WordJournal() {
+
+	}
+
+	public interface Handler {
+		void onAdded(String word, int dialects);
+
+		void onBlocked(String word, int dialects);
+	}
+
+	/**
+	 * Reads every record in the journal, in the order they were written.
+	 */
+	public static void replay(InputStream stream, Handler handler) throws IOException {
+		read(stream, handler);
+	}
+
+	/**
+	 * @param handler If null, the records are only checked, not handled.
+	 * @return How many bytes the header and every complete record take up.
+	 */
+	private static long read(InputStream stream, Handler handler) throws IOException {
+		CountingInputStream counter = new CountingInputStream(new BufferedInputStream(stream));
+		DataInputStream input = new DataInputStream(counter);
+
+		try {
+			if (input.readInt() != MAGIC) {
+				throw new IOException("Not a word journal");
+			}
+		} catch (EOFException e) {
+			// Nothing has been written yet.
+			return 0;
+		}
+
+		while (true) {
+			long complete = counter.count;
+
+			byte type;
+			int dialects;
+			String word;
+
+			try {
+				type = input.readByte();
+				dialects = input.readUnsignedShort();
+				word = input.readUTF();
+			} catch (EOFException e) {
+				return complete;
+			}
+
+			if (type != ADDED && type != BLOCKED) {
+				throw new IOException("Unknown word journal record: " + type);
+			}
+
+			if (handler == null) {
+				continue;
+			}
+
+			if (type == ADDED) {
+				handler.onAdded(word, dialects);
+			} else {
+				handler.onBlocked(word, dialects);
+			}
+		}
+	}
+
+	/**
+	 * How far through the journal has been read, so that the end of the last complete record is
+	 * known.
+	 */
+	private static class CountingInputStream extends FilterInputStream {
+
+		long count;
+
+		CountingInputStream(InputStream stream) {
+			super(stream);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int read = super.read();
+			if (read >= 0) {
+				count ++;
+			}
+			return read;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int read = super.read(buffer, offset, length);
+			if (read > 0) {
+				count += read;
+			}
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+	}
+
+	public static class Writer {
+
+		private final DataOutputStream output;
+
+		/**
+		 * Starts a new journal at the start of {@param stream}.
+		 */
+		public Writer(OutputStream stream) throws IOException {
+			this(stream, true);
+		}
+
+		private Writer(OutputStream stream, boolean writeHeader) throws IOException {
+			output = new DataOutputStream(new BufferedOutputStream(stream));
+			if (writeHeader) {
+				output.writeInt(MAGIC);
+				output.flush();
+			}
+		}
+
+		/**
+		 * Opens {@param file} for appending, creating it if it doesn't yet exist. A partial record
+		 * left at the end by an earlier write which didn't finish is cut off first, so that new
+		 * records start where the last complete one ended.
+		 */
+		public static Writer append(File file) throws IOException {
+			if (file.exists() && file.length() > 0) {
+				long complete;
+				FileInputStream stream = new FileInputStream(file);
+				try {
+					complete = read(stream, null);
+				} finally {
+					stream.close();
+				}
+
+				if (complete < file.length()) {
+					RandomAccessFile truncate = new RandomAccessFile(file, "rw");
+					try {
+						truncate.setLength(complete);
+					} finally {
+						truncate.close();
+					}
+				}
+			}
+
+			boolean isNew = !file.exists() || file.length() == 0;
+			return new Writer(new FileOutputStream(file, true), isNew);
+		}
+
+		public void added(String word, int dialects) throws IOException {
+			write(ADDED, word, dialects);
+		}
+
+		public void blocked(String word, int dialects) throws IOException {
+			write(BLOCKED, word, dialects);
+		}
+
+		private void write(byte type, String word, int dialects) throws IOException {
+			output.writeByte(type);
+			output.writeShort(dialects);
+			output.writeUTF(word);
+			output.flush();
+		}
+
+		public void close() throws IOException {
+			output.close();
+		}
+
+	}
+
+}
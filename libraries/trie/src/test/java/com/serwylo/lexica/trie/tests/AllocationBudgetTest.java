@@ -0,0 +1,265 @@
+package com.serwylo.lexica.trie.tests;
+
+import net.healeys.trie.GridTransitionMap;
+import net.healeys.trie.Languages;
+import net.healeys.trie.OverlayTrie;
+import net.healeys.trie.Solution;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.Topology;
+import net.healeys.trie.TransitionMap;
+import net.healeys.trie.TrieListener;
+import net.healeys.trie.WordCounter;
+import net.healeys.trie.WordFilter;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Extra garbage in the hot paths tends to show up well before any extra wall time does, so this
+ * checks the bytes allocated by each operation against a budget. When an intentional change
+ * needs a bigger budget, raise it here along with the reason.
+ *
+ * Each operation is warmed up first, so that class loading and the like aren't counted. The JIT
+ * may then remove some allocations entirely, so the budgets are upper bounds rather than exact.
+ */
+public class AllocationBudgetTest {
+
+	/**
+	 * Looking up a word only walks existing nodes, and should never allocate.
+	 */
+	private static final long IS_WORD_BYTES_PER_CALL = 0;
+
+	/**
+	 * Each solution costs its word, its array of positions, the {@link Solution} itself and an
+	 * entry in the map of solutions. Walking the rest of the board shouldn't cost anything.
+	 */
+	private static final long SOLVER_BYTES_PER_WORD = 256;
+
+	/**
+	 * Each node kept costs itself and a map of its children.
+	 */
+	private static final long DESERIALIZER_BYTES_PER_NODE = 192;
+
+	/**
+	 * Counting words reuses the same working space for every board, and should never allocate.
+	 */
+	private static final long WORD_COUNTER_BYTES_PER_BOARD = 0;
+
+	private static final int BOARDS = 32;
+	private static final int WARM_UP_ROUNDS = 5;
+
+	private static byte[] serialized;
+	private static StringTrie trie;
+	private static List<String> words;
+	private static List<GridTransitionMap> boards;
+
+	@BeforeClass
+	public static void setup() {
+		Assume.assumeTrue("Allocated bytes can't be measured on this JVM", TrieConformanceTest.allocatedBytes() >= 0);
+
+		Map<String, Integer> dictionary = TrieDeltaTest.readDictionaries();
+		serialized = TrieDeltaTest.serialize(dictionary);
+
+		Random random = new Random(37);
+		words = new ArrayList<>();
+		for (String word : dictionary.keySet()) {
+			if (words.size() >= 2000) {
+				break;
+			}
+
+			words.add(word);
+			words.add(word + "zz");
+			words.add(word.substring(0, 1 + random.nextInt(word.length())));
+		}
+
+		boards = new ArrayList<>();
+		for (int i = 0; i < BOARDS; i ++) {
+			boards.add(MultiBoardSolverTest.randomBoard(random, 4 + i % 3));
+		}
+	}
+
+	@Test
+	public void isWordDoesNotAllocate() throws IOException {
+		final StringTrie trie = loadTrie();
+		long allocated = measure(new Operation() {
+			@Override
+			public int run() {
+				int found = 0;
+				// Indexed, as an iterator would be the only thing allocated.
+				for (int i = 0; i < words.size(); i ++) {
+					if (trie.isWord(words.get(i), Languages.ALL)) {
+						found ++;
+					}
+				}
+				return found;
+			}
+		});
+
+		assertWithinBudget("isWord", allocated, words.size(), IS_WORD_BYTES_PER_CALL);
+	}
+
+	@Test
+	public void solverAllocatesPerWordFound() throws IOException {
+		final StringTrie trie = loadTrie();
+		final WordFilter filter = new WordFilter.MinLength(3);
+
+		final int[] wordsFound = new int[1];
+		long allocated = measure(new Operation() {
+			@Override
+			public int run() {
+				wordsFound[0] = 0;
+				for (GridTransitionMap board : boards) {
+					wordsFound[0] += trie.solver(board, filter, Languages.ALL).size();
+				}
+				return wordsFound[0];
+			}
+		});
+
+		assertWithinBudget("solver", allocated, wordsFound[0], SOLVER_BYTES_PER_WORD);
+	}
+
+	/**
+	 * The overlay combines the nodes its words share with the base the first time they are
+	 * walked, so after that it should cost no more per word than solving the base alone. Each
+	 * board has a blank, so that every child of the combined nodes gets walked.
+	 */
+	@Test
+	public void overlaySolverAllocatesPerWordFound() throws IOException {
+		final OverlayTrie overlay = new OverlayTrie(loadTrie());
+		for (int i = 0; i < words.size(); i += 3) {
+			overlay.addWord(words.get(i + 1), Languages.ALL);
+			overlay.blockWord(words.get(i), Languages.EN_GB.getMask());
+		}
+
+		final List<GridTransitionMap> blankBoards = new ArrayList<>();
+		for (GridTransitionMap board : boards) {
+			String[] values = new String[board.getSize()];
+			for (int i = 0; i < values.length; i ++) {
+				values[i] = i == values.length / 2 ? TransitionMap.BLANK : board.valueAt(i);
+			}
+			blankBoards.add(new GridTransitionMap(values));
+		}
+
+		final WordFilter filter = new WordFilter.MinLength(3);
+		final int[] wordsFound = new int[1];
+		long allocated = measure(new Operation() {
+			@Override
+			public int run() {
+				wordsFound[0] = 0;
+				for (int i = 0; i < blankBoards.size(); i ++) {
+					wordsFound[0] += overlay.solver(blankBoards.get(i), filter, Languages.ALL).size();
+				}
+				return wordsFound[0];
+			}
+		});
+
+		assertWithinBudget("overlay solver", allocated, wordsFound[0], SOLVER_BYTES_PER_WORD);
+	}
+
+	@Test
+	public void deserializerAllocatesPerNodeKept() {
+		final int[] nodes = new int[1];
+		final StringTrie.Deserializer deserializer = new StringTrie.Deserializer(new TrieListener.Adapter() {
+			@Override
+			public void onLoaded(LoadStats stats) {
+				nodes[0] += stats.getNodesMaterialized();
+			}
+		});
+
+		long allocated = measure(new Operation() {
+			@Override
+			public int run() throws IOException {
+				nodes[0] = 0;
+				int count = 0;
+				for (GridTransitionMap board : boards) {
+					StringTrie trie = deserializer.deserialize(new ByteArrayInputStream(serialized), board, Languages.ALL);
+					count += trie.isWord("lexica") ? 1 : 0;
+				}
+				return count;
+			}
+		});
+
+		assertWithinBudget("deserializer", allocated, nodes[0], DESERIALIZER_BYTES_PER_NODE);
+	}
+
+	@Test
+	public void wordCounterDoesNotAllocate() {
+		final WordCounter counter = new WordCounter(serialized, Languages.ALL, 3);
+		final List<String[]> letters = new ArrayList<>();
+		final List<Topology> topologies = new ArrayList<>();
+		for (GridTransitionMap board : boards) {
+			String[] values = new String[board.getSize()];
+			for (int i = 0; i < values.length; i ++) {
+				values[i] = board.valueAt(i);
+			}
+			letters.add(values);
+			topologies.add(board.getTopology());
+		}
+
+		long allocated = measure(new Operation() {
+			@Override
+			public int run() {
+				int found = 0;
+				for (int i = 0; i < letters.size(); i ++) {
+					found += counter.count(letters.get(i), topologies.get(i));
+				}
+				return found;
+			}
+		});
+
+		assertWithinBudget("word counter", allocated, letters.size(), WORD_COUNTER_BYTES_PER_BOARD);
+	}
+
+	private static StringTrie loadTrie() throws IOException {
+		if (trie == null) {
+			trie = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialized), null, Languages.ALL);
+		}
+		return trie;
+	}
+
+	/**
+	 * Bytes allocated by the last of several runs of {@param operation}.
+	 */
+	private static long measure(Operation operation) {
+		try {
+			for (int i = 0; i < WARM_UP_ROUNDS; i ++) {
+				operation.run();
+			}
+
+			// Reading the allocated bytes allocates too, which matters for budgets of nothing at all.
+			long before = TrieConformanceTest.allocatedBytes();
+			long overhead = TrieConformanceTest.allocatedBytes() - before;
+
+			before = TrieConformanceTest.allocatedBytes();
+			int result = operation.run();
+			long allocated = TrieConformanceTest.allocatedBytes() - before - overhead;
+
+			// Stops the JIT from removing the operation altogether.
+			assertTrue(result >= 0);
+			return allocated;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static void assertWithinBudget(String operation, long allocated, int count, long budgetPerCount) {
+		assertTrue(operation + " wasn't measured over anything", count > 0);
+		assertTrue(operation + " allocated " + allocated + " bytes for " + count + ", which is more than the budget of " + budgetPerCount + " each",
+				allocated <= budgetPerCount * count);
+	}
+
+	private interface Operation {
+		int run() throws IOException;
+	}
+
+}
@@ -0,0 +1,152 @@
+package com.serwylo.lexica.trie.tests;
+
+import net.healeys.trie.Cancellation;
+import net.healeys.trie.GridTransitionMap;
+import net.healeys.trie.Languages;
+import net.healeys.trie.MultiBoardSolver;
+import net.healeys.trie.Solution;
+import net.healeys.trie.SolveResult;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.Topology;
+import net.healeys.trie.WordFilter;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AnagramSolverTest {
+
+	private static Map<String, Integer> dictionary;
+	private static StringTrie trie;
+
+	@BeforeClass
+	public static void loadTrie() throws IOException {
+		dictionary = TrieDeltaTest.readDictionaries();
+		trie = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(TrieDeltaTest.serialize(dictionary)), null, Languages.ALL);
+	}
+
+	@Test
+	public void completeTopologiesConnectEverything() {
+		Topology complete = Topology.complete(3, 2);
+		assertTrue(complete.isComplete());
+		assertArrayEquals(new int[] { 3, 1, 4, 2, 5 }, complete.getNeighbours(0));
+
+		assertFalse(Topology.grid(3, 2).isComplete());
+		assertTrue(Topology.grid(2, 2).isComplete());
+	}
+
+	@Test
+	public void reportsTheSamePathsAsAPlainSearch() {
+		Set<String> prefixes = GridTransitionMapTest.prefixesOf(dictionary);
+		WordFilter filter = new WordFilter.MinLength(3);
+
+		Random random = new Random(41);
+		Topology[] topologies = { Topology.complete(7, 1), Topology.complete(3, 3), Topology.complete(2, 4) };
+		List<GridTransitionMap> boards = new ArrayList<>();
+		for (Topology topology : topologies) {
+			boards.add(new GridTransitionMap(lettersFor(random, topology), topology));
+		}
+
+		List<Map<String, Solution>> together = new MultiBoardSolver(trie).solve(boards, filter, Languages.ALL);
+		for (int i = 0; i < boards.size(); i ++) {
+			GridTransitionMap board = boards.get(i);
+			Map<String, Integer[]> expected = GridTransitionMapTest.plainSearch(board, dictionary, prefixes);
+			Map<String, Solution> solutions = trie.solver(board, filter);
+
+			assertFalse(board.toString(), expected.isEmpty());
+			assertEquals(board.toString(), expected.keySet(), solutions.keySet());
+			assertEquals(board.toString(), expected.keySet(), together.get(i).keySet());
+			for (Map.Entry<String, Integer[]> entry : expected.entrySet()) {
+				assertArrayEquals(entry.getKey(), entry.getValue(), solutions.get(entry.getKey()).getPositions());
+				assertArrayEquals(entry.getKey(), entry.getValue(), together.get(i).get(entry.getKey()).getPositions());
+			}
+		}
+	}
+
+	@Test
+	public void solvesLargeBoardsQuickly() {
+		Random random = new Random(36);
+		for (int width : new int[] { 4, 5, 6 }) {
+			Topology topology = Topology.complete(width, width);
+			GridTransitionMap board = new GridTransitionMap(lettersFor(random, topology), topology);
+
+			// Searching every ordering of 16 or more letters would never finish in time.
+			SolveResult result = trie.solver(board, new WordFilter.MinLength(3), Languages.ALL, Cancellation.after(5, TimeUnit.SECONDS));
+			assertTrue(board.toString(), result.isComplete());
+
+			assertEquals(board.toString(), wordsSpeltBy(board), new TreeSet<>(result.getSolutions().keySet()));
+			for (Solution solution : result.getSolutions().values()) {
+				assertSpelt(board, solution);
+			}
+		}
+	}
+
+	/**
+	 * Every word of three or more letters which needs no more of each token than the board has.
+	 */
+	private static Set<String> wordsSpeltBy(GridTransitionMap board) {
+		Map<String, Integer> available = new HashMap<>();
+		for (int i = 0; i < board.getSize(); i ++) {
+			Integer count = available.get(board.valueAt(i));
+			available.put(board.valueAt(i), count == null ? 1 : count + 1);
+		}
+
+		Set<String> words = new TreeSet<>();
+		for (Map.Entry<String, Integer> entry : dictionary.entrySet()) {
+			String word = entry.getKey();
+			if (entry.getValue() == 0 || word.length() < 3) {
+				continue;
+			}
+
+			Map<String, Integer> needed = new HashMap<>();
+			boolean fits = true;
+			for (int i = 0; i < word.length() && fits; i += StringTrie.tokenAt(word, i).length()) {
+				String token = StringTrie.tokenAt(word, i);
+				Integer count = needed.get(token);
+				needed.put(token, count == null ? 1 : count + 1);
+				fits = available.containsKey(token) && needed.get(token) <= available.get(token);
+			}
+
+			if (fits) {
+				words.add(word);
+			}
+		}
+		return words;
+	}
+
+	private static void assertSpelt(GridTransitionMap board, Solution solution) {
+		StringBuilder spelt = new StringBuilder();
+		Set<Integer> used = new HashSet<>();
+		for (Integer position : solution.getPositions()) {
+			assertTrue(solution.getWord() + " uses " + position + " twice", used.add(position));
+			spelt.append(board.valueAt(position));
+		}
+		assertEquals(solution.getWord(), spelt.toString());
+	}
+
+	private static String[] lettersFor(Random random, Topology topology) {
+		GridTransitionMap square = MultiBoardSolverTest.randomBoard(random, Math.max(topology.getWidth(), topology.getHeight()));
+		String[] letters = new String[topology.getSize()];
+		for (int i = 0; i < letters.length; i ++) {
+			letters[i] = square.valueAt(i);
+		}
+		return letters;
+	}
+
+}
@@ -0,0 +1,160 @@
+package com.serwylo.lexica.trie.tests;
+
+import net.healeys.trie.Cancellation;
+import net.healeys.trie.GridTransitionMap;
+import net.healeys.trie.Languages;
+import net.healeys.trie.MultiBoardSolver;
+import net.healeys.trie.Solution;
+import net.healeys.trie.SolveResult;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.Topology;
+import net.healeys.trie.TransitionMap;
+import net.healeys.trie.Trie;
+import net.healeys.trie.WordFilter;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BlankTileTest {
+
+	private static final String B = TransitionMap.BLANK;
+
+	private static Map<String, Integer> dictionary;
+	private static byte[] serialized;
+	private static StringTrie trie;
+	private static Set<String> prefixes;
+
+	@BeforeClass
+	public static void loadTrie() throws IOException {
+		dictionary = TrieDeltaTest.readDictionaries();
+		serialized = TrieDeltaTest.serialize(dictionary);
+		trie = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialized), null, Languages.ALL);
+		prefixes = GridTransitionMapTest.prefixesOf(dictionary);
+	}
+
+	@Test
+	public void recordsTheTokenEachBlankStoodFor() {
+		Trie trie = new StringTrie();
+		trie.addWord("cat", Languages.ALL);
+		trie.addWord("cot", Languages.ALL);
+		trie.addWord("quit", Languages.ALL);
+		trie.addWord("tax", Languages.ALL);
+		trie.addWord("ict", Languages.ALL);
+
+		GridTransitionMap board = new GridTransitionMap(new String[] {
+				"c", B, "t",
+				"x", "x", "x",
+				B, "i", "t",
+		});
+
+		Map<String, Solution> solutions = trie.solver(board, null);
+		assertEquals(4, solutions.size());
+		assertFalse("The blank next to the \"i\" isn't next to a \"t\"", solutions.containsKey("ict"));
+
+		assertArrayEquals(new Integer[] { 0, 1, 2 }, solutions.get("cat").getPositions());
+		assertArrayEquals(new String[] { "c", "a", "t" }, solutions.get("cat").getTokens());
+		assertArrayEquals(new String[] { "c", "o", "t" }, solutions.get("cot").getTokens());
+		assertArrayEquals(new Integer[] { 6, 7, 8 }, solutions.get("quit").getPositions());
+		assertArrayEquals(new String[] { "qu", "i", "t" }, solutions.get("quit").getTokens());
+		assertArrayEquals(new Integer[] { 2, 1, 5 }, solutions.get("tax").getPositions());
+		assertArrayEquals(new String[] { "t", "a", "x" }, solutions.get("tax").getTokens());
+	}
+
+	@Test
+	public void solvesGridsWithBlanksLikeAPlainSearch() throws IOException {
+		Random random = new Random(42);
+		List<GridTransitionMap> boards = new ArrayList<>();
+		boards.add(withBlanks(random, Topology.grid(5, 5), 2));
+		boards.add(withBlanks(random, Topology.grid(4, 4), 3));
+		boards.add(withBlanks(random, Topology.hex(5, 5), 1));
+		boards.add(withBlanks(random, Topology.grid(4, 4), 0));
+
+		WordFilter filter = new WordFilter.MinLength(3);
+		List<Map<String, Solution>> together = new MultiBoardSolver(trie).solve(boards, filter, Languages.ALL);
+		for (int i = 0; i < boards.size(); i ++) {
+			GridTransitionMap board = boards.get(i);
+			Map<String, Integer[]> expected = GridTransitionMapTest.plainSearch(board, dictionary, prefixes);
+
+			assertSolutions(board.toString(), expected, trie.solver(board, filter));
+			assertSolutions(board + " solved together", expected, together.get(i));
+
+			StringTrie loadedForBoard = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialized), board, Languages.ALL);
+			assertSolutions(board + " loaded for the board", expected, loadedForBoard.solver(board, filter));
+		}
+	}
+
+	@Test
+	public void solvesAnagramsWithBlanksLikeAPlainSearch() {
+		Random random = new Random(43);
+		GridTransitionMap[] boards = {
+				withBlanks(random, Topology.complete(7, 1), 2),
+				withBlanks(random, Topology.complete(3, 3), 1),
+		};
+
+		for (GridTransitionMap board : boards) {
+			Map<String, Integer[]> expected = GridTransitionMapTest.plainSearch(board, dictionary, prefixes);
+			assertSolutions(board.toString(), expected, trie.solver(board, new WordFilter.MinLength(3)));
+		}
+	}
+
+	@Test
+	public void staysQuickWithManyBlanks() {
+		Random random = new Random(44);
+		GridTransitionMap[] boards = {
+				withBlanks(random, Topology.grid(5, 5), 4),
+				withBlanks(random, Topology.complete(6, 6), 4),
+		};
+
+		for (GridTransitionMap board : boards) {
+			SolveResult result = trie.solver(board, new WordFilter.MinLength(3), Languages.ALL, Cancellation.after(5, TimeUnit.SECONDS));
+			assertTrue(board.toString(), result.isComplete());
+
+			for (Solution solution : result.getSolutions().values()) {
+				String[] tokens = solution.getTokens();
+				Integer[] positions = solution.getPositions();
+				assertEquals(solution.getWord(), positions.length, tokens.length);
+				for (int i = 0; i < positions.length; i ++) {
+					String value = board.valueAt(positions[i]);
+					assertTrue(solution.getWord(), value.equals(B) || value.equals(tokens[i]));
+				}
+			}
+		}
+	}
+
+	private static void assertSolutions(String name, Map<String, Integer[]> expected, Map<String, Solution> solutions) {
+		assertFalse(name, expected.isEmpty());
+		assertEquals(name, expected.keySet(), solutions.keySet());
+		for (Map.Entry<String, Integer[]> entry : expected.entrySet()) {
+			assertArrayEquals(name + " " + entry.getKey(), entry.getValue(), solutions.get(entry.getKey()).getPositions());
+		}
+	}
+
+	private static GridTransitionMap withBlanks(Random random, Topology topology, int blanks) {
+		GridTransitionMap square = MultiBoardSolverTest.randomBoard(random, Math.max(topology.getWidth(), topology.getHeight()));
+		String[] letters = new String[topology.getSize()];
+		for (int i = 0; i < letters.length; i ++) {
+			letters[i] = square.valueAt(i);
+		}
+
+		for (int i = 0; i < blanks; i ++) {
+			letters[random.nextInt(letters.length)] = B;
+		}
+
+		return new GridTransitionMap(letters, topology);
+	}
+
+}
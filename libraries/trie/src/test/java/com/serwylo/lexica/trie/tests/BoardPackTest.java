@@ -0,0 +1,183 @@
+package com.serwylo.lexica.trie.tests;
+
+import net.healeys.trie.BoardPack;
+import net.healeys.trie.BoardTarget;
+import net.healeys.trie.GridTransitionMap;
+import net.healeys.trie.Languages;
+import net.healeys.trie.LetterGenerator;
+import net.healeys.trie.Solution;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.Topology;
+import net.healeys.trie.WordCounter;
+import net.healeys.trie.WordFilter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BoardPackTest {
+
+	private static final int US = Languages.EN_US.getMask();
+	private static final int UK = Languages.EN_GB.getMask();
+
+	@Test
+	public void readsBackEveryBoardAndSolution() throws IOException {
+		StringTrie trie = MultiBoardSolverTest.loadFullDictionary();
+		Random random = new Random(45);
+
+		List<String[]> boards = new ArrayList<>();
+		List<Map<String, Solution>> solutions = new ArrayList<>();
+		BoardPack.Writer writer = new BoardPack.Writer();
+		for (int i = 0; i < 12; i ++) {
+			int width = 4 + i % 3;
+			int dialect = i < 6 ? US : UK;
+			int minLength = width - 1;
+
+			GridTransitionMap board = MultiBoardSolverTest.randomBoard(random, width);
+			Map<String, Solution> solved = trie.solver(board, new WordFilter.MinLength(minLength), dialect);
+			writer.add(dialect, minLength, lettersOf(board), solved.values());
+
+			boards.add(lettersOf(board));
+			solutions.add(solved);
+		}
+
+		BoardPack pack = BoardPack.read(ByteBuffer.wrap(write(writer)));
+		assertEquals(6, pack.getSections().size());
+		assertNull(pack.getSection(16, US, 4));
+		assertNull(pack.getSection(49, US, 3));
+
+		for (int i = 0; i < boards.size(); i ++) {
+			int width = 4 + i % 3;
+			BoardPack.Section section = pack.getSection(width * width, i < 6 ? US : UK, width - 1);
+			assertEquals(2, section.getBoardCount());
+
+			BoardPack.Entry entry = section.get(i % 6 / 3);
+			assertEquals(solutions.get(i).size(), section.getWordCount(i % 6 / 3));
+			assertArrayEquals(boards.get(i), entry.getLetters());
+			assertEquals(solutions.get(i).keySet(), entry.getSolutions().keySet());
+			for (Solution solution : solutions.get(i).values()) {
+				assertArrayEquals(solution.getWord(), solution.getPositions(), entry.getSolutions().get(solution.getWord()).getPositions());
+			}
+		}
+	}
+
+	@Test
+	public void targetsTheWordCountsOfASection() throws IOException {
+		byte[] serialized = TrieDeltaTest.serialize(TrieDeltaTest.readDictionaries());
+		StringTrie trie = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialized), null, Languages.ALL);
+		WordCounter counter = new WordCounter(serialized, US, 3);
+		Topology grid = Topology.grid(4, 4);
+
+		Random random = new Random(46);
+		BoardPack.Writer writer = new BoardPack.Writer();
+		List<String[]> boards = new ArrayList<>();
+		for (int i = 0; i < 8; i ++) {
+			GridTransitionMap board = MultiBoardSolverTest.randomBoard(random, 4);
+			writer.add(US, 3, lettersOf(board), trie.solver(board, new WordFilter.MinLength(3), US).values());
+			boards.add(lettersOf(board));
+		}
+
+		BoardTarget target = new BoardTarget().wordsLike(BoardPack.read(ByteBuffer.wrap(write(writer))).getSection(16, US, 3));
+		for (String[] letters : boards) {
+			counter.count(letters, grid);
+			assertTrue(target.accepts(counter));
+		}
+
+		counter.count(new String[] {
+				"x", "x", "x", "x",
+				"x", "x", "x", "x",
+				"x", "x", "x", "x",
+				"x", "x", "x", "x",
+		}, grid);
+		assertFalse(target.accepts(counter));
+	}
+
+	@Test
+	public void storesPathsCompactly() throws IOException {
+		StringTrie trie = MultiBoardSolverTest.loadFullDictionary();
+		GridTransitionMap board = new GridTransitionMap(new String[] {
+				"s", "t", "a", "r", "e",
+				"l", "i", "n", "e", "s",
+				"t", "o", "p", "a", "r",
+				"e", "d", "s", "t", "i",
+				"n", "g", "e", "r", "s",
+		});
+		Map<String, Solution> solved = trie.solver(board, new WordFilter.MinLength(4), US);
+
+		int positions = 0;
+		for (Solution solution : solved.values()) {
+			positions += solution.getPositions().length;
+		}
+
+		BoardPack.Writer writer = new BoardPack.Writer();
+		writer.add(US, 4, lettersOf(board), solved.values());
+
+		// Storing one byte per position would be more than this, even before the header.
+		assertTrue(solved.size() > 100);
+		assertTrue(write(writer).length < positions * 3 / 4);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsWordsWhichAreNotSpeltByTheirPath() {
+		Solution wrong = new Solution.Default("cat", new Integer[] { 0, 2, 1 });
+		new BoardPack.Writer().add(US, 3, new String[] { "c", "a", "t", "s" }, Collections.singletonList(wrong));
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsTruncatedPacks() throws IOException {
+		BoardPack.Writer writer = new BoardPack.Writer();
+		writer.add(US, 3, new String[] { "c", "a", "t", "s" }, Collections.<Solution>singletonList(new Solution.Default("cat", new Integer[] { 0, 1, 2 })));
+		byte[] bytes = write(writer);
+		BoardPack.read(ByteBuffer.wrap(Arrays.copyOf(bytes, 12)));
+	}
+
+	@Test
+	public void generatesBoardsFromTheLetterWeights() throws IOException {
+		// Only two "a"s can be drawn, and only one "qu".
+		LetterGenerator generator = new LetterGenerator(new ByteArrayInputStream("Qu 3\nA 10 5\nE 100 100 100 100 100 100 100 100 100 100 100 100 100 100 100 100\n".getBytes("UTF-8")));
+		for (int seed = 0; seed < 20; seed ++) {
+			String[] letters = generator.generateBoard(16, new Random(seed));
+			int as = 0;
+			int qus = 0;
+			for (String letter : letters) {
+				assertTrue(letter, letter.equals("a") || letter.equals("e") || letter.equals("qu"));
+				as += letter.equals("a") ? 1 : 0;
+				qus += letter.equals("qu") ? 1 : 0;
+			}
+			assertTrue(as <= 2);
+			assertTrue(qus <= 1);
+		}
+
+		assertArrayEquals(generator.generateBoard(16, new Random(1)), generator.generateBoard(16, new Random(1)));
+	}
+
+	private static String[] lettersOf(GridTransitionMap board) {
+		String[] letters = new String[board.getSize()];
+		for (int i = 0; i < letters.length; i ++) {
+			letters[i] = board.valueAt(i);
+		}
+		return letters;
+	}
+
+	private static byte[] write(BoardPack.Writer writer) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		writer.write(bytes);
+		return bytes.toByteArray();
+	}
+
+}
@@ -53,4 +53,9 @@ public class CanTransitionMap implements TransitionMap {
     public int getWidth() {
         return (int)Math.ceil(Math.sqrt(letters.length));
     }
+
+    @Override
+    public int getHeight() {
+        return getWidth();
+    }
 }
@@ -0,0 +1,156 @@
+package com.serwylo.lexica.trie.tests;
+
+import net.healeys.trie.Cancellation;
+import net.healeys.trie.GridTransitionMap;
+import net.healeys.trie.Languages;
+import net.healeys.trie.MultiBoardSolver;
+import net.healeys.trie.OverlayTrie;
+import net.healeys.trie.Solution;
+import net.healeys.trie.SolveResult;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.TrieListener;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CancellationTest {
+
+	private static StringTrie trie;
+
+	@BeforeClass
+	public static void loadTrie() throws IOException {
+		trie = MultiBoardSolverTest.loadFullDictionary();
+	}
+
+	@Test
+	public void solvesEverythingWhenNotCancelled() {
+		GridTransitionMap board = MultiBoardSolverTest.randomBoard(new Random(3), 5);
+
+		SolveResult result = trie.solver(board, null, Languages.ALL, new Cancellation());
+
+		assertTrue(result.isComplete());
+		assertSameSolutions(trie.solver(board, null, Languages.ALL), result.getSolutions());
+	}
+
+	@Test
+	public void findsNothingWhenAlreadyCancelled() {
+		Cancellation cancellation = new Cancellation();
+		cancellation.cancel();
+
+		GridTransitionMap board = MultiBoardSolverTest.randomBoard(new Random(3), 5);
+
+		SolveResult result = trie.solver(board, null, Languages.ALL, cancellation);
+		assertFalse(result.isComplete());
+		assertTrue(result.getSolutions().isEmpty());
+
+		SolveResult overlayResult = new OverlayTrie(trie).solver(board, null, Languages.ALL, cancellation);
+		assertFalse(overlayResult.isComplete());
+		assertTrue(overlayResult.getSolutions().isEmpty());
+	}
+
+	@Test
+	public void stopsSoonAfterBeingCancelled() throws IOException {
+		final int[] nodesVisited = new int[1];
+		byte[] serialized = TrieDeltaTest.serialize(TrieDeltaTest.readDictionaries());
+		StringTrie trie = new StringTrie.Deserializer(new TrieListener.Adapter() {
+			@Override
+			public void onSolved(SolveStats stats) {
+				nodesVisited[0] = stats.getNodesVisited();
+			}
+		}).deserialize(new ByteArrayInputStream(serialized), null, Languages.ALL);
+
+		CanTransitionMap board = new CanTransitionMap();
+		SolveResult result = trie.solver(board, null, Languages.ALL, new CancelledAfterChecks(3));
+
+		assertFalse(result.isComplete());
+		assertFalse(result.getSolutions().isEmpty());
+		assertTrue("Visited " + nodesVisited[0] + " nodes", nodesVisited[0] > 0 && nodesVisited[0] <= 3 * 1024);
+		assertPartOf(trie.solver(board, null, Languages.ALL), result.getSolutions());
+	}
+
+	@Test
+	public void stopsOnceTheDeadlinePasses() {
+		// Every position can be reached from every other, over and over again, so this would
+		// otherwise walk the entire dictionary.
+		CanTransitionMap board = new CanTransitionMap();
+
+		SolveResult result = trie.solver(board, null, Languages.ALL, Cancellation.after(10, TimeUnit.MILLISECONDS));
+
+		assertFalse(result.isComplete());
+		for (String word : result.getSolutions().keySet()) {
+			assertTrue(word, trie.isWord(word));
+		}
+	}
+
+	@Test
+	public void stopsEveryBoardSolvedTogether() {
+		Random random = new Random(11);
+		List<GridTransitionMap> boards = new ArrayList<>();
+		for (int i = 0; i < 8; i ++) {
+			boards.add(MultiBoardSolverTest.randomBoard(random, 6));
+		}
+
+		MultiBoardSolver solver = new MultiBoardSolver(trie);
+		List<Map<String, Solution>> expected = solver.solve(boards, null, Languages.ALL);
+
+		List<SolveResult> complete = solver.solve(boards, null, Languages.ALL, new Cancellation());
+		List<SolveResult> cancelled = solver.solve(boards, null, Languages.ALL, new CancelledAfterChecks(2));
+
+		for (int i = 0; i < boards.size(); i ++) {
+			assertTrue(complete.get(i).isComplete());
+			assertSameSolutions(expected.get(i), complete.get(i).getSolutions());
+
+			assertFalse(cancelled.get(i).isComplete());
+			assertPartOf(expected.get(i), cancelled.get(i).getSolutions());
+		}
+	}
+
+	private static void assertSameSolutions(Map<String, Solution> expected, Map<String, Solution> actual) {
+		assertEquals(expected.keySet(), actual.keySet());
+		for (Map.Entry<String, Solution> entry : expected.entrySet()) {
+			assertArrayEquals(entry.getKey(), entry.getValue().getPositions(), actual.get(entry.getKey()).getPositions());
+		}
+	}
+
+	/**
+	 * Only the words are compared, because a word may be found along a different path before the
+	 * path which would eventually have been reported.
+	 */
+	private static void assertPartOf(Map<String, Solution> all, Map<String, Solution> part) {
+		assertTrue(part.size() < all.size());
+		assertTrue(all.keySet().containsAll(part.keySet()));
+	}
+
+	/**
+	 * Cancels itself the nth time it is checked, so that tests don't depend on timing.
+	 */
+	private static class CancelledAfterChecks extends Cancellation {
+		private int checksLeft;
+
+		CancelledAfterChecks(int checks) {
+			this.checksLeft = checks;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			if (-- checksLeft <= 0) {
+				cancel();
+			}
+			return super.isCancelled();
+		}
+	}
+
+}
@@ -1,14 +1,21 @@
 package com.serwylo.lexica.trie.tests;
 
 import net.healeys.trie.Deserializer;
+import net.healeys.trie.Languages;
 import net.healeys.trie.StringTrie;
 import net.healeys.trie.Trie;
+import net.healeys.trie.WordFilter;
 
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class CustomUsUkTrieTest extends TrieTest {
@@ -58,6 +65,48 @@ public class CustomUsUkTrieTest extends TrieTest {
 		assertEverythingAboutTrie(trie, new StringTrie.Deserializer());
 	}
 
+	@Test
+	public void testSwitchingDialectsWithoutReloading() throws IOException {
+		StringTrie trie = new StringTrie();
+
+		addWords(trie, US_WORDS, true, false);
+		addWords(trie, UK_WORDS, false, true);
+		addWords(trie, BOTH_DIALECTS, true, true);
+
+		Trie resident = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialize(trie)), null, Languages.ALL);
+
+		int us = Languages.EN_US.getMask();
+		int uk = Languages.EN_GB.getMask();
+
+		assertTrue(resident.isWord("america", us));
+		assertFalse(resident.isWord("america", uk));
+		assertTrue(resident.isWord("monarch", uk));
+		assertFalse(resident.isWord("monarch", us));
+		assertTrue(resident.isWord("alibi", us));
+		assertTrue(resident.isWord("alibi", uk));
+
+		CanTransitionMap abcehilmnor = new CanTransitionMap(new String[]{"a", "b", "c", "e", "h", "i", "l", "m", "n", "o", "r"});
+		WordFilter anyLength = new WordFilter.MinLength(1);
+
+		assertEquals(new HashSet<>(Arrays.asList("a", "alibi", "america")), resident.solver(abcehilmnor, anyLength, us).keySet());
+		assertEquals(new HashSet<>(Arrays.asList("a", "alibi", "monarch")), resident.solver(abcehilmnor, anyLength, uk).keySet());
+		assertEquals(new HashSet<>(Arrays.asList("a", "alibi", "america", "monarch")), resident.solver(abcehilmnor, anyLength, Languages.ALL).keySet());
+	}
+
+	@Test
+	public void testWordsFromOtherDialectsDontHideLongerWords() throws IOException {
+		StringTrie trie = new StringTrie();
+
+		// "program" is only a word in the US dictionary, but it is a prefix of the UK "programme".
+		trie.addWord("program", Languages.EN_US.getMask());
+		trie.addWord("programme", Languages.EN_GB.getMask());
+
+		String[] letters = new String[]{"a", "e", "g", "m", "o", "p", "r"};
+		Trie ukOnly = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialize(trie)), new CanTransitionMap(letters), false, true);
+
+		assertTrieMatches("After deserializing only UK words", ukOnly, null, new String[]{"programme"}, null);
+	}
+
 	// "aeinqt" => "a" (all), "quit" (all), "aqua" (all), "queen" (uk)
 	// "abcehilmnor" => "america" (us), "monarch" (uk), "a" (all), "alibi" (all)
 	private static <T extends Trie> void assertEverythingAboutTrie(T trie, Deserializer<T> deserializer) {
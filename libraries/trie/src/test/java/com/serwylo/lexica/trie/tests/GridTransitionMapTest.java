@@ -0,0 +1,200 @@
+package com.serwylo.lexica.trie.tests;
+
+import net.healeys.trie.GridTransitionMap;
+import net.healeys.trie.Languages;
+import net.healeys.trie.Solution;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.TransitionMap;
+import net.healeys.trie.Trie;
+import net.healeys.trie.WordFilter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GridTransitionMapTest {
+
+	private static final GridTransitionMap BOARD = new GridTransitionMap(new String[] {
+			"c", "a", "t",
+			"x", "r", "s",
+			"qu", "i", "t",
+	});
+
+	@Test
+	public void canOnlyTransitionToNeighbours() {
+		assertEquals(3, BOARD.getWidth());
+		assertEquals(9, BOARD.getSize());
+
+		assertTrue(BOARD.canTransition(0, 0, 1, 1));
+		assertTrue(BOARD.canTransition(1, 1, 2, 2));
+		assertTrue(BOARD.canTransition(2, 1, 2, 0));
+		assertFalse(BOARD.canTransition(0, 0, 0, 0));
+		assertFalse(BOARD.canTransition(0, 0, 2, 0));
+		assertFalse(BOARD.canTransition(0, 0, 0, 3));
+		assertFalse(BOARD.canRevisit());
+	}
+
+	@Test
+	public void solvesWithoutRevisiting() {
+		Trie trie = new StringTrie();
+		trie.addWord("cat", Languages.ALL);
+		trie.addWord("cats", Languages.ALL);
+		trie.addWord("tat", Languages.ALL);
+		trie.addWord("quit", Languages.ALL);
+		trie.addWord("arc", Languages.ALL);
+		trie.addWord("carts", Languages.EN_US.getMask());
+		trie.addWord("trit", Languages.ALL);
+
+		Map<String, Solution> solutions = trie.solver(BOARD, new WordFilter.MinLength(3));
+		assertEquals(6, solutions.size());
+		assertFalse("Can't use the same \"t\" twice", solutions.containsKey("tat"));
+		assertArrayEquals(new Integer[] { 0, 1, 2 }, solutions.get("cat").getPositions());
+		assertArrayEquals(new Integer[] { 0, 1, 2, 5 }, solutions.get("cats").getPositions());
+		assertArrayEquals(new Integer[] { 6, 7, 8 }, solutions.get("quit").getPositions());
+		assertArrayEquals(new Integer[] { 1, 4, 0 }, solutions.get("arc").getPositions());
+		assertArrayEquals(new Integer[] { 0, 1, 4, 8, 5 }, solutions.get("carts").getPositions());
+		assertArrayEquals(new Integer[] { 2, 4, 7, 8 }, solutions.get("trit").getPositions());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsBoardsWhichArentSquare() {
+		new GridTransitionMap(new String[] { "a", "b", "c" });
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsRowsOfDifferentLengths() {
+		new GridTransitionMap(new String[] { "a", "b", "c" }, 2);
+	}
+
+	@Test
+	public void solvesRectangularBoards() {
+		GridTransitionMap board = new GridTransitionMap(new String[] {
+				"c", "a", "t", "s", "x",
+				"x", "x", "x", "x", "o",
+		}, 5);
+
+		assertEquals(5, board.getWidth());
+		assertEquals(2, board.getHeight());
+		assertFalse(board.canTransition(0, 0, 0, 2));
+
+		Trie trie = new StringTrie();
+		trie.addWord("cats", Languages.ALL);
+		trie.addWord("catso", Languages.ALL);
+		trie.addWord("sox", Languages.ALL);
+
+		Map<String, Solution> solutions = trie.solver(board, null);
+		assertEquals(3, solutions.size());
+		assertArrayEquals(new Integer[] { 0, 1, 2, 3, 9 }, solutions.get("catso").getPositions());
+		assertArrayEquals(new Integer[] { 3, 9, 4 }, solutions.get("sox").getPositions());
+	}
+
+	@Test
+	public void solvesBoardsOfAnySizeLikeAPlainSearch() throws IOException {
+		Map<String, Integer> dictionary = TrieDeltaTest.readDictionaries();
+		StringTrie trie = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(TrieDeltaTest.serialize(dictionary)), null, Languages.ALL);
+
+		Set<String> prefixes = prefixesOf(dictionary);
+
+		Random random = new Random(13);
+		int[][] shapes = { { 7, 7 }, { 8, 8 }, { 10, 10 }, { 12, 3 }, { 1, 20 } };
+		for (int[] shape : shapes) {
+			GridTransitionMap square = MultiBoardSolverTest.randomBoard(random, Math.max(shape[0], shape[1]));
+			String[] letters = new String[shape[0] * shape[1]];
+			for (int i = 0; i < letters.length; i ++) {
+				letters[i] = square.valueAt(i);
+			}
+			GridTransitionMap board = new GridTransitionMap(letters, shape[0]);
+
+			Map<String, Integer[]> expected = plainSearch(board, dictionary, prefixes);
+			Map<String, Solution> solutions = trie.solver(board, new WordFilter.MinLength(3));
+			String name = shape[0] + "x" + shape[1];
+			assertEquals(name, expected.keySet(), solutions.keySet());
+			for (Map.Entry<String, Integer[]> entry : expected.entrySet()) {
+				assertArrayEquals(name + " " + entry.getKey(), entry.getValue(), solutions.get(entry.getKey()).getPositions());
+			}
+		}
+	}
+
+	static Set<String> prefixesOf(Map<String, Integer> dictionary) {
+		Set<String> prefixes = new HashSet<>();
+		for (String word : dictionary.keySet()) {
+			for (int i = 1; i <= word.length(); i ++) {
+				prefixes.add(word.substring(0, i));
+			}
+		}
+		return prefixes;
+	}
+
+	/**
+	 * Every word of three or more letters on {@param board}, along with the path the solver
+	 * should report for it. Blanks are tried as every token in the dictionary.
+	 */
+	static Map<String, Integer[]> plainSearch(TransitionMap board, Map<String, Integer> dictionary, Set<String> prefixes) {
+		Set<String> tokens = new TreeSet<>();
+		for (int i = 0; i < board.getSize(); i ++) {
+			if (TransitionMap.BLANK.equals(board.valueAt(i))) {
+				for (String word : dictionary.keySet()) {
+					tokens.addAll(Arrays.asList(StringTrie.tokensOf(word)));
+				}
+				break;
+			}
+		}
+
+		Map<String, Integer[]> found = new TreeMap<>();
+		for (int start = 0; start < board.getSize(); start ++) {
+			search(board, dictionary, prefixes, tokens, start, new LinkedList<Integer>(), "", found);
+		}
+		return found;
+	}
+
+	/**
+	 * Tries every neighbour of every position in the same order as the solver, so that the last
+	 * path found for each word is the same as the one it reports.
+	 */
+	private static void search(TransitionMap board, Map<String, Integer> dictionary, Set<String> prefixes, Set<String> tokensForBlanks, int position, LinkedList<Integer> path, String prefix, Map<String, Integer[]> found) {
+		if (path.contains(position)) {
+			return;
+		}
+
+		String value = board.valueAt(position);
+		for (String token : TransitionMap.BLANK.equals(value) ? tokensForBlanks : Collections.singleton(value)) {
+			String word = prefix + token;
+
+			// Stops a "q" and a "u" from different positions being read as a single "qu".
+			if (!prefixes.contains(word) || StringTrie.tokensOf(word).length != path.size() + 1) {
+				continue;
+			}
+
+			path.addLast(position);
+			Integer dialects = dictionary.get(word);
+			if (dialects != null && dialects != 0 && word.length() >= 3) {
+				found.put(word, path.toArray(new Integer[path.size()]));
+			}
+
+			for (int toX = 0; toX < board.getWidth(); toX ++) {
+				for (int toY = 0; toY < board.getHeight(); toY ++) {
+					if (board.canTransition(position % board.getWidth(), position / board.getWidth(), toX, toY)) {
+						search(board, dictionary, prefixes, tokensForBlanks, toX + board.getWidth() * toY, path, word, found);
+					}
+				}
+			}
+			path.removeLast();
+		}
+	}
+
+}
@@ -0,0 +1,100 @@
+package com.serwylo.lexica.trie.tests;
+
+import net.healeys.trie.LetterGenerator;
+import net.healeys.trie.SplitMixRandom;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LetterGeneratorTest {
+
+	private static final int DRAWS = 8000;
+
+	@Test
+	public void drawsLettersInProportionToTheirCurrentWeights() throws IOException {
+		LetterGenerator generator = generator("a 3 1", "b 1 1");
+		Random random = new Random(47);
+
+		int as = 0;
+		for (int i = 0; i < DRAWS; i ++) {
+			as += generator.generateBoard(1, random)[0].equals("a") ? 1 : 0;
+		}
+		assertEquals(DRAWS * 3 / 4, as, 200);
+
+		// Two "a"s is 3/4 * 1/2, and two "b"s is 1/4 * 1/4.
+		int twoAs = 0;
+		int twoBs = 0;
+		for (int i = 0; i < DRAWS; i ++) {
+			String[] board = generator.generateBoard(2, random);
+			twoAs += board[0].equals("a") && board[1].equals("a") ? 1 : 0;
+			twoBs += board[0].equals("b") && board[1].equals("b") ? 1 : 0;
+		}
+		assertEquals(DRAWS * 3 / 8, twoAs, 200);
+		assertEquals(DRAWS / 16, twoBs, 100);
+	}
+
+	@Test
+	public void shufflesEveryCell() throws IOException {
+		// "z" is all but certain to be drawn first, and can only be drawn once.
+		int[] ones = new int[40];
+		Arrays.fill(ones, 1);
+		String weights = Arrays.toString(ones).replaceAll("[\\[\\],]", "");
+		LetterGenerator generator = generator("z 100000", "a " + weights);
+
+		Random random = new Random(47);
+		int[] zs = new int[36];
+		for (int i = 0; i < 1000; i ++) {
+			String[] board = generator.generateBoard(36, random);
+			zs[Arrays.asList(board).indexOf("z")] ++;
+		}
+
+		for (int position = 0; position < zs.length; position ++) {
+			assertTrue("Position " + position, zs[position] > 0);
+		}
+	}
+
+	@Test
+	public void sameSeedGivesTheSameBoard() throws IOException {
+		LetterGenerator generator = generator("a 5 4 3 2 1", "b 4 3 2 1", "c 3 2 1", "d 2 1", "e 1", "qu 1");
+		assertArrayEquals(generator.generateBoard(16, 46L), generator.generateBoard(16, 46L));
+		assertArrayEquals(generator.generateBoard(16, 46L), generator.generateBoard(16, new SplitMixRandom(46)));
+		assertFalse(Arrays.equals(generator.generateBoard(16, 46L), generator.generateBoard(16, 47L)));
+	}
+
+	@Test
+	public void splitMixGivesTheSameNumbersAsSplittableRandom() {
+		// From new java.util.SplittableRandom(46).nextLong().
+		long[] expected = { -4976944935746785273L, 3272027361880317973L, -4250578425917887241L };
+
+		SplitMixRandom random = new SplitMixRandom(46);
+		for (long number : expected) {
+			assertEquals(number, random.nextLong());
+		}
+
+		random.setSeed(46);
+		assertEquals(expected[0], random.nextLong());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void failsWhenThereAreNotEnoughLetters() throws IOException {
+		generator("a 1", "b 1").generateBoard(3, 1L);
+	}
+
+	private static LetterGenerator generator(String... lines) throws IOException {
+		StringBuilder letters = new StringBuilder();
+		for (String line : lines) {
+			letters.append(line).append('\n');
+		}
+		return new LetterGenerator(new ByteArrayInputStream(letters.toString().getBytes("UTF-8")));
+	}
+
+}
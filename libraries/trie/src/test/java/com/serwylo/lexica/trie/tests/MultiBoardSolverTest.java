@@ -0,0 +1,117 @@
+package com.serwylo.lexica.trie.tests;
+
+import net.healeys.trie.GridTransitionMap;
+import net.healeys.trie.Languages;
+import net.healeys.trie.MultiBoardSolver;
+import net.healeys.trie.Solution;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.TransitionMap;
+import net.healeys.trie.WordFilter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class MultiBoardSolverTest {
+
+	private static final String LETTERS = "aaabcdeeeefghiiijklmnoooopqurssttuuvwxyz";
+
+	@Test
+	public void matchesSolvingEachBoardSeparately() throws IOException {
+		StringTrie trie = loadFullDictionary();
+
+		Random random = new Random(42);
+		List<TransitionMap> boards = new ArrayList<>();
+		for (int i = 0; i < MultiBoardSolver.MAX_BOARDS; i ++) {
+			boards.add(randomBoard(random, 4 + i % 3));
+		}
+
+		WordFilter filter = new WordFilter.MinLength(3);
+		for (int dialects : new int[] { Languages.ALL, Languages.EN_US.getMask(), Languages.EN_GB.getMask() }) {
+			List<Map<String, Solution>> solved = new MultiBoardSolver(trie).solve(boards, filter, dialects);
+
+			assertEquals(boards.size(), solved.size());
+			for (int i = 0; i < boards.size(); i ++) {
+				assertSameSolutions(trie.solver(boards.get(i), filter, dialects), solved.get(i));
+			}
+		}
+	}
+
+	/**
+	 * The app keeps the whole trie loaded and solves each board against it in that board's
+	 * dialect, instead of loading a trie pruned to the board and dialect each time.
+	 */
+	@Test
+	public void wholeTrieSolvesLikeOnePrunedToTheBoard() throws IOException {
+		byte[] serialized = TrieDeltaTest.serialize(TrieDeltaTest.readDictionaries());
+		StringTrie whole = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialized), null, Languages.ALL);
+
+		Random random = new Random(7);
+		WordFilter filter = new WordFilter.MinLength(3);
+		for (int i = 0; i < 12; i ++) {
+			TransitionMap board = randomBoard(random, 4 + i % 3);
+			for (int dialect : new int[] { Languages.EN_US.getMask(), Languages.EN_GB.getMask() }) {
+				StringTrie pruned = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialized), board, dialect);
+				assertSameSolutions(pruned.solver(board, filter, dialect), whole.solver(board, filter, dialect));
+			}
+		}
+	}
+
+	@Test
+	public void matchesSolvingBoardsWhichAllowRevisiting() {
+		StringTrie trie = new StringTrie();
+		for (String word : new String[] { "aa", "aaa", "abba", "cab", "quack", "zebra", "cc" }) {
+			trie.addWord(word, Languages.ALL);
+		}
+
+		List<TransitionMap> boards = new ArrayList<>();
+		boards.add(new CanTransitionMap());
+		boards.add(new CanTransitionMap(new String[] { "a", "b", "c", "k" }));
+		boards.add(new GridTransitionMap(new String[] { "a", "b", "c", "a" }));
+
+		List<Map<String, Solution>> solved = new MultiBoardSolver(trie).solve(boards, null, Languages.ALL);
+		for (int i = 0; i < boards.size(); i ++) {
+			assertSameSolutions(trie.solver(boards.get(i), null), solved.get(i));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsTooManyBoards() {
+		List<TransitionMap> boards = new ArrayList<>();
+		for (int i = 0; i <= MultiBoardSolver.MAX_BOARDS; i ++) {
+			boards.add(new GridTransitionMap(new String[] { "a" }));
+		}
+
+		new MultiBoardSolver(new StringTrie()).solve(boards, null, Languages.ALL);
+	}
+
+	static GridTransitionMap randomBoard(Random random, int width) {
+		String[] letters = new String[width * width];
+		for (int i = 0; i < letters.length; i ++) {
+			char letter = LETTERS.charAt(random.nextInt(LETTERS.length()));
+			letters[i] = letter == 'q' ? "qu" : Character.toString(letter);
+		}
+		return new GridTransitionMap(letters);
+	}
+
+	static StringTrie loadFullDictionary() throws IOException {
+		byte[] serialized = TrieDeltaTest.serialize(TrieDeltaTest.readDictionaries());
+		return new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialized), null, Languages.ALL);
+	}
+
+	private static void assertSameSolutions(Map<String, Solution> expected, Map<String, Solution> actual) {
+		assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()));
+		for (Map.Entry<String, Solution> entry : expected.entrySet()) {
+			assertArrayEquals(entry.getKey(), entry.getValue().getPositions(), actual.get(entry.getKey()).getPositions());
+		}
+	}
+
+}
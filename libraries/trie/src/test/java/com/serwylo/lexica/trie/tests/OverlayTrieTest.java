@@ -0,0 +1,188 @@
+package com.serwylo.lexica.trie.tests;
+
+import net.healeys.trie.GridTransitionMap;
+import net.healeys.trie.Languages;
+import net.healeys.trie.OverlayTrie;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.Topology;
+import net.healeys.trie.TransitionMap;
+import net.healeys.trie.WordFilter;
+import net.healeys.trie.WordJournal;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OverlayTrieTest {
+
+	private static final int US = Languages.EN_US.getMask();
+	private static final int UK = Languages.EN_GB.getMask();
+
+	private static final CanTransitionMap BOARD = new CanTransitionMap(new String[] {"a", "b", "e", "l", "r", "t"});
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static StringTrie base() throws IOException {
+		StringTrie trie = new StringTrie();
+		trie.addWord("bat", Languages.ALL);
+		trie.addWord("bet", Languages.ALL);
+		trie.addWord("tab", Languages.ALL);
+		trie.addWord("labret", US);
+		return new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(TrieTest.serialize(trie)), BOARD, Languages.ALL);
+	}
+
+	@Test
+	public void addedAndBlockedWords() throws IOException {
+		OverlayTrie trie = new OverlayTrie(base());
+		trie.addWord("blat", Languages.ALL);
+		trie.blockWord("tab", Languages.ALL);
+		trie.blockWord("bet", UK);
+
+		assertTrue(trie.isWord("blat", US));
+		assertTrue(trie.isWord("bat", US));
+		assertFalse(trie.isWord("tab"));
+		assertTrue(trie.isWord("bet", US));
+		assertFalse(trie.isWord("bet", UK));
+		assertTrue(trie.isWord("bet", Languages.ALL));
+		assertTrue(trie.isWord("labret", US));
+
+		WordFilter filter = new WordFilter.MinLength(3);
+		assertEquals(new HashSet<>(Arrays.asList("bat", "bet", "blat", "labret")), trie.solver(BOARD, filter, US).keySet());
+		assertEquals(new HashSet<>(Arrays.asList("bat", "blat")), trie.solver(BOARD, filter, UK).keySet());
+	}
+
+	@Test
+	public void laterChangesWin() throws IOException {
+		OverlayTrie trie = new OverlayTrie(base());
+
+		trie.blockWord("bat", Languages.ALL);
+		trie.addWord("bat", US);
+		assertTrue(trie.isWord("bat", US));
+		assertFalse(trie.isWord("bat", UK));
+
+		trie.addWord("blat", Languages.ALL);
+		trie.blockWord("blat", Languages.ALL);
+		assertFalse(trie.isWord("blat"));
+		assertFalse(trie.solver(BOARD, null, Languages.ALL).containsKey("blat"));
+	}
+
+	@Test
+	public void writesTheCombinedTrie() throws IOException {
+		OverlayTrie trie = new OverlayTrie(base());
+		trie.addWord("blat", Languages.ALL);
+		trie.addWord("tabla", UK);
+		trie.blockWord("tab", Languages.ALL);
+		trie.blockWord("bet", UK);
+
+		StringTrie written = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(TrieTest.serialize(trie)), null, Languages.ALL);
+
+		String[] words = { "bat", "bet", "blat", "tab", "tabla", "labret", "ta" };
+		for (String word : words) {
+			for (int dialect : new int[] { US, UK }) {
+				assertEquals(word + " in " + dialect, trie.isWord(word, dialect), written.isWord(word, dialect));
+			}
+		}
+	}
+
+	@Test
+	public void solvesBlanksAndAnagramsWithTheChanges() throws IOException {
+		OverlayTrie trie = new OverlayTrie(base());
+		trie.addWord("blat", Languages.ALL);
+		trie.addWord("albert", UK);
+		trie.blockWord("tab", Languages.ALL);
+		trie.blockWord("bet", UK);
+
+		StringTrie written = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(TrieTest.serialize(trie)), null, Languages.ALL);
+
+		TransitionMap[] boards = {
+				new GridTransitionMap(new String[] {"a", "b", "e", "l", "r", "t"}, Topology.grid(3, 2)),
+				new GridTransitionMap(new String[] {"a", "b", TransitionMap.BLANK, "l", "r", "t"}, Topology.grid(3, 2)),
+				new GridTransitionMap(new String[] {"a", "b", "e", "l", "r", "t"}, Topology.complete(3, 2)),
+		};
+
+		WordFilter filter = new WordFilter.MinLength(3);
+		for (TransitionMap board : boards) {
+			for (int dialect : new int[] { US, UK }) {
+				assertEquals(written.solver(board, filter, dialect).keySet(), trie.solver(board, filter, dialect).keySet());
+			}
+		}
+		assertTrue(trie.solver(boards[2], filter, UK).containsKey("albert"));
+		assertFalse(trie.solver(boards[1], filter, UK).containsKey("bet"));
+	}
+
+	@Test
+	public void journalRoundTrip() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		WordJournal.Writer writer = new WordJournal.Writer(bytes);
+		writer.added("blat", Languages.ALL);
+		writer.blocked("tab", UK);
+		writer.close();
+
+		OverlayTrie trie = new OverlayTrie(base());
+		trie.load(new ByteArrayInputStream(bytes.toByteArray()));
+
+		assertTrue(trie.isWord("blat"));
+		assertTrue(trie.isWord("tab", US));
+		assertFalse(trie.isWord("tab", UK));
+	}
+
+	@Test
+	public void partialRecordAtEndOfJournalIsIgnored() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		WordJournal.Writer writer = new WordJournal.Writer(bytes);
+		writer.added("blat", Languages.ALL);
+		writer.blocked("tab", Languages.ALL);
+		writer.close();
+
+		byte[] truncated = Arrays.copyOf(bytes.toByteArray(), bytes.size() - 2);
+
+		OverlayTrie trie = new OverlayTrie(base());
+		trie.load(new ByteArrayInputStream(truncated));
+
+		assertTrue(trie.isWord("blat"));
+		assertTrue(trie.isWord("tab"));
+	}
+
+	@Test
+	public void appendingCutsOffAPartialRecord() throws IOException {
+		File file = folder.newFile("user_words");
+		WordJournal.Writer writer = WordJournal.Writer.append(file);
+		writer.added("blat", Languages.ALL);
+		writer.blocked("tab", Languages.ALL);
+		writer.close();
+
+		RandomAccessFile torn = new RandomAccessFile(file, "rw");
+		torn.setLength(file.length() - 2);
+		torn.close();
+
+		writer = WordJournal.Writer.append(file);
+		writer.added("tabla", Languages.ALL);
+		writer.blocked("bat", Languages.ALL);
+		writer.close();
+
+		OverlayTrie trie = new OverlayTrie(base());
+		FileInputStream stream = new FileInputStream(file);
+		trie.load(stream);
+		stream.close();
+
+		assertTrue(trie.isWord("blat"));
+		assertTrue(trie.isWord("tab"));
+		assertTrue(trie.isWord("tabla"));
+		assertFalse(trie.isWord("bat"));
+	}
+
+}
@@ -0,0 +1,156 @@
+package com.serwylo.lexica.trie.tests;
+
+import net.healeys.trie.GridTransitionMap;
+import net.healeys.trie.Languages;
+import net.healeys.trie.Solution;
+import net.healeys.trie.SolutionCache;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.Topology;
+import net.healeys.trie.WordFilter;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SolutionCacheTest {
+
+	private static final int US = Languages.EN_US.getMask();
+	private static final int UK = Languages.EN_GB.getMask();
+
+	private static StringTrie trie;
+
+	@BeforeClass
+	public static void loadTrie() throws IOException {
+		trie = MultiBoardSolverTest.loadFullDictionary();
+	}
+
+	@Test
+	public void findsRotationsAndReflections() {
+		String[] letters = lettersOf(MultiBoardSolverTest.randomBoard(new Random(48), 5));
+		SolutionCache cache = new SolutionCache(4);
+		GridTransitionMap original = new GridTransitionMap(letters);
+		cache.put(original, US, 3, solve(original, US, 3));
+
+		for (int symmetry = 0; symmetry < 8; symmetry ++) {
+			GridTransitionMap board = new GridTransitionMap(transform(letters, 5, symmetry));
+			Map<String, Solution> cached = cache.get(board, US, 3);
+			assertNotNull("Symmetry " + symmetry, cached);
+			assertEquals("Symmetry " + symmetry, solve(board, US, 3).keySet(), cached.keySet());
+			assertPathsSpellWords(board, cached);
+		}
+	}
+
+	@Test
+	public void missesOtherSettings() {
+		GridTransitionMap board = MultiBoardSolverTest.randomBoard(new Random(48), 4);
+		SolutionCache cache = new SolutionCache(4);
+		cache.put(board, US, 3, solve(board, US, 3));
+
+		assertNotNull(cache.get(board, US, 3));
+		assertNull(cache.get(board, UK, 3));
+		assertNull(cache.get(board, US, 4));
+		assertNull(cache.get(new GridTransitionMap(lettersOf(board), Topology.torus(4, 4)), US, 3));
+
+		cache.clear();
+		assertNull(cache.get(board, US, 3));
+	}
+
+	@Test
+	public void onlyUsesSymmetriesWhichKeepTheSameNeighbours() {
+		Random random = new Random(48);
+		for (int i = 0; i < 4; i ++) {
+			String[] letters = lettersOf(MultiBoardSolverTest.randomBoard(random, 5));
+			Topology[] topologies = { Topology.hex(5, 5), Topology.torus(5, 5) };
+			for (Topology topology : topologies) {
+				SolutionCache cache = new SolutionCache(4);
+				GridTransitionMap original = new GridTransitionMap(letters, topology);
+				cache.put(original, US, 3, solve(original, US, 3));
+
+				for (int symmetry = 0; symmetry < 8; symmetry ++) {
+					GridTransitionMap board = new GridTransitionMap(transform(letters, 5, symmetry), topology);
+					Map<String, Solution> cached = cache.get(board, US, 3);
+					if (topology.equals(Topology.torus(5, 5))) {
+						// Wrapping around keeps every symmetry of the square.
+						assertNotNull(cached);
+					} else if (symmetry == 4) {
+						// Hex rows are shifted, so swapping rows with columns changes the neighbours.
+						assertNull(cached);
+					}
+
+					if (cached != null) {
+						assertEquals(solve(board, US, 3).keySet(), cached.keySet());
+						assertPathsSpellWords(board, cached);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void dropsTheLeastRecentlyUsedBoard() {
+		Random random = new Random(48);
+		GridTransitionMap a = MultiBoardSolverTest.randomBoard(random, 4);
+		GridTransitionMap b = MultiBoardSolverTest.randomBoard(random, 4);
+		GridTransitionMap c = MultiBoardSolverTest.randomBoard(random, 4);
+
+		SolutionCache cache = new SolutionCache(2);
+		cache.put(a, US, 3, solve(a, US, 3));
+		cache.put(b, US, 3, solve(b, US, 3));
+		assertNotNull(cache.get(a, US, 3));
+		cache.put(c, US, 3, solve(c, US, 3));
+
+		assertNotNull(cache.get(a, US, 3));
+		assertNull(cache.get(b, US, 3));
+		assertNotNull(cache.get(c, US, 3));
+	}
+
+	private static Map<String, Solution> solve(GridTransitionMap board, int dialect, int minLength) {
+		return trie.solver(board, new WordFilter.MinLength(minLength), dialect);
+	}
+
+	private static void assertPathsSpellWords(GridTransitionMap board, Map<String, Solution> solutions) {
+		for (Solution solution : solutions.values()) {
+			Integer[] positions = solution.getPositions();
+			StringBuilder word = new StringBuilder();
+			for (int i = 0; i < positions.length; i ++) {
+				word.append(board.valueAt(positions[i]));
+				if (i > 0) {
+					assertTrue(solution.getWord(), board.getTopology().isAdjacent(positions[i - 1], positions[i]));
+				}
+			}
+			assertEquals(solution.getWord(), word.toString());
+		}
+	}
+
+	/**
+	 * Flips horizontally (bit 1), vertically (bit 2) and along the diagonal (bit 4).
+	 */
+	private static String[] transform(String[] letters, int width, int symmetry) {
+		String[] transformed = new String[letters.length];
+		for (int y = 0; y < width; y ++) {
+			for (int x = 0; x < width; x ++) {
+				int toX = (symmetry & 1) != 0 ? width - 1 - x : x;
+				int toY = (symmetry & 2) != 0 ? width - 1 - y : y;
+				transformed[(symmetry & 4) != 0 ? toY + width * toX : toX + width * toY] = letters[x + width * y];
+			}
+		}
+		return transformed;
+	}
+
+	private static String[] lettersOf(GridTransitionMap board) {
+		String[] letters = new String[board.getSize()];
+		for (int i = 0; i < letters.length; i ++) {
+			letters[i] = board.valueAt(i);
+		}
+		return letters;
+	}
+
+}
@@ -0,0 +1,124 @@
+package com.serwylo.lexica.trie.tests;
+
+import net.healeys.trie.Languages;
+import net.healeys.trie.SortedTrieWriter;
+import net.healeys.trie.TrieDelta;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SortedTrieWriterTest {
+
+	private static final int US = Languages.EN_US.getMask();
+	private static final int UK = Languages.EN_GB.getMask();
+
+	@Test
+	public void writesTheSameTrieAsStringTrie() {
+		Map<String, Integer> words = TrieDeltaTest.readDictionaries();
+		byte[] expected = TrieDeltaTest.serialize(words);
+		byte[] actual = write(words);
+
+		assertEquals(expected.length, actual.length);
+		assertEquals(words, TrieDelta.readWords(actual));
+	}
+
+	@Test
+	public void qWithoutUIsSortedBeforeQu() {
+		Map<String, Integer> words = new HashMap<>();
+		words.put("qat", US | UK);
+		words.put("qi", UK);
+		words.put("quit", US | UK);
+		words.put("queen", US);
+		words.put("q", US);
+
+		assertEquals(words, TrieDelta.readWords(write(words)));
+		assertTrue(SortedTrieWriter.TOKEN_ORDER.compare("qat", "qua") < 0);
+		assertTrue(SortedTrieWriter.TOKEN_ORDER.compare("qz", "qua") < 0);
+	}
+
+	@Test
+	public void duplicateWordsCombineTheirDialects() {
+		SortedTrieWriter writer = new SortedTrieWriter();
+		writer.addWord("colour", UK);
+		writer.addWord("colour", US);
+		writer.addWord("colours", UK);
+
+		Map<String, Integer> expected = new HashMap<>();
+		expected.put("colour", US | UK);
+		expected.put("colours", UK);
+		assertEquals(expected, TrieDelta.readWords(writer.finish()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsWordsOutOfOrder() {
+		SortedTrieWriter writer = new SortedTrieWriter();
+		writer.addWord("bat", US);
+		writer.addWord("ant", US);
+	}
+
+	@Test
+	public void growsFromATinyBuffer() {
+		Map<String, Integer> words = new HashMap<>();
+		words.put("a", US);
+		words.put("aardvark", US | UK);
+		words.put("abacus", UK);
+		words.put("zebra", US | UK);
+
+		assertEquals(words, TrieDelta.readWords(write(words, 1)));
+	}
+
+	@Test
+	public void joinsSubtreesUnderARoot() {
+		Map<String, Integer> words = new HashMap<>();
+		words.put("queen", US);
+		words.put("quit", US | UK);
+		words.put("qat", UK);
+		words.put("bat", US | UK);
+		words.put("b", UK);
+
+		Map<String, Integer> qu = new HashMap<>();
+		qu.put("een", US);
+		qu.put("it", US | UK);
+
+		Map<String, Integer> q = new HashMap<>();
+		q.put("at", UK);
+
+		Map<String, Integer> b = new HashMap<>();
+		b.put("at", US | UK);
+		b.put("", UK);
+
+		Map<String, byte[]> children = new LinkedHashMap<>();
+		children.put("qu", write(qu));
+		children.put("b", write(b));
+		children.put("q", write(q));
+
+		byte[] joined = SortedTrieWriter.join(0, children);
+		assertEquals(TrieDeltaTest.serialize(words).length, joined.length);
+		assertEquals(words, TrieDelta.readWords(joined));
+	}
+
+	private static byte[] write(Map<String, Integer> words) {
+		return write(words, 64 * 1024);
+	}
+
+	private static byte[] write(Map<String, Integer> words, int initialCapacity) {
+		List<String> sorted = new ArrayList<>(words.keySet());
+		Collections.sort(sorted, SortedTrieWriter.TOKEN_ORDER);
+
+		SortedTrieWriter writer = new SortedTrieWriter(initialCapacity);
+		for (String word : sorted) {
+			writer.addWord(word, words.get(word));
+		}
+		return writer.finish();
+	}
+
+}
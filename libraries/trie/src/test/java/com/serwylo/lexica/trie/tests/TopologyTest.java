@@ -0,0 +1,221 @@
+package com.serwylo.lexica.trie.tests;
+
+import net.healeys.trie.GridTransitionMap;
+import net.healeys.trie.Languages;
+import net.healeys.trie.MultiBoardSolver;
+import net.healeys.trie.Solution;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.Topology;
+import net.healeys.trie.TransitionMap;
+import net.healeys.trie.Trie;
+import net.healeys.trie.WordFilter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TopologyTest {
+
+	@Test
+	public void gridIsTheSameAsTheUsualRules() {
+		Topology grid = Topology.grid(5, 3);
+		Topology compiled = Topology.compile(new CanTransitionMap() {
+			@Override
+			public boolean canTransition(int fromX, int fromY, int toX, int toY) {
+				int xDistance = Math.abs(fromX - toX);
+				int yDistance = Math.abs(fromY - toY);
+				return xDistance <= 1 && yDistance <= 1 && xDistance + yDistance > 0;
+			}
+
+			@Override
+			public int getWidth() {
+				return 5;
+			}
+
+			@Override
+			public int getHeight() {
+				return 3;
+			}
+		});
+
+		assertEquals(15, grid.getSize());
+		for (int position = 0; position < grid.getSize(); position ++) {
+			assertArrayEquals("Position " + position, compiled.getNeighbours(position), grid.getNeighbours(position));
+		}
+		assertArrayEquals(new int[] { 5, 1, 6 }, grid.getNeighbours(0));
+	}
+
+	@Test
+	public void hexCellsHaveSixNeighbours() {
+		Topology hex = Topology.hex(5, 5);
+
+		// (2, 2) is in an even row, so the rows above and below are shifted to its left.
+		assertArrayEquals(new int[] { 6, 11, 16, 7, 17, 13 }, hex.getNeighbours(12));
+
+		// (2, 1) is in an odd row, so the rows above and below are shifted to its right.
+		assertArrayEquals(new int[] { 6, 2, 12, 3, 8, 13 }, hex.getNeighbours(7));
+
+		assertArrayEquals(new int[] { 5, 1 }, hex.getNeighbours(0));
+		assertSymmetric(hex);
+	}
+
+	@Test
+	public void torusWrapsAroundTheEdges() {
+		Topology torus = Topology.torus(4, 3);
+		for (int position = 0; position < torus.getSize(); position ++) {
+			assertEquals(8, torus.getNeighbours(position).length);
+		}
+
+		assertTrue(torus.isAdjacent(0, 3));
+		assertTrue(torus.isAdjacent(0, 8));
+		assertTrue(torus.isAdjacent(0, 11));
+		assertFalse(torus.isAdjacent(0, 0));
+		assertSymmetric(torus);
+
+		// On a board this small, going left and going right lead to the same place.
+		assertArrayEquals(new int[] { 2, 1, 3 }, Topology.torus(2, 2).getNeighbours(0));
+	}
+
+	@Test
+	public void solvesCustomGraphs() {
+		// A ring, where the last letter leads back around to the first.
+		Topology ring = new Topology.Builder(4)
+				.connect(0, 1)
+				.connect(1, 2)
+				.connect(2, 3)
+				.connect(3, 0)
+				.connectOneWay(0, 2)
+				.build();
+
+		assertEquals(4, ring.getWidth());
+		assertEquals(1, ring.getHeight());
+		assertTrue(ring.isAdjacent(0, 2));
+		assertFalse(ring.isAdjacent(2, 0));
+
+		Trie trie = new StringTrie();
+		trie.addWord("cats", Languages.ALL);
+		trie.addWord("scat", Languages.ALL);
+		trie.addWord("ct", Languages.ALL);
+		trie.addWord("tc", Languages.ALL);
+		trie.addWord("sa", Languages.ALL);
+
+		GridTransitionMap board = new GridTransitionMap(new String[] { "c", "a", "t", "s" }, ring);
+		Map<String, Solution> solutions = trie.solver(board, null);
+
+		assertEquals(3, solutions.size());
+		assertArrayEquals(new Integer[] { 3, 0, 1, 2 }, solutions.get("scat").getPositions());
+		assertArrayEquals(new Integer[] { 0, 2 }, solutions.get("ct").getPositions());
+		assertFalse("Can only go from \"c\" to \"t\", not back", solutions.containsKey("tc"));
+		assertFalse(board.canTransition(3, 0, 1, 0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsBoardsWhichDontFitTheTopology() {
+		new GridTransitionMap(new String[] { "a", "b", "c" }, Topology.hex(2, 2));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsConnectionsOffTheBoard() {
+		new Topology.Builder(3, 3).connect(0, 9);
+	}
+
+	@Test
+	public void solvesEveryTopologyLikeAPlainSearch() throws IOException {
+		Map<String, Integer> dictionary = TrieDeltaTest.readDictionaries();
+		byte[] serialized = TrieDeltaTest.serialize(dictionary);
+		StringTrie trie = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialized), null, Languages.ALL);
+		Set<String> prefixes = GridTransitionMapTest.prefixesOf(dictionary);
+		WordFilter filter = new WordFilter.MinLength(3);
+
+		Random random = new Random(40);
+		Topology[] topologies = { Topology.hex(6, 6), Topology.hex(7, 4), Topology.torus(5, 5), Topology.torus(6, 3) };
+		List<GridTransitionMap> boards = new ArrayList<>();
+		for (Topology topology : topologies) {
+			String[] letters = new String[topology.getSize()];
+			GridTransitionMap square = MultiBoardSolverTest.randomBoard(random, Math.max(topology.getWidth(), topology.getHeight()));
+			for (int i = 0; i < letters.length; i ++) {
+				letters[i] = square.valueAt(i);
+			}
+			boards.add(new GridTransitionMap(letters, topology));
+		}
+
+		List<Map<String, Solution>> together = new MultiBoardSolver(trie).solve(boards, filter, Languages.ALL);
+		for (int i = 0; i < boards.size(); i ++) {
+			GridTransitionMap board = boards.get(i);
+			String name = "Board " + i;
+
+			Map<String, Integer[]> expected = GridTransitionMapTest.plainSearch(board, dictionary, prefixes);
+			assertFalse(name, expected.isEmpty());
+			assertSolutions(name, expected, trie.solver(board, filter));
+			assertSolutions(name + " without a compiled topology", expected, trie.solver(uncompiled(board), filter));
+			assertSolutions(name + " solved together", expected, together.get(i));
+
+			StringTrie loadedForBoard = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialized), board, Languages.ALL);
+			assertSolutions(name + " loaded for the board", expected, loadedForBoard.solver(board, filter));
+		}
+	}
+
+	private static void assertSolutions(String name, Map<String, Integer[]> expected, Map<String, Solution> solutions) {
+		assertEquals(name, expected.keySet(), solutions.keySet());
+		for (Map.Entry<String, Integer[]> entry : expected.entrySet()) {
+			assertArrayEquals(name + " " + entry.getKey(), entry.getValue(), solutions.get(entry.getKey()).getPositions());
+		}
+	}
+
+	private static void assertSymmetric(Topology topology) {
+		for (int from = 0; from < topology.getSize(); from ++) {
+			for (int to : topology.getNeighbours(from)) {
+				assertTrue(to + " should lead back to " + from, topology.isAdjacent(to, from));
+			}
+		}
+	}
+
+	/**
+	 * Hides the topology of {@param board}, so solvers have to compile their own.
+	 */
+	private static TransitionMap uncompiled(final GridTransitionMap board) {
+		return new TransitionMap() {
+			@Override
+			public boolean canTransition(int fromX, int fromY, int toX, int toY) {
+				return board.canTransition(fromX, fromY, toX, toY);
+			}
+
+			@Override
+			public String valueAt(int position) {
+				return board.valueAt(position);
+			}
+
+			@Override
+			public int getSize() {
+				return board.getSize();
+			}
+
+			@Override
+			public int getWidth() {
+				return board.getWidth();
+			}
+
+			@Override
+			public int getHeight() {
+				return board.getHeight();
+			}
+
+			@Override
+			public boolean canRevisit() {
+				return false;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,203 @@
+package com.serwylo.lexica.trie.tests;
+
+import net.healeys.trie.Languages;
+import net.healeys.trie.Solution;
+import net.healeys.trie.TransitionMap;
+import net.healeys.trie.Trie;
+import net.healeys.trie.WordFilter;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that every {@link TrieImplementation} finds exactly the same words, along the same
+ * paths, as the reference implementation, and agrees on which strings are words. It then prints
+ * a table comparing how long each took, and how much memory it used.
+ *
+ * The times are from a single pass over boards of mixed sizes on a cold JVM, so are only a rough
+ * guide. The benchmarks in trie-benchmarks (such as SolverBenchmark) are what to compare speeds by.
+ */
+@RunWith(Parameterized.class)
+public class TrieConformanceTest {
+
+	private static final int[] DIALECTS = { Languages.ALL, Languages.EN_US.getMask(), Languages.EN_GB.getMask() };
+	private static final WordFilter FILTER = new WordFilter.MinLength(3);
+
+	private static byte[] serialized;
+	private static List<TransitionMap> boards;
+	private static List<String> candidates;
+	private static Trie reference;
+	private static final Map<Integer, List<Map<String, Solution>>> referenceSolutions = new LinkedHashMap<>();
+
+	private static final Map<String, Measurements> measurements = new LinkedHashMap<>();
+
+	@Parameterized.Parameters(name = "{0}")
+	public static Collection<Object[]> implementations() {
+		List<Object[]> implementations = new ArrayList<>();
+		for (TrieImplementation implementation : TrieImplementation.all()) {
+			implementations.add(new Object[] { implementation });
+		}
+		return implementations;
+	}
+
+	private final TrieImplementation implementation;
+
+	public TrieConformanceTest(TrieImplementation implementation) {
+		this.implementation = implementation;
+	}
+
+	@BeforeClass
+	public static void setup() throws IOException {
+		Map<String, Integer> words = TrieDeltaTest.readDictionaries();
+		serialized = TrieDeltaTest.serialize(words);
+
+		Random random = new Random(1234);
+		boards = new ArrayList<>();
+		for (int i = 0; i < 96; i ++) {
+			boards.add(MultiBoardSolverTest.randomBoard(random, 4 + i % 3));
+		}
+
+		// Every real word, plus each with one letter changed, which are mostly not words but
+		// share long prefixes with words.
+		candidates = new ArrayList<>(words.keySet());
+		Collections.sort(candidates);
+		for (int i = 0; i < words.size(); i += 7) {
+			char[] letters = candidates.get(i).toCharArray();
+			letters[random.nextInt(letters.length)] = (char) ('a' + random.nextInt(26));
+			candidates.add(new String(letters));
+		}
+
+		reference = load(TrieImplementation.REFERENCE, null, Languages.ALL);
+		for (int dialects : DIALECTS) {
+			referenceSolutions.put(dialects, TrieImplementation.REFERENCE.solve(reference, boards, FILTER, dialects));
+		}
+	}
+
+	@Test
+	public void findsTheSameSolutions() throws IOException {
+		Measurements measured = new Measurements();
+
+		long heapBefore = usedHeap();
+		long startTime = System.nanoTime();
+		Trie trie = load(implementation, null, Languages.ALL);
+		measured.loadTime = System.nanoTime() - startTime;
+		measured.retainedHeap = usedHeap() - heapBefore;
+
+		for (int dialects : DIALECTS) {
+			long allocatedBefore = allocatedBytes();
+			startTime = System.nanoTime();
+			List<Map<String, Solution>> solutions = implementation.solve(trie, boards, FILTER, dialects);
+			measured.solveTime += System.nanoTime() - startTime;
+			measured.allocated = allocatedBefore < 0 ? -1 : measured.allocated + allocatedBytes() - allocatedBefore;
+
+			List<Map<String, Solution>> expected = referenceSolutions.get(dialects);
+			for (int i = 0; i < boards.size(); i ++) {
+				assertSameSolutions("Board " + i + ", dialects " + dialects, expected.get(i), solutions.get(i));
+			}
+		}
+
+		measured.solves = boards.size() * DIALECTS.length;
+		measurements.put(implementation.toString(), measured);
+
+		// Keep the trie reachable until its retained size has been measured.
+		assertEquals(reference.isWord("lexica"), trie.isWord("lexica"));
+	}
+
+	@Test
+	public void findsTheSameSolutionsWhenLoadedForEachBoard() throws IOException {
+		for (int i = 0; i < boards.size(); i += 8) {
+			TransitionMap board = boards.get(i);
+			for (int dialects : DIALECTS) {
+				Trie trie = load(implementation, board, dialects);
+				Map<String, Solution> solutions = implementation.solve(trie, Collections.singletonList(board), FILTER, dialects).get(0);
+				assertSameSolutions("Board " + i + ", dialects " + dialects, referenceSolutions.get(dialects).get(i), solutions);
+			}
+		}
+	}
+
+	@Test
+	public void agreesOnWhichStringsAreWords() throws IOException {
+		Trie trie = load(implementation, null, Languages.ALL);
+		for (String candidate : candidates) {
+			assertEquals(candidate, reference.isWord(candidate), trie.isWord(candidate));
+			for (int dialects : DIALECTS) {
+				assertEquals(candidate + ", dialects " + dialects, reference.isWord(candidate, dialects), trie.isWord(candidate, dialects));
+			}
+		}
+	}
+
+	@AfterClass
+	public static void printMeasurements() {
+		System.out.println();
+		System.out.println(String.format("%-24s %12s %16s %16s %20s", "Implementation", "Load (ms)", "Solve (us/board)", "Retained (KiB)", "Allocated (B/board)"));
+		for (Map.Entry<String, Measurements> entry : measurements.entrySet()) {
+			Measurements measured = entry.getValue();
+			System.out.println(String.format(
+					"%-24s %12.1f %16.1f %16d %20s",
+					entry.getKey(),
+					measured.loadTime / 1e6,
+					measured.solveTime / 1e3 / measured.solves,
+					measured.retainedHeap / 1024,
+					measured.allocated < 0 ? "n/a" : Long.toString(measured.allocated / measured.solves)));
+		}
+	}
+
+	private static Trie load(TrieImplementation implementation, TransitionMap board, int dialects) throws IOException {
+		return implementation.load(new ByteArrayInputStream(serialized), board, dialects);
+	}
+
+	private static void assertSameSolutions(String message, Map<String, Solution> expected, Map<String, Solution> actual) {
+		assertEquals(message, new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()));
+		for (Map.Entry<String, Solution> entry : expected.entrySet()) {
+			Solution solution = actual.get(entry.getKey());
+			assertEquals(message, entry.getKey(), solution.getWord());
+			assertArrayEquals(message + ": " + entry.getKey(), entry.getValue().getPositions(), solution.getPositions());
+		}
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i ++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * Bytes allocated by this thread so far, or -1 if the JVM can't say.
+	 */
+	static long allocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	private static class Measurements {
+		long loadTime;
+		long solveTime;
+		long retainedHeap;
+		long allocated;
+		int solves;
+	}
+
+}
@@ -0,0 +1,123 @@
+package com.serwylo.lexica.trie.tests;
+
+import net.healeys.trie.Languages;
+import net.healeys.trie.OverlayTrie;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.Trie;
+import net.healeys.trie.TrieDelta;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TrieDeltaTest {
+
+	private static final int US = Languages.EN_US.getMask();
+	private static final int UK = Languages.EN_GB.getMask();
+
+	@Test
+	public void patchingGivesTheSameWordsAsRebuilding() throws IOException {
+		Map<String, Integer> before = readDictionaries();
+
+		Map<String, Integer> after = new HashMap<>(before);
+		after.remove("aardvark");
+		after.put("colour", US | UK);
+		after.put("lexica", US | UK);
+		after.put("quokkas", UK);
+		after.put("ab", 0);
+
+		byte[] base = serialize(before);
+		byte[] delta = diff(base, after);
+
+		ByteArrayOutputStream patched = new ByteArrayOutputStream();
+		TrieDelta.patch(base, new ByteArrayInputStream(delta), patched);
+
+		after.remove("ab");
+		assertEquals(after, TrieDelta.readWords(patched.toByteArray()));
+		assertEquals(after, TrieDelta.readWords(serialize(after)));
+
+		Trie trie = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(patched.toByteArray()), null, Languages.ALL);
+		assertTrue(trie.isWord("lexica", UK));
+		assertTrue(trie.isWord("colour", US));
+		assertTrue(trie.isWord("quokkas", UK));
+		assertFalse(trie.isWord("quokkas", US));
+		assertFalse(trie.isWord("aardvark"));
+		assertFalse(trie.isWord("ab"));
+	}
+
+	@Test
+	public void deltaCanBeCombinedWithBaseAtLoadTime() throws IOException {
+		Map<String, Integer> before = new HashMap<>();
+		before.put("bat", US | UK);
+		before.put("tab", US | UK);
+		before.put("bet", US);
+
+		Map<String, Integer> after = new HashMap<>();
+		after.put("bat", US | UK);
+		after.put("bet", US | UK);
+		after.put("abet", UK);
+
+		byte[] base = serialize(before);
+
+		OverlayTrie trie = new OverlayTrie(new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(base), null, Languages.ALL));
+		trie.load(new ByteArrayInputStream(diff(base, after)));
+
+		assertTrue(trie.isWord("bat", US));
+		assertFalse(trie.isWord("tab"));
+		assertTrue(trie.isWord("bet", UK));
+		assertTrue(trie.isWord("abet", UK));
+		assertFalse(trie.isWord("abet", US));
+	}
+
+	@Test
+	public void emptyDeltaCopiesTheBase() throws IOException {
+		Map<String, Integer> words = new HashMap<>();
+		words.put("quit", US | UK);
+		words.put("queen", UK);
+
+		byte[] base = serialize(words);
+
+		ByteArrayOutputStream patched = new ByteArrayOutputStream();
+		TrieDelta.patch(base, new ByteArrayInputStream(diff(base, words)), patched);
+
+		assertEquals(base.length, patched.size());
+		assertEquals(words, TrieDelta.readWords(patched.toByteArray()));
+	}
+
+	static Map<String, Integer> readDictionaries() {
+		Map<String, Integer> words = new HashMap<>();
+		for (String word : FullUsUkTrieTest.readDictionary("us.txt")) {
+			words.put(word.toLowerCase(), US);
+		}
+
+		for (String word : FullUsUkTrieTest.readDictionary("uk.txt")) {
+			String lowerCase = word.toLowerCase();
+			Integer existing = words.get(lowerCase);
+			words.put(lowerCase, existing == null ? UK : existing | UK);
+		}
+		return words;
+	}
+
+	static byte[] serialize(Map<String, Integer> words) {
+		StringTrie trie = new StringTrie();
+		for (Map.Entry<String, Integer> entry : words.entrySet()) {
+			trie.addWord(entry.getKey(), entry.getValue());
+		}
+		return TrieTest.serialize(trie);
+	}
+
+	private static byte[] diff(byte[] base, Map<String, Integer> words) throws IOException {
+		ByteArrayOutputStream delta = new ByteArrayOutputStream();
+		TrieDelta.diff(base, words, delta);
+		return delta.toByteArray();
+	}
+
+}
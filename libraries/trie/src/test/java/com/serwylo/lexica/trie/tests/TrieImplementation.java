@@ -0,0 +1,83 @@
+package com.serwylo.lexica.trie.tests;
+
+import net.healeys.trie.MultiBoardSolver;
+import net.healeys.trie.OverlayTrie;
+import net.healeys.trie.Solution;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.TransitionMap;
+import net.healeys.trie.Trie;
+import net.healeys.trie.WordFilter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A way of loading a serialized trie and solving boards with it. Every implementation registered
+ * in {@link #all()} is checked against {@link #REFERENCE} by {@link TrieConformanceTest}, so any
+ * new {@link Trie} (or new way of solving with an existing one) should be added there.
+ */
+abstract class TrieImplementation {
+
+	static final TrieImplementation REFERENCE = new TrieImplementation("StringTrie") {
+		@Override
+		Trie load(InputStream stream, TransitionMap transitionMap, int dialects) throws IOException {
+			return new StringTrie.Deserializer().deserialize(stream, transitionMap, dialects);
+		}
+	};
+
+	static List<TrieImplementation> all() {
+		return Arrays.asList(
+				REFERENCE,
+
+				new TrieImplementation("OverlayTrie (empty)") {
+					@Override
+					Trie load(InputStream stream, TransitionMap transitionMap, int dialects) throws IOException {
+						return new OverlayTrie((StringTrie) REFERENCE.load(stream, transitionMap, dialects));
+					}
+				},
+
+				new TrieImplementation("MultiBoardSolver") {
+					@Override
+					Trie load(InputStream stream, TransitionMap transitionMap, int dialects) throws IOException {
+						return REFERENCE.load(stream, transitionMap, dialects);
+					}
+
+					@Override
+					List<Map<String, Solution>> solve(Trie trie, List<? extends TransitionMap> boards, WordFilter filter, int dialects) {
+						List<Map<String, Solution>> solutions = new ArrayList<>(boards.size());
+						for (int start = 0; start < boards.size(); start += MultiBoardSolver.MAX_BOARDS) {
+							List<? extends TransitionMap> group = boards.subList(start, Math.min(boards.size(), start + MultiBoardSolver.MAX_BOARDS));
+							solutions.addAll(new MultiBoardSolver((StringTrie) trie).solve(group, filter, dialects));
+						}
+						return solutions;
+					}
+				}
+		);
+	}
+
+	private final String name;
+
+	TrieImplementation(String name) {
+		this.name = name;
+	}
+
+	abstract Trie load(InputStream stream, TransitionMap transitionMap, int dialects) throws IOException;
+
+	List<Map<String, Solution>> solve(Trie trie, List<? extends TransitionMap> boards, WordFilter filter, int dialects) {
+		List<Map<String, Solution>> solutions = new ArrayList<>(boards.size());
+		for (TransitionMap board : boards) {
+			solutions.add(trie.solver(board, filter, dialects));
+		}
+		return solutions;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+}
@@ -0,0 +1,77 @@
+package com.serwylo.lexica.trie.tests;
+
+import net.healeys.trie.GridTransitionMap;
+import net.healeys.trie.Languages;
+import net.healeys.trie.Solution;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.TrieListener;
+import net.healeys.trie.WordFilter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TrieListenerTest {
+
+	private final List<TrieListener.LoadStats> loads = new ArrayList<>();
+	private final List<TrieListener.SolveStats> solves = new ArrayList<>();
+
+	private final TrieListener listener = new TrieListener.Adapter() {
+		@Override
+		public void onLoaded(LoadStats stats) {
+			loads.add(stats);
+		}
+
+		@Override
+		public void onSolved(SolveStats stats) {
+			solves.add(stats);
+		}
+	};
+
+	@Test
+	public void reportsLoadingAndSolving() throws IOException {
+		byte[] serialized = TrieDeltaTest.serialize(TrieDeltaTest.readDictionaries());
+		GridTransitionMap board = MultiBoardSolverTest.randomBoard(new Random(7), 5);
+
+		StringTrie trie = new StringTrie.Deserializer(listener).deserialize(new ByteArrayInputStream(serialized), board, Languages.EN_US.getMask());
+
+		assertEquals(1, loads.size());
+		TrieListener.LoadStats load = loads.get(0);
+		assertEquals(25, load.getBoardSize());
+		assertEquals(Languages.EN_US.getMask(), load.getDialects());
+		assertEquals(serialized.length, load.getBytesRead() + load.getBytesSkipped());
+		assertTrue(load.getBytesSkipped() > load.getBytesRead());
+		assertTrue(load.getNodesMaterialized() > 0);
+		assertTrue(load.getNodesSkipped() > 0);
+
+		Map<String, Solution> solutions = trie.solver(board, new WordFilter.MinLength(3), Languages.EN_US.getMask());
+
+		assertEquals(1, solves.size());
+		TrieListener.SolveStats solve = solves.get(0);
+		assertEquals(25, solve.getBoardSize());
+		assertEquals(solutions.size(), solve.getWordsEmitted() - solve.getDuplicateHits());
+		assertTrue(solve.getNodesVisited() >= solve.getWordsEmitted());
+		assertTrue(solve.getBranchesPruned() > 0);
+	}
+
+	@Test
+	public void nothingIsSkippedWithoutABoard() throws IOException {
+		byte[] serialized = TrieDeltaTest.serialize(TrieDeltaTest.readDictionaries());
+		new StringTrie.Deserializer(listener).deserialize(new ByteArrayInputStream(serialized), null, Languages.ALL);
+
+		TrieListener.LoadStats load = loads.get(0);
+		assertEquals(0, load.getBoardSize());
+		assertEquals(serialized.length, load.getBytesRead());
+		assertEquals(0, load.getBytesSkipped());
+		assertEquals(0, load.getNodesSkipped());
+	}
+
+}
@@ -0,0 +1,135 @@
+package com.serwylo.lexica.trie.tests;
+
+import net.healeys.trie.BoardTarget;
+import net.healeys.trie.GridTransitionMap;
+import net.healeys.trie.Languages;
+import net.healeys.trie.LetterGenerator;
+import net.healeys.trie.Solution;
+import net.healeys.trie.StringTrie;
+import net.healeys.trie.Topology;
+import net.healeys.trie.WordCounter;
+import net.healeys.trie.WordFilter;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WordCounterTest {
+
+	/**
+	 * The same as the app's letters.txt.
+	 */
+	private static final String LETTERS = "Qu 3|A 73 15 2 1 1|C 43 6 1|B 21 2 1 1|E 100 35 7 1 1|D 43 6 1 1|G 35 4 1 1|F 16 2 1 1|"
+			+ "I 81 22 4 1 1 1|H 26 2 1|K 11 1 1 1|J 3 1|M 29 4 1 1|L 53 10 1 1|O 58 13 2 1|N 69 16 2 1 1|P 32 4 1 1|"
+			+ "S 82 23 4 1 1 1|R 73 14 1 1|U 36 3 1 1|T 68 15 2 1|W 11 1 1|V 13 1|Y 18 1|X 4 1|Z 5 1 1 1";
+
+	private static byte[] serialized;
+	private static StringTrie trie;
+
+	@BeforeClass
+	public static void loadTrie() throws IOException {
+		serialized = TrieDeltaTest.serialize(TrieDeltaTest.readDictionaries());
+		trie = new StringTrie.Deserializer().deserialize(new ByteArrayInputStream(serialized), null, Languages.ALL);
+	}
+
+	@Test
+	public void countsTheSameWordsAsTheSolver() {
+		Random random = new Random(46);
+		Topology[] topologies = { Topology.grid(4, 4), Topology.grid(5, 5), Topology.grid(6, 6), Topology.hex(5, 5), Topology.torus(4, 4) };
+		int[] dialects = { Languages.EN_US.getMask(), Languages.EN_GB.getMask() };
+
+		for (int dialect : dialects) {
+			for (int minLength : new int[] { 3, 5 }) {
+				WordCounter counter = new WordCounter(serialized, dialect, minLength);
+				for (Topology topology : topologies) {
+					for (int i = 0; i < 4; i ++) {
+						String[] letters = lettersFor(random, topology);
+						Map<String, Solution> solutions = trie.solver(new GridTransitionMap(letters, topology), new WordFilter.MinLength(minLength), dialect);
+
+						int[] lengths = new int[letters.length * 2 + 1];
+						int longest = 0;
+						for (String word : solutions.keySet()) {
+							lengths[word.length()] ++;
+							longest = Math.max(longest, word.length());
+						}
+
+						String name = topology.getWidth() + "x" + topology.getHeight() + " " + minLength + " " + dialect;
+						assertEquals(name, solutions.size(), counter.count(letters, topology));
+						assertEquals(name, solutions.size(), counter.getWordCount());
+						assertEquals(name, longest, counter.getMaxLength());
+						for (int length = 0; length < lengths.length; length ++) {
+							assertEquals(name + " length " + length, lengths[length], counter.getWordCount(length));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void countsWordsSpeltByManyPathsOnce() {
+		StringTrie cat = new StringTrie();
+		cat.addWord("cat", Languages.ALL);
+		WordCounter counter = new WordCounter(TrieTest.serialize(cat), Languages.ALL, 3);
+
+		assertEquals(1, counter.count(new String[] {
+				"c", "a", "t",
+				"a", "t", "c",
+				"t", "c", "a",
+		}, Topology.grid(3, 3)));
+	}
+
+	@Test
+	public void generatesBoardsWithinTheTarget() throws IOException {
+		LetterGenerator generator = new LetterGenerator(new ByteArrayInputStream(LETTERS.replace('|', '\n').getBytes("UTF-8")));
+		int dialect = Languages.EN_US.getMask();
+		WordCounter counter = new WordCounter(serialized, dialect, 3);
+		Topology grid = Topology.grid(4, 4);
+		int[] points = { 0, 0, 0, 1, 1, 2, 3, 5, 8, 13 };
+
+		BoardTarget target = new BoardTarget()
+				.words(80, 150)
+				.score(points, 100, 400)
+				.longWords(6, 2, 20);
+
+		Random random = new Random(47);
+		int accepted = 0;
+		for (int i = 0; i < 10; i ++) {
+			String[] letters = target.generate(generator, counter, grid, random, 500);
+			counter.count(letters, grid);
+			if (target.accepts(counter)) {
+				accepted ++;
+			}
+
+			Map<String, Solution> solutions = trie.solver(new GridTransitionMap(letters, grid), new WordFilter.MinLength(3), dialect);
+			assertEquals(solutions.size(), counter.getWordCount());
+		}
+		assertEquals(10, accepted);
+
+		// Nothing on a 4x4 board could ever have this many words.
+		BoardTarget impossible = new BoardTarget().words(100000, 200000);
+		String[] closest = impossible.generate(generator, counter, grid, random, 50);
+		assertEquals(16, closest.length);
+		counter.count(closest, grid);
+		assertFalse(impossible.accepts(counter));
+		assertTrue(counter.getWordCount() > 0);
+	}
+
+	private static String[] lettersFor(Random random, Topology topology) {
+		GridTransitionMap square = MultiBoardSolverTest.randomBoard(random, Math.max(topology.getWidth(), topology.getHeight()));
+		String[] letters = new String[topology.getSize()];
+		for (int i = 0; i < letters.length; i ++) {
+			letters[i] = square.valueAt(i);
+		}
+		return letters;
+	}
+
+}